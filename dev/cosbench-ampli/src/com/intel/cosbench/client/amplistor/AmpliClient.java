@@ -29,6 +29,7 @@ import org.apache.http.entity.*;
 import org.apache.http.util.EntityUtils;
 
 import com.intel.cosbench.client.http.HttpClientUtil;
+import com.intel.cosbench.client.http.PayloadEntity;
 
 /**
  * This class encapsulates AmpliStor related REST operations, so far no
@@ -135,7 +136,7 @@ public class AmpliClient {
             method = HttpClientUtil.makeHttpPut(storageUrl + "/" + HttpClientUtil.encodeURL(ampliNamespace)
                     + "/" + HttpClientUtil.encodeURL(ampliFilename));
 
-            InputStreamEntity entity = new InputStreamEntity(stream, length);
+            InputStreamEntity entity = new PayloadEntity(stream, length);
 
             if (length < 0)
                 entity.setChunked(true);
@@ -0,0 +1,66 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+package com.intel.cosbench.api.storage;
+
+import java.io.InputStream;
+
+import com.intel.cosbench.config.Config;
+
+/**
+ * An optional extension to {@link StorageAPI} for storage which can have many
+ * operations in flight at the same time.
+ * <p>
+ * Each method returns as soon as the operation is issued, and reports its
+ * outcome through the given callback. The operation is measured from the call
+ * to the callback, so the caller needs no thread of its own while it waits.
+ * Downloaded content is read and discarded by the storage itself.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public interface AsyncStorageAPI extends StorageAPI {
+
+    /**
+     * Tells whether asynchronous operations can be issued with the current
+     * settings, for example when the underlying client is thread-safe.
+     */
+    public boolean isAsyncSupported();
+
+    /**
+     * Downloads an object from a container, see
+     * {@link StorageAPI#getObject(String, String, Config)}.
+     */
+    public void getObjectAsync(String container, String object,
+            Config config, StorageCallback callback);
+
+    /**
+     * Uploads an object into a given container, see
+     * {@link StorageAPI#createObject(String, String, InputStream, long, Config)}.
+     * The data stream is closed once the operation completes.
+     */
+    public void createObjectAsync(String container, String object,
+            InputStream data, long length, Config config,
+            StorageCallback callback);
+
+    /**
+     * Deletes a given object, see
+     * {@link StorageAPI#deleteObject(String, String, Config)}.
+     */
+    public void deleteObjectAsync(String container, String object,
+            Config config, StorageCallback callback);
+
+}
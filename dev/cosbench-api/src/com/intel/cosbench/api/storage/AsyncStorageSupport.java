@@ -0,0 +1,181 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+package com.intel.cosbench.api.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intel.cosbench.log.*;
+
+/**
+ * This class runs asynchronous storage operations for storage clients which
+ * only offer blocking I/O.
+ * <p>
+ * Operations are run on one driver-wide pool of daemon threads, and report to
+ * their callback from there. A blocking client needs one thread per operation
+ * in flight, so callers {@link #reserve(int)} as many threads as they keep
+ * operations in flight (workers times depth) and the pool is sized to cover
+ * them; an operation is only timed once it runs, see
+ * {@link StorageCallback#started()}. "cosbench.storage.threads" caps the pool,
+ * operations beyond the cap wait in a queue. Idle threads exit after a minute.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class AsyncStorageSupport {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final String THREADS_KEY = "cosbench.storage.threads";
+
+    private static final Logger LOGGER = LogFactory.getSystemLogger();
+
+    private static final int MAX_THREADS = getMaxThreads();
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static int reserved = 0; /* threads reserved by callers */
+    private static boolean capped = false; /* whether warned about the cap */
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable task) {
+                        Thread thread = new Thread(task, "storage-io-"
+                                + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static int getMaxThreads() {
+        int threads = Integer.MAX_VALUE;
+        String config = System.getProperty(THREADS_KEY);
+        if (config != null && config.length() > 0)
+            try {
+                threads = Math.max(Integer.parseInt(config.trim()), 1);
+            } catch (NumberFormatException e) {
+            }
+        return threads;
+    }
+
+    /**
+     * Reserves threads for the given number of operations in flight, the
+     * pool grows to cover all reservations up to its cap.
+     */
+    public static synchronized void reserve(int threads) {
+        reserved += threads;
+        if (reserved > MAX_THREADS && !capped) {
+            capped = true;
+            LOGGER.warn("{} operations in flight exceed {}={}, the others"
+                    + " will wait for a thread", new Object[] { reserved,
+                    THREADS_KEY, MAX_THREADS });
+        }
+        resize();
+    }
+
+    public static synchronized void release(int threads) {
+        reserved -= threads;
+        if (reserved <= MAX_THREADS)
+            capped = false;
+        resize();
+    }
+
+    private static void resize() {
+        int size = Math.max(1, Math.min(reserved, MAX_THREADS));
+        if (size > EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setMaximumPoolSize(size);
+            EXECUTOR.setCorePoolSize(size);
+        } else {
+            EXECUTOR.setCorePoolSize(size);
+            EXECUTOR.setMaximumPoolSize(size);
+        }
+    }
+
+    /* scratch buffers for draining downloads, one per I/O thread */
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    /**
+     * A blocking storage operation.
+     */
+    public interface Task {
+
+        /**
+         * @return the number of content bytes transferred.
+         */
+        public long call() throws Exception;
+
+    }
+
+    /**
+     * Runs the given operation in the background and reports its outcome to
+     * the given callback.
+     */
+    public static void submit(final Task task, final StorageCallback callback) {
+        try {
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long bytes;
+                    callback.started(); // not waiting for a thread any more
+                    try {
+                        bytes = task.call();
+                    } catch (Exception e) {
+                        callback.failed(e);
+                        return;
+                    }
+                    callback.completed(bytes);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            callback.failed(new StorageException(ree));
+        }
+    }
+
+    /**
+     * Reads the whole stream and closes it, the content itself is discarded.
+     * 
+     * @return the number of bytes read.
+     */
+    public static long drain(InputStream in) throws IOException {
+        byte[] buffer = BUFFERS.get();
+        long count = 0;
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                count += n;
+        } finally {
+            in.close();
+        }
+        return count;
+    }
+
+}
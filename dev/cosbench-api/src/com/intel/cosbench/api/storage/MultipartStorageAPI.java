@@ -0,0 +1,80 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.api.storage;
+
+import java.io.InputStream;
+import java.util.List;
+
+import com.intel.cosbench.config.Config;
+
+/**
+ * An optional extension to {@link StorageAPI} for storage which can upload one
+ * object in several parts, such as S3 multipart uploads or Swift large
+ * objects.
+ * <p>
+ * An upload is started once, then its parts are uploaded, possibly from
+ * several threads at the same time if the storage is also asynchronous (see
+ * {@link AsyncStorageAPI#isAsyncSupported()}), and finally it is completed
+ * with the handles returned for all parts, in part order.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public interface MultipartStorageAPI extends StorageAPI {
+
+    /**
+     * Tells whether objects can be uploaded in parts with the current
+     * settings.
+     */
+    public boolean isMultipartSupported();
+
+    /**
+     * Starts a multipart upload of an object.
+     * 
+     * @return the id of the upload
+     */
+    public String initMultipartUpload(String container, String object,
+            Config config);
+
+    /**
+     * Uploads one part of an object.
+     * 
+     * @param partNumber
+     *            - the number of the part, starting from 1.
+     * @return the handle of the part, such as its ETag, to complete the upload
+     */
+    public String uploadPart(String container, String object, String uploadId,
+            int partNumber, InputStream data, long length, Config config);
+
+    /**
+     * Completes a multipart upload, after which the object is visible.
+     * 
+     * @param parts
+     *            - the handles of all parts, in part order.
+     */
+    public void completeMultipartUpload(String container, String object,
+            String uploadId, List<String> parts, Config config);
+
+    /**
+     * Aborts a multipart upload and discards the parts uploaded so far.
+     */
+    public void abortMultipartUpload(String container, String object,
+            String uploadId, Config config);
+
+}
@@ -30,11 +30,17 @@ import com.intel.cosbench.log.Logger;
 /**
  * This class encapsulates one none storage system which is used if no any other
  * storage system is assigned.
+ * <p>
+ * It also provides asynchronous operations on top of the blocking ones, which
+ * are run by {@link AsyncStorageSupport}; subclasses whose clients are
+ * thread-safe enable them by overriding {@link #isAsyncSupported()}. Ranged
+ * downloads fall back to whole ones, and multipart uploads are only logged
+ * unless a subclass supports them.
  * 
  * @author ywang19, qzheng7
  * 
  */
-public class NoneStorage implements StorageAPI {
+public class NoneStorage implements AsyncStorageAPI, MultipartStorageAPI {
 
     public static final String API_TYPE = "none";
 
@@ -93,6 +99,13 @@ public class NoneStorage implements StorageAPI {
         return new ByteArrayInputStream(new byte[] {});
     }
     
+    @Override
+    public InputStream getObjectRange(String container, String object,
+            long offset, long length, Config config) {
+        return new RangeInputStream(getObject(container, object, config),
+                offset, length);
+    }
+
     @Override
     public InputStream getList(String container, String object, Config config) {
     	if (logging)
@@ -132,6 +145,90 @@ public class NoneStorage implements StorageAPI {
             logger.info("performing DELETE at /{}/{}", container, object);
     }
 
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public void getObjectAsync(final String container, final String object,
+            final Config config, StorageCallback callback) {
+        AsyncStorageSupport.submit(new AsyncStorageSupport.Task() {
+            @Override
+            public long call() throws Exception {
+                return AsyncStorageSupport.drain(getObject(container, object,
+                        config));
+            }
+        }, callback);
+    }
+
+    @Override
+    public void createObjectAsync(final String container, final String object,
+            final InputStream data, final long length, final Config config,
+            StorageCallback callback) {
+        AsyncStorageSupport.submit(new AsyncStorageSupport.Task() {
+            @Override
+            public long call() throws Exception {
+                try {
+                    createObject(container, object, data, length, config);
+                } finally {
+                    data.close();
+                }
+                return length;
+            }
+        }, callback);
+    }
+
+    @Override
+    public void deleteObjectAsync(final String container, final String object,
+            final Config config, StorageCallback callback) {
+        AsyncStorageSupport.submit(new AsyncStorageSupport.Task() {
+            @Override
+            public long call() throws Exception {
+                deleteObject(container, object, config);
+                return 0L;
+            }
+        }, callback);
+    }
+
+    @Override
+    public boolean isMultipartSupported() {
+        return false;
+    }
+
+    @Override
+    public String initMultipartUpload(String container, String object,
+            Config config) {
+        if (logging)
+            logger.info("performing POST at /{}/{}?uploads", container, object);
+        return "none";
+    }
+
+    @Override
+    public String uploadPart(String container, String object, String uploadId,
+            int partNumber, InputStream data, long length, Config config) {
+        if (logging)
+            logger.info("performing PUT at /{}/{}?partNumber=" + partNumber,
+                    container, object);
+        return String.valueOf(partNumber);
+    }
+
+    @Override
+    public void completeMultipartUpload(String container, String object,
+            String uploadId, List<String> parts, Config config) {
+        if (logging)
+            logger.info("performing POST at /{}/{}?uploadId=" + uploadId,
+                    container, object);
+    }
+
+    @Override
+    public void abortMultipartUpload(String container, String object,
+            String uploadId, Config config) {
+        if (logging)
+            logger.info("performing DELETE at /{}/{}?uploadId=" + uploadId,
+                    container, object);
+    }
+
     protected void createMetadata(String container, String object,
             Map<String, String> map, Config config) {
         if (logging)
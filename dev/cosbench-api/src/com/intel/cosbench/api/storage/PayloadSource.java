@@ -0,0 +1,45 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.api.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An object content which can write itself straight into an output stream,
+ * instead of being read through an intermediate buffer.
+ * <p>
+ * Input streams handed to {@link StorageAPI#createObject} may implement this
+ * interface; storage clients which support it write the remaining content with
+ * {@link #writeTo(OutputStream)} and otherwise read the stream as usual.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public interface PayloadSource {
+
+    /**
+     * Writes all remaining content to the given stream.
+     * 
+     * @param out
+     *            - the stream to write to, normally the request body.
+     * @return the number of bytes written.
+     */
+    public long writeTo(OutputStream out) throws IOException;
+
+}
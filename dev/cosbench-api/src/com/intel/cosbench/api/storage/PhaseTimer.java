@@ -0,0 +1,105 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.api.storage;
+
+/**
+ * This class collects how long the phases of the storage requests made by the
+ * current thread take: setting up connections, TLS handshakes, waiting for the
+ * first byte of responses, and transferring content.
+ * <p>
+ * Storage clients which can tell the phases apart, such as the ones built on
+ * the shared HTTP client utility, add to the timer of the calling thread. The
+ * worker clears it before each operation and attaches it to the sample of the
+ * operation, so operations completed on other threads carry no phases.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class PhaseTimer {
+
+    private static final ThreadLocal<PhaseTimer> TIMERS = new ThreadLocal<PhaseTimer>() {
+        @Override
+        protected PhaseTimer initialValue() {
+            return new PhaseTimer();
+        }
+    };
+
+    private boolean timed; /* any phase recorded since cleared */
+    private long connect; /* all in nanoseconds */
+    private long handshake;
+    private long firstByte;
+    private long transfer;
+
+    private PhaseTimer() {
+        /* empty */
+    }
+
+    /**
+     * @return the timer of the current thread.
+     */
+    public static PhaseTimer get() {
+        return TIMERS.get();
+    }
+
+    public void clear() {
+        timed = false;
+        connect = handshake = firstByte = transfer = 0L;
+    }
+
+    public boolean isTimed() {
+        return timed;
+    }
+
+    public long getConnect() {
+        return connect;
+    }
+
+    public void addConnect(long nanos) {
+        connect += nanos;
+        timed = true;
+    }
+
+    public long getHandshake() {
+        return handshake;
+    }
+
+    public void addHandshake(long nanos) {
+        handshake += nanos;
+        timed = true;
+    }
+
+    public long getFirstByte() {
+        return firstByte;
+    }
+
+    public void addFirstByte(long nanos) {
+        firstByte += nanos;
+        timed = true;
+    }
+
+    public long getTransfer() {
+        return transfer;
+    }
+
+    public void addTransfer(long nanos) {
+        transfer += nanos;
+        timed = true;
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.api.storage;
+
+import java.io.*;
+
+/**
+ * This class cuts a byte range out of a whole object, it is used by storage
+ * which cannot download a range directly.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class RangeInputStream extends FilterInputStream {
+
+    private long skip; /* bytes still to skip before the range */
+    private long remaining; /* bytes left in the range */
+
+    RangeInputStream(InputStream in, long offset, long length) {
+        super(in);
+        this.skip = offset;
+        this.remaining = length;
+    }
+
+    private boolean seek() throws IOException {
+        while (skip > 0) {
+            long n = in.skip(skip);
+            if (n <= 0) {
+                if (in.read() < 0)
+                    return false; // object shorter than offset
+                n = 1;
+            }
+            skip -= n;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0 || !seek())
+            return -1;
+        int b = in.read();
+        if (b >= 0)
+            remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0 || !seek())
+            return -1;
+        int n = in.read(b, off, (int) Math.min(len, remaining));
+        if (n > 0)
+            remaining -= n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (remaining <= 0 || !seek())
+            return 0L;
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (skip > 0)
+            return 0;
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+}
@@ -89,6 +89,25 @@ public interface StorageAPI {
      */
     public InputStream getObject(String container, String object, Config config);
 
+    /**
+     * Downloads a byte range of an object, storage which cannot download a
+     * range directly falls back to downloading the whole object and skipping
+     * the bytes out of range.
+     * 
+     * @param container
+     *            - the name of a container.
+     * @param object
+     *            - the name of an object to be downloaded.
+     * @param offset
+     *            - the offset of the first byte to download.
+     * @param length
+     *            - the number of bytes to download.
+     * @param config
+     *            - the configuration used for this operation.
+     */
+    public InputStream getObjectRange(String container, String object,
+            long offset, long length, Config config);
+
     /**
      * Gets a list of containers/objects
      * 
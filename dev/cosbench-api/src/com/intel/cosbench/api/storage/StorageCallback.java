@@ -0,0 +1,66 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+package com.intel.cosbench.api.storage;
+
+/**
+ * Receives the outcome of an asynchronous storage operation issued through
+ * {@link AsyncStorageAPI}.
+ * <p>
+ * {@link #started()} is called once when the operation is actually sent,
+ * unless it fails before, then exactly one of {@link #completed(long)} and
+ * {@link #failed(Exception)} is called, normally from a thread other than the
+ * one which issued it. In between, {@link #paused(Runnable)} may be called any
+ * number of times.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public interface StorageCallback {
+
+    /**
+     * Called when the operation is actually sent to the storage, time spent
+     * waiting before that, e.g. for an I/O thread, is not part of it.
+     */
+    public void started();
+
+    /**
+     * Called when the operation needs the given step, e.g. generating its next
+     * chunk of content, to run on the thread which issued it before it can go
+     * on, so no such work is done on a thread of the storage client.
+     * 
+     * @param resume
+     *            - the step to run, once.
+     */
+    public void paused(Runnable resume);
+
+    /**
+     * Called when the operation has completed successfully.
+     * 
+     * @param bytes
+     *            - the number of content bytes transferred.
+     */
+    public void completed(long bytes);
+
+    /**
+     * Called when the operation has failed.
+     * 
+     * @param e
+     *            - the exception as the blocking call would have thrown it.
+     */
+    public void failed(Exception e);
+
+}
@@ -26,6 +26,7 @@ public class CDMIStorage extends NoneStorage {
     private String type; 
     private String headers;
     private boolean flag;
+    private Config config;
     
     // local variables
     private BaseCdmiClient client;
@@ -35,6 +36,7 @@ public class CDMIStorage extends NoneStorage {
     public void init(Config config, Logger logger) {
         super.init(config, logger);
         initParms(config);
+        this.config = config;
 
         client = CdmiClientFactory.getClient(type);
     }
@@ -59,7 +61,7 @@ public class CDMIStorage extends NoneStorage {
         try {
         	httpClient = (HttpClient) info.get(AUTH_CLIENT_KEY);
         	if(httpClient == null) // client is set
-        		httpClient = HttpClientUtil.createHttpClient(timeout);
+        		httpClient = HttpClientUtil.createHttpClient(timeout, config);
             url = info.getStr(STORAGE_URL_KEY) + rootPath;            
             
             // subtitute headers
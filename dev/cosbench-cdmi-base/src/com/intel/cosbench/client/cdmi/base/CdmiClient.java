@@ -12,6 +12,7 @@ import org.apache.http.entity.StringEntity;
 import org.apache.http.util.*;
 
 import com.intel.cosbench.client.cdmi.util.CdmiJsonInputStreamEntity;
+import com.intel.cosbench.client.http.HttpClientUtil;
 
 /**
  * This class encapsulates operations to access cdmi compatible server with cdmi content type.
@@ -45,7 +46,7 @@ public class CdmiClient extends BaseCdmiClient {
 //    }
 
     public void dispose() {
-        client.getConnectionManager().shutdown();
+        HttpClientUtil.disposeHttpClient(client);
     }
     
     private void setCustomHeaders(HttpRequest method) {
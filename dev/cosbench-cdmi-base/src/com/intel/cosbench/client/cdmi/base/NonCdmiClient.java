@@ -11,6 +11,9 @@ import org.apache.http.client.methods.*;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.util.*;
 
+import com.intel.cosbench.client.http.HttpClientUtil;
+import com.intel.cosbench.client.http.PayloadEntity;
+
 
 /**
  * This class encapsulates operations to access cdmi compatible server with non-cdmi content type.
@@ -36,7 +39,7 @@ public class NonCdmiClient extends BaseCdmiClient{
 //    }
 
     public void dispose() {
-        client.getConnectionManager().shutdown();
+        HttpClientUtil.disposeHttpClient(client);
     }
     
     private void setCustomHeaders(HttpRequest method) {
@@ -161,7 +164,7 @@ public class NonCdmiClient extends BaseCdmiClient{
             
             method.setHeader("Content-Type", "application/octet-stream");
             setCustomHeaders(method);
-            InputStreamEntity entity = new InputStreamEntity(data, length);
+            InputStreamEntity entity = new PayloadEntity(data, length);
             if (length < 0)
                 entity.setChunked(true);
             else {
@@ -13,6 +13,7 @@ import org.apache.http.client.methods.*;
 import org.apache.http.util.*;
 
 import com.intel.cosbench.client.cdmi.util.CdmiJsonInputStreamEntity;
+import com.intel.cosbench.client.http.HttpClientUtil;
 
 /**
  * This class encapsulates operations to access swift through cdmi middleware (https://github.com/osaddon/cdmi).
@@ -39,7 +40,7 @@ public class CdmiSwiftClient {
     }
 
     public void dispose() {
-        client.getConnectionManager().shutdown();
+        HttpClientUtil.disposeHttpClient(client);
     }
 
     public void createContainer(String container) throws IOException,
@@ -40,6 +40,11 @@ public class Mission implements Iterable<Operation> {
     private int offset = 0;
     private int interval = 5;
     private String division = "none";
+    private String executor = "platform"; /* "platform" or "virtual" threads */
+    private int depth = 1; /* operations in flight per worker */
+    private String rate; /* target arrival rate, e.g. "5000/s", none for closed loop */
+    private String arrival = "uniform"; /* "uniform" or "poisson" arrivals */
+    private String cap; /* throughput cap, e.g. "5000/s", none for no cap */
     private int runtime = 0;
     private int rampup = 0;
     private int rampdown = 0;
@@ -109,6 +114,58 @@ public class Mission implements Iterable<Operation> {
         this.division = division;
     }
 
+    public String getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(String executor) {
+        if (!StringUtils.equals(executor, "platform")
+                && !StringUtils.equals(executor, "virtual"))
+            throw new ConfigException("illegal executor: " + executor);
+        this.executor = executor;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        if (depth <= 0)
+            throw new ConfigException("illegal depth: " + depth);
+        this.depth = depth;
+    }
+
+    public String getRate() {
+        return rate;
+    }
+
+    public void setRate(String rate) {
+        if (rate != null)
+            ConfigUtils.parseRate(rate); // validate only
+        this.rate = rate;
+    }
+
+    public String getArrival() {
+        return arrival;
+    }
+
+    public void setArrival(String arrival) {
+        if (!StringUtils.equals(arrival, "uniform")
+                && !StringUtils.equals(arrival, "poisson"))
+            throw new ConfigException("illegal arrival: " + arrival);
+        this.arrival = arrival;
+    }
+
+    public String getCap() {
+        return cap;
+    }
+
+    public void setCap(String cap) {
+        if (cap != null)
+            ConfigUtils.parseRate(cap); // validate only
+        this.cap = cap;
+    }
+
     public int getRuntime() {
         return runtime;
     }
@@ -35,6 +35,7 @@ import com.intel.cosbench.log.Logger;
 public class Stage implements Iterable<Work> {
 
     private String name;
+    private String type = "normal"; /* "normal" or "search" */
     private int closuredelay;
     private String trigger=null;
     private String config = "";
@@ -42,6 +43,13 @@ public class Stage implements Iterable<Work> {
     private Storage storage;
     private List<Work> works;
 
+    /* saturation search, for "search" stages only */
+    private String stepby = "rate"; /* "rate" or "workers" */
+    private int from;
+    private int to;
+    private int step;
+    private int p99; /* latency threshold in milliseconds, 0 for none */
+
     public Stage() {
         /* empty */
     }
@@ -62,6 +70,89 @@ public class Stage implements Iterable<Work> {
         this.name = name;
     }
     
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		if (!StringUtils.equals(type, "normal")
+				&& !StringUtils.equals(type, "search"))
+			throw new ConfigException("illegal stage type: " + type);
+		this.type = type;
+	}
+
+	public boolean isSearch() {
+		return type.equals("search");
+	}
+
+	public String getStepby() {
+		return stepby;
+	}
+
+	public void setStepby(String stepby) {
+		if (!StringUtils.equals(stepby, "rate")
+				&& !StringUtils.equals(stepby, "workers"))
+			throw new ConfigException("illegal stepby: " + stepby);
+		this.stepby = stepby;
+	}
+
+	public int getFrom() {
+		return from;
+	}
+
+	public void setFrom(int from) {
+		if (from < 0)
+			throw new ConfigException("illegal from: " + from);
+		this.from = from;
+	}
+
+	public int getTo() {
+		return to;
+	}
+
+	public void setTo(int to) {
+		if (to < 0)
+			throw new ConfigException("illegal to: " + to);
+		this.to = to;
+	}
+
+	public int getStep() {
+		return step;
+	}
+
+	public void setStep(int step) {
+		if (step < 0)
+			throw new ConfigException("illegal step: " + step);
+		this.step = step;
+	}
+
+	public int getP99() {
+		return p99;
+	}
+
+	public void setP99(int p99) {
+		if (p99 < 0)
+			throw new ConfigException("illegal p99: " + p99);
+		this.p99 = p99;
+	}
+
+	/**
+	 * Creates the stage running one step of a search stage, in which every
+	 * work runs at the given rate or with the given number of workers.
+	 */
+	public Stage newStep(int value) {
+		Stage stage = new Stage(name + "-" + value);
+		stage.closuredelay = closuredelay;
+		stage.trigger = trigger;
+		stage.config = config;
+		stage.auth = auth;
+		stage.storage = storage;
+		stage.works = new ArrayList<Work>(); // configs already inherited
+		for (Work work : works)
+			stage.works.add(work.newStep(stepby, value));
+		return stage;
+	}
+
 	public int getClosuredelay() {
 		return closuredelay;
 	}
@@ -175,6 +266,17 @@ public class Stage implements Iterable<Work> {
                 work.setStorage(storage);
         for (Work work : works)
             work.validate();
+        if (isSearch())
+            validateSearch();
+    }
+
+    private void validateSearch() {
+        if (from <= 0 || step <= 0 || to < from)
+            throw new ConfigException(
+                    "search stage must step from a positive value up to a greater one");
+        for (Work work : works)
+            if (!work.getType().equals("normal"))
+                throw new ConfigException("search stage can only hold normal works");
     }
 
 }
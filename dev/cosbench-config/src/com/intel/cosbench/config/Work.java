@@ -31,13 +31,18 @@ import com.intel.cosbench.config.common.ConfigUtils;
  * @author ywang19, qzheng7
  *
  */
-public class Work implements Iterable<Operation> {
+public class Work implements Iterable<Operation>, Cloneable {
 
     private String name;
     private String type = "normal";
     private int workers;
     private int interval = 5;
     private String division = "none";
+    private String executor = "platform"; /* "platform" or "virtual" threads */
+    private int depth = 1; /* operations in flight per worker */
+    private String rate; /* target arrival rate, e.g. "5000/s", none for closed loop */
+    private String arrival = "uniform"; /* "uniform" or "poisson" arrivals */
+    private String cap; /* throughput cap, e.g. "5000/s", none for no cap */
     private int runtime = 0;
     private int rampup = 0;
     private int rampdown = 0;
@@ -116,6 +121,58 @@ public class Work implements Iterable<Operation> {
         this.division = division;
     }
 
+    public String getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(String executor) {
+        if (!StringUtils.equals(executor, "platform")
+                && !StringUtils.equals(executor, "virtual"))
+            throw new ConfigException("illegal executor: " + executor);
+        this.executor = executor;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        if (depth <= 0)
+            throw new ConfigException("illegal depth: " + depth);
+        this.depth = depth;
+    }
+
+    public String getRate() {
+        return rate;
+    }
+
+    public void setRate(String rate) {
+        if (rate != null)
+            ConfigUtils.parseRate(rate); // validate only
+        this.rate = rate;
+    }
+
+    public String getArrival() {
+        return arrival;
+    }
+
+    public void setArrival(String arrival) {
+        if (!StringUtils.equals(arrival, "uniform")
+                && !StringUtils.equals(arrival, "poisson"))
+            throw new ConfigException("illegal arrival: " + arrival);
+        this.arrival = arrival;
+    }
+
+    public String getCap() {
+        return cap;
+    }
+
+    public void setCap(String cap) {
+        if (cap != null)
+            ConfigUtils.parseRate(cap); // validate only
+        this.cap = cap;
+    }
+
     public int getRuntime() {
         return runtime;
     }
@@ -227,6 +284,26 @@ public class Work implements Iterable<Operation> {
 		return opIds;
 	}
 
+    /**
+     * Creates a copy of this work for one step of a search stage, which runs
+     * with the given number of workers, or at the given rate: the arrival rate
+     * of an open-loop work, or the throughput cap of any other.
+     */
+    public Work newStep(String stepby, int value) {
+        Work step;
+        try {
+            step = (Work) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new ConfigException("cannot copy work " + name, e);
+        }
+        if (StringUtils.equals(stepby, "workers"))
+            step.setWorkers(value);
+        else if (rate != null)
+            step.setRate(value + "/s");
+        else
+            step.setCap(value + "/s");
+        return step;
+    }
 
     public List<Operation> getOperations() {
         return operations;
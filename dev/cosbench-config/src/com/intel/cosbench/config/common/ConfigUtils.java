@@ -1,6 +1,7 @@
 package com.intel.cosbench.config.common;
 
 import com.intel.cosbench.config.ConfigConstants;
+import com.intel.cosbench.config.ConfigException;
 
 public class ConfigUtils {
 
@@ -14,4 +15,35 @@ public class ConfigUtils {
 		child_config = parent_config + ConfigConstants.DELIMITER + child_config;
 		return child_config;
 	}
+
+	/**
+	 * Parses an arrival rate such as "5000/s", "300/m" or "3600/h" into
+	 * operations per second; a bare number is taken as per second.
+	 */
+	public static double parseRate(String rate) {
+		String value = rate.trim();
+		double unit = 1D;
+		int idx = value.indexOf('/');
+		if (idx >= 0) {
+			String suffix = value.substring(idx + 1).trim();
+			if (suffix.equals("s"))
+				unit = 1D;
+			else if (suffix.equals("m"))
+				unit = 60D;
+			else if (suffix.equals("h"))
+				unit = 3600D;
+			else
+				throw new ConfigException("illegal rate unit: " + rate);
+			value = value.substring(0, idx).trim();
+		}
+		double ops;
+		try {
+			ops = Double.parseDouble(value);
+		} catch (NumberFormatException nfe) {
+			throw new ConfigException("illegal rate: " + rate);
+		}
+		if (!(ops > 0) || Double.isInfinite(ops))
+			throw new ConfigException("illegal rate: " + rate);
+		return ops / unit;
+	}
 }
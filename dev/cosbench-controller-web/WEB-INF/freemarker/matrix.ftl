@@ -177,7 +177,7 @@
               <#if !mInfo.latency._60?? >
                 N/A
               <#else>
-                &lt; ${mInfo.latency._60[1]} ms
+                &lt; ${(mInfo.latency._60[1] / 1000)?string("0.###")} ms
               </#if>
             </td>
             </#if>
@@ -186,7 +186,7 @@
               <#if !mInfo.latency._80?? >
                 N/A
               <#else>
-                &lt; ${mInfo.latency._80[1]} ms
+                &lt; ${(mInfo.latency._80[1] / 1000)?string("0.###")} ms
               </#if>
             </td>
             </#if>
@@ -195,7 +195,7 @@
               <#if !mInfo.latency._90?? >
                 N/A
               <#else>
-                &lt; ${mInfo.latency._90[1]} ms
+                &lt; ${(mInfo.latency._90[1] / 1000)?string("0.###")} ms
               </#if>
             </td>
             </#if>
@@ -204,7 +204,7 @@
               <#if !mInfo.latency._95?? >
                 N/A
               <#else>
-                &lt; ${mInfo.latency._95[1]} ms
+                &lt; ${(mInfo.latency._95[1] / 1000)?string("0.###")} ms
               </#if>
             </td>
             </#if>
@@ -213,7 +213,7 @@
               <#if !mInfo.latency._99?? >
                 N/A
               <#else>
-                &lt; ${mInfo.latency._99[1]} ms
+                &lt; ${(mInfo.latency._99[1] / 1000)?string("0.###")} ms
               </#if>
             </td>
             </#if>
@@ -222,7 +222,7 @@
               <#if !mInfo.latency._100?? >
                 N/A
               <#else>
-                &lt; ${mInfo.latency._100[1]} ms
+                &lt; ${(mInfo.latency._100[1] / 1000)?string("0.###")} ms
               </#if>
             </td>
             </#if>
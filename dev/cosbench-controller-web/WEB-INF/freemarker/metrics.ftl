@@ -126,42 +126,42 @@
         <#if !mInfo.latency._60?? >
           N/A
         <#else>
-          &lt; ${mInfo.latency._60[1]} ms
+          &lt; ${(mInfo.latency._60[1] / 1000)?string("0.###")} ms
         </#if>
       </td>
       <td>
         <#if !mInfo.latency._80?? >
           N/A
         <#else>
-          &lt; ${mInfo.latency._80[1]} ms
+          &lt; ${(mInfo.latency._80[1] / 1000)?string("0.###")} ms
         </#if>
       </td>
       <td>
         <#if !mInfo.latency._90?? >
           N/A
         <#else>
-          &lt; ${mInfo.latency._90[1]} ms
+          &lt; ${(mInfo.latency._90[1] / 1000)?string("0.###")} ms
         </#if>
       </td>
       <td>
         <#if !mInfo.latency._95?? >
           N/A
         <#else>
-          &lt; ${mInfo.latency._95[1]} ms
+          &lt; ${(mInfo.latency._95[1] / 1000)?string("0.###")} ms
         </#if>
       </td>
       <td>
         <#if !mInfo.latency._99?? >
           N/A
         <#else>
-          &lt; ${mInfo.latency._99[1]} ms
+          &lt; ${(mInfo.latency._99[1] / 1000)?string("0.###")} ms
         </#if>
       </td>
       <td>
         <#if !mInfo.latency._100?? >
           N/A
         <#else>
-          &lt; ${mInfo.latency._100[1]} ms
+          &lt; ${(mInfo.latency._100[1] / 1000)?string("0.###")} ms
         </#if>
       </td>
     </tr>
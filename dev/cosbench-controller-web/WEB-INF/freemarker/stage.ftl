@@ -43,6 +43,12 @@
       <span class="label"><strong>Current State</strong>:</span>
       <span class="stage-state-${sInfo.state?lower_case} state">${sInfo.state?lower_case}</span>
     </span>
+    <#if sInfo.searchResult?? >
+      <span class="grid">
+        <span class="label"><strong>Search Result</strong>:</span>
+        ${sInfo.searchResult}
+      </span>
+    </#if>
   </p>
   <#if showDetails >
     <h4>State History:</h4>
@@ -83,6 +89,49 @@
     <#assign snapshot = sInfo.snapshot >
     <#assign allMetrics = snapshot.report.allMetrics >
     <#include "metrics.ftl">
+    <h4>Interval ResTime (RT) Details</h4>
+    <table class="info-table">
+      <tr>
+        <th class="id" style="width:13%;">Op-Type</th>
+        <th>50%-RT</th>
+        <th>90%-RT</th>
+        <th>99%-RT</th>
+        <th>99.9%-RT</th>
+      </tr>
+      <#list allMetrics as mInfo>
+        <tr>
+          <td>${mInfo.opName}<#if mInfo.opName != mInfo.sampleType>-${mInfo.sampleType}</#if></td>
+          <td>
+            <#if !mInfo.latency._50?? >
+              N/A
+            <#else>
+              &lt; ${(mInfo.latency._50[1] / 1000)?string("0.###")} ms
+            </#if>
+          </td>
+          <td>
+            <#if !mInfo.latency._90?? >
+              N/A
+            <#else>
+              &lt; ${(mInfo.latency._90[1] / 1000)?string("0.###")} ms
+            </#if>
+          </td>
+          <td>
+            <#if !mInfo.latency._99?? >
+              N/A
+            <#else>
+              &lt; ${(mInfo.latency._99[1] / 1000)?string("0.###")} ms
+            </#if>
+          </td>
+          <td>
+            <#if !mInfo.latency._999?? >
+              N/A
+            <#else>
+              &lt; ${(mInfo.latency._999[1] / 1000)?string("0.###")} ms
+            </#if>
+          </td>
+        </tr>
+      </#list>
+    </table>
     <p class="warn">The snapshot was taken at ${snapshot.timestamp?time} with version ${snapshot.version}.</p>
   </#if>
   <h3>Missions to Driver</h3>
@@ -1,5 +1,5 @@
 <table class="info-table">
-  <#list allSnapshots as ssInfo >
+  <#list allSnapshots.iterator() as ssInfo >
     <#assign size = ssInfo.report.size >
     <tr>
       <th class="id" rowspan="2">Timestamp<br /><font size="-2">(Version)</font></th>
@@ -34,7 +34,7 @@
     </tr>
     <#break>
   </#list>
-  <#list allSnapshots as ssInfo >
+  <#list allSnapshots.iterator() as ssInfo >
     <tr>
       <td>${ssInfo.timestamp?time}<br />
       	<!--
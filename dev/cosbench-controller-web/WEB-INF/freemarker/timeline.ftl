@@ -41,7 +41,7 @@
     </span>
   </p>
   <h3>Timeline Status</h3>
-  <#assign allSnapshots = sInfo.snapshots >
+  <#assign allSnapshots = sInfo.snapshotRegistry >
   <#include "timeline-metrics.ftl">
   <p><a href="timeline.csv?wid=${wInfo.id}&sid=${sInfo.id}">export CSV file</a></p>
   <p><a href="stage.html?wid=${wInfo.id}&sid=${sInfo.id}">go back to stage</a></p>
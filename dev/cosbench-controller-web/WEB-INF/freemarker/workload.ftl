@@ -198,7 +198,7 @@
             ${op}<#if op_has_next>,</#if>
           </#list>
         </td>
-        <td><span class="stage-state-${sInfo.state?lower_case} state">${sInfo.state?lower_case}</span></td>
+        <td><span class="stage-state-${sInfo.state?lower_case} state">${sInfo.state?lower_case}</span><#if sInfo.searchResult?? > (${sInfo.searchResult})</#if></td>
         <td><a href="stage.html?wid=${info.id}&sid=${sInfo.id}">view details</a></td>
       </tr>
     </#list>
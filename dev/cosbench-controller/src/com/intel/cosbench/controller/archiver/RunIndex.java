@@ -0,0 +1,194 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.controller.archiver;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+
+import com.intel.cosbench.bench.Report;
+import com.intel.cosbench.config.Workload;
+import com.intel.cosbench.controller.model.WorkloadContext;
+import com.intel.cosbench.model.*;
+
+/**
+ * This class is a binary sidecar of "run-history.csv", it holds the same run
+ * items as fixed-layout records which are read through a memory-mapped buffer
+ * without any text parsing. Opening it only indexes the records by workload
+ * id, they are decoded when asked for.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class RunIndex {
+
+    public static final String FILE_NAME = "run-history.idx";
+
+    private static final int MAGIC = 0x43425249; /* "CBRI" */
+    private static final int VERSION = 1;
+
+    private ByteBuffer buffer;
+
+    private Map<String, Integer> ids = new LinkedHashMap<String, Integer>();
+
+    private RunIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Appends one run item, writing the file header if the file is new.
+     */
+    public static void append(File file, WorkloadInfo info)
+            throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        writeRecord(new DataOutputStream(record), info);
+        boolean ready = file.exists() && file.length() > 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file, true)));
+        try {
+            if (!ready) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+            out.writeInt(record.size());
+            record.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, WorkloadInfo info)
+            throws IOException {
+        writeDate(out, info.getSubmitDate());
+        writeDate(out, info.getStartDate());
+        writeDate(out, info.getStopDate());
+        writeString(out, info.getId());
+        writeString(out, info.getWorkload().getName());
+        writeString(out, info.getState() != null ? info.getState().name()
+                : "");
+        String[] ops = info.getAllOperations();
+        out.writeShort(ops.length);
+        for (String op : ops)
+            writeString(out, op);
+        StateInfo[] states = info.getStateHistory();
+        out.writeShort(states.length);
+        for (StateInfo state : states) {
+            writeString(out, state.getName());
+            writeDate(out, state.getDate());
+        }
+        out.flush();
+    }
+
+    private static void writeDate(DataOutputStream out, Date date)
+            throws IOException {
+        out.writeLong(date != null ? date.getTime() : -1L);
+    }
+
+    private static void writeString(DataOutputStream out, String str)
+            throws IOException {
+        byte[] bytes = str.getBytes("UTF-8");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Maps the given file and indexes its records, a record cut short by an
+     * interrupted append is ignored.
+     */
+    public static RunIndex open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        ByteBuffer buffer;
+        try {
+            buffer = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close(); /* the mapping stays valid */
+        }
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION)
+            throw new IOException("unrecognized run index " + file);
+        RunIndex index = new RunIndex(buffer);
+        index.scan();
+        return index;
+    }
+
+    private void scan() {
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining())
+                break;
+            int offset = buffer.position();
+            buffer.position(offset + 24); /* skip dates */
+            String id = readString();
+            ids.remove(id); /* latest item wins, in archive order */
+            ids.put(id, offset);
+            buffer.position(offset + length);
+        }
+    }
+
+    /**
+     * Returns all run items in archive order, one per workload id.
+     */
+    public synchronized List<WorkloadInfo> getAll() {
+        List<WorkloadInfo> workloads = new ArrayList<WorkloadInfo>(ids.size());
+        for (int offset : ids.values())
+            workloads.add(readRecord(offset));
+        return workloads;
+    }
+
+    private WorkloadInfo readRecord(int offset) {
+        buffer.position(offset);
+        WorkloadContext context = new WorkloadContext();
+        context.setArchived(true);
+        context.setReport(new Report());
+        context.setSubmitDate(readDate());
+        context.setStartDate(readDate());
+        context.setStopDate(readDate());
+        context.setId(readString());
+        Workload workload = new Workload();
+        workload.setName(readString());
+        context.setWorkload(workload);
+        String state = readString();
+        if (state.length() > 0)
+            context.setState(WorkloadState.valueOf(state));
+        String[] ops = new String[buffer.getShort()];
+        for (int i = 0; i < ops.length; i++)
+            ops[i] = readString();
+        context.setOpInfo(ops);
+        for (int i = buffer.getShort(); i > 0; i--)
+            context.setState(readString(), readDate());
+        return context;
+    }
+
+    private Date readDate() {
+        long time = buffer.getLong();
+        return time >= 0 ? new Date(time) : null;
+    }
+
+    private String readString() {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // should not happen
+        }
+    }
+
+}
@@ -64,12 +64,19 @@ public class SimpleWorkloadArchiver implements WorkloadArchiver {
 	@Override
     public synchronized void archive(WorkloadInfo info) {
         File runDir = new File(ARCHIVE_DIR, getRunDirName(info));
+        boolean indexed = isIndexCurrent(); /* before the CSV is appended */
         try {
             doArchive(info, runDir);
         } catch (Exception e) {
             LOGGER.error("fail to archive workload", e);
             return;
         }
+        try {
+            doIndex(info, runDir, indexed);
+        } catch (Exception e) {
+            LOGGER.error("fail to index workload, the index will be rebuilt", e);
+            new File(ARCHIVE_DIR, RunIndex.FILE_NAME).delete();
+        }
         try {
 			updateCount(info);
 		} catch (Exception e) {
@@ -92,6 +99,37 @@ public class SimpleWorkloadArchiver implements WorkloadArchiver {
         exportPerformanceMatrix(info);
     }
 
+    /*
+     * The run index may only be appended while it holds every run item of
+     * "run-history.csv", e.g. not when archives come from an older version.
+     */
+    private boolean isIndexCurrent() {
+        File csv = new File(ARCHIVE_DIR, "run-history.csv");
+        File index = new File(ARCHIVE_DIR, RunIndex.FILE_NAME);
+        if (!csv.exists() || csv.length() == 0)
+            return !index.exists() || index.delete();
+        return index.exists() && index.lastModified() >= csv.lastModified();
+    }
+
+    /*
+     * Binary sidecars of the CSV files, which the loader maps instead of
+     * parsing the CSV files; the CSV files remain the reference. A run index
+     * that is not current is dropped, for the loader to rebuild it.
+     */
+    private void doIndex(WorkloadInfo info, File runDir, boolean indexed)
+            throws IOException {
+        File index = new File(ARCHIVE_DIR, RunIndex.FILE_NAME);
+        if (indexed)
+            RunIndex.append(index, info);
+        else
+            index.delete();
+        for (StageInfo sInfo : info.getStageInfos())
+            StageTimeline.write(new File(runDir, getStageFileName(sInfo)
+                    + StageTimeline.FILE_EXTENSION), sInfo);
+        String id = info.getId();
+        LOGGER.debug("run item and timelines of workload {} have been indexed", id);
+    }
+
     private static String getRunDirName(WorkloadInfo info) {
         String name = info.getId();
         name += '-' + info.getWorkload().getName();
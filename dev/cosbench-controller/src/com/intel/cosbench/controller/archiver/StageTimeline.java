@@ -0,0 +1,330 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.controller.archiver;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+
+import com.intel.cosbench.bench.*;
+import com.intel.cosbench.model.StageInfo;
+
+/**
+ * This class is a binary sidecar of a stage CSV, it stores the timeline of a
+ * stage column by column, one 8-byte cell per snapshot, so that it can be
+ * written and read back through a memory-mapped buffer without any text
+ * formatting or parsing.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class StageTimeline {
+
+    public static final String FILE_EXTENSION = ".timeline";
+
+    private static final int MAGIC = 0x4342544C; /* "CBTL" */
+    private static final int VERSION = 1;
+
+    /* columns of each snapshot */
+    private static final int TIMESTAMP = 0;
+    private static final int MIN_VERSION = 1;
+    private static final int CUR_VERSION = 2;
+    private static final int MAX_VERSION = 3;
+    private static final int SNAPSHOT_COLUMNS = 4;
+
+    /* columns of each metrics, longs first and then doubles */
+    private static final int SAMPLE_COUNT = 0;
+    private static final int TOTAL_SAMPLE_COUNT = 1;
+    private static final int BYTE_COUNT = 2;
+    private static final int WORKER_COUNT = 3;
+    private static final int PHASE_COUNT = 4;
+    private static final int AVG_RES_TIME = 5;
+    private static final int AVG_XFER_TIME = 6;
+    private static final int AVG_SERVICE_TIME = 7;
+    private static final int AVG_CONNECT_TIME = 8;
+    private static final int AVG_HANDSHAKE_TIME = 9;
+    private static final int AVG_FIRST_BYTE_TIME = 10;
+    private static final int AVG_TRANSFER_TIME = 11;
+    private static final int THROUGHPUT = 12;
+    private static final int BANDWIDTH = 13;
+    private static final int RATIO = 14;
+    private static final int PERCENTILES = 15; /* low and high of each */
+    private static final int METRICS_COLUMNS = PERCENTILES + 16;
+
+    private StageTimeline() {
+        /* no instance */
+    }
+
+    /**
+     * Writes the timeline of a completed stage, it is read once through the
+     * snapshot cursor.
+     */
+    public static void write(File file, StageInfo stage) throws IOException {
+        Iterator<Snapshot> cursor = stage.getSnapshotRegistry().iterator();
+        int rows = stage.getSnapshotRegistry().getSize();
+        Metrics[] heads = rows > 0 ? cursor.next().getReport()
+                .getAllMetrics() : new Metrics[0];
+        byte[] header = writeHeader(rows, heads);
+        long size = header.length + (long) rows * 8
+                * (SNAPSHOT_COLUMNS + heads.length * METRICS_COLUMNS);
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("timeline too large to map: " + size);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            ByteBuffer buffer = raf.getChannel().map(MapMode.READ_WRITE, 0,
+                    size);
+            buffer.put(header);
+            LongBuffer cells = buffer.slice().asLongBuffer();
+            cursor = stage.getSnapshotRegistry().iterator();
+            for (int row = 0; row < rows && cursor.hasNext(); row++)
+                writeRow(cells, rows, row, cursor.next(), heads.length);
+            ((MappedByteBuffer) buffer).force();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static byte[] writeHeader(int rows, Metrics[] heads)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(rows);
+        out.writeInt(heads.length);
+        for (Metrics metrics : heads) {
+            out.writeUTF(nonNull(metrics.getName()));
+            out.writeUTF(nonNull(metrics.getOpType()));
+            out.writeUTF(nonNull(metrics.getSampleType()));
+            out.writeUTF(nonNull(metrics.getOpName()));
+            out.writeUTF(nonNull(metrics.getOpId()));
+        }
+        while (out.size() % 8 != 0)
+            out.writeByte(0); /* keep cells aligned */
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String nonNull(String str) {
+        return str != null ? str : "";
+    }
+
+    private static void writeRow(LongBuffer cells, int rows, int row,
+            Snapshot snapshot, int width) {
+        cells.put(TIMESTAMP * rows + row, snapshot.getTimestamp() != null
+                ? snapshot.getTimestamp().getTime() : -1L);
+        cells.put(MIN_VERSION * rows + row, snapshot.getMinVersion());
+        cells.put(CUR_VERSION * rows + row, snapshot.getVersion());
+        cells.put(MAX_VERSION * rows + row, snapshot.getMaxVersion());
+        Metrics[] all = snapshot.getReport().getAllMetrics();
+        for (int i = 0; i < width; i++) {
+            Metrics metrics = i < all.length ? all[i] : new Metrics();
+            int base = (SNAPSHOT_COLUMNS + i * METRICS_COLUMNS) * rows + row;
+            writeMetrics(cells, rows, base, metrics);
+        }
+    }
+
+    private static void writeMetrics(LongBuffer cells, int rows, int base,
+            Metrics metrics) {
+        cells.put(base + SAMPLE_COUNT * rows, metrics.getSampleCount());
+        cells.put(base + TOTAL_SAMPLE_COUNT * rows,
+                metrics.getTotalSampleCount());
+        cells.put(base + BYTE_COUNT * rows, metrics.getByteCount());
+        cells.put(base + WORKER_COUNT * rows, metrics.getWorkerCount());
+        cells.put(base + PHASE_COUNT * rows, metrics.getPhaseCount());
+        putDouble(cells, base + AVG_RES_TIME * rows, metrics.getAvgResTime());
+        putDouble(cells, base + AVG_XFER_TIME * rows, metrics.getAvgXferTime());
+        putDouble(cells, base + AVG_SERVICE_TIME * rows,
+                metrics.getAvgServiceTime());
+        putDouble(cells, base + AVG_CONNECT_TIME * rows,
+                metrics.getAvgConnectTime());
+        putDouble(cells, base + AVG_HANDSHAKE_TIME * rows,
+                metrics.getAvgHandshakeTime());
+        putDouble(cells, base + AVG_FIRST_BYTE_TIME * rows,
+                metrics.getAvgFirstByteTime());
+        putDouble(cells, base + AVG_TRANSFER_TIME * rows,
+                metrics.getAvgTransferTime());
+        putDouble(cells, base + THROUGHPUT * rows, metrics.getThroughput());
+        putDouble(cells, base + BANDWIDTH * rows, metrics.getBandwidth());
+        putDouble(cells, base + RATIO * rows, metrics.getRatio());
+        long[][] percentiles = getPercentiles(metrics.getLatency());
+        for (int p = 0; p < percentiles.length; p++) {
+            long[] value = percentiles[p];
+            int column = base + (PERCENTILES + p * 2) * rows;
+            cells.put(column, value != null ? value[0] : -1L);
+            cells.put(column + rows, value != null ? value[1] : -1L);
+        }
+    }
+
+    private static void putDouble(LongBuffer cells, int index, double value) {
+        cells.put(index, Double.doubleToRawLongBits(value));
+    }
+
+    private static long[][] getPercentiles(Histogram latency) {
+        if (latency == null)
+            return new long[8][];
+        return new long[][] { latency.get_50(), latency.get_60(),
+                latency.get_80(), latency.get_90(), latency.get_95(),
+                latency.get_99(), latency.get_999(), latency.get_100() };
+    }
+
+    /**
+     * Maps the given file and adds its snapshots to the stage.
+     */
+    public static void read(File file, StageInfo stage) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        ByteBuffer buffer;
+        try {
+            buffer = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close(); /* the mapping stays valid */
+        }
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION)
+            throw new IOException("unrecognized stage timeline " + file);
+        int rows = buffer.getInt();
+        Metrics[] heads = readHeads(buffer);
+        long size = (long) rows * 8
+                * (SNAPSHOT_COLUMNS + heads.length * METRICS_COLUMNS);
+        if (buffer.remaining() < size)
+            throw new IOException("truncated stage timeline " + file);
+        LongBuffer cells = buffer.slice().asLongBuffer();
+        for (int row = 0; row < rows; row++)
+            stage.getSnapshotRegistry().addItem(
+                    readRow(cells, rows, row, heads));
+    }
+
+    private static Metrics[] readHeads(ByteBuffer buffer) throws IOException {
+        Metrics[] heads = new Metrics[buffer.getInt()];
+        DataInputStream in = new DataInputStream(new ByteBufferInputStream(
+                buffer));
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = new Metrics();
+            heads[i].setName(nullable(in.readUTF()));
+            heads[i].setOpType(nullable(in.readUTF()));
+            heads[i].setSampleType(nullable(in.readUTF()));
+            heads[i].setOpName(nullable(in.readUTF()));
+            heads[i].setOpId(nullable(in.readUTF()));
+        }
+        while (buffer.position() % 8 != 0)
+            buffer.get();
+        return heads;
+    }
+
+    private static String nullable(String str) {
+        return str.length() > 0 ? str : null;
+    }
+
+    private static Snapshot readRow(LongBuffer cells, int rows, int row,
+            Metrics[] heads) {
+        Report report = new Report();
+        for (int i = 0; i < heads.length; i++) {
+            int base = (SNAPSHOT_COLUMNS + i * METRICS_COLUMNS) * rows + row;
+            report.addMetrics(readMetrics(cells, rows, base, heads[i]));
+        }
+        long time = cells.get(TIMESTAMP * rows + row);
+        Snapshot snapshot = new Snapshot(report, time >= 0 ? new Date(time)
+                : null);
+        snapshot.setMinVersion((int) cells.get(MIN_VERSION * rows + row));
+        snapshot.setVersion((int) cells.get(CUR_VERSION * rows + row));
+        snapshot.setMaxVersion((int) cells.get(MAX_VERSION * rows + row));
+        return snapshot;
+    }
+
+    private static Metrics readMetrics(LongBuffer cells, int rows, int base,
+            Metrics head) {
+        Metrics metrics = new Metrics();
+        metrics.setName(head.getName());
+        metrics.setOpType(head.getOpType());
+        metrics.setSampleType(head.getSampleType());
+        metrics.setOpName(head.getOpName());
+        metrics.setOpId(head.getOpId());
+        metrics.setSampleCount((int) cells.get(base + SAMPLE_COUNT * rows));
+        metrics.setTotalSampleCount((int) cells.get(base + TOTAL_SAMPLE_COUNT
+                * rows));
+        metrics.setByteCount(cells.get(base + BYTE_COUNT * rows));
+        metrics.setWorkerCount((int) cells.get(base + WORKER_COUNT * rows));
+        metrics.setPhaseCount((int) cells.get(base + PHASE_COUNT * rows));
+        metrics.setAvgResTime(getDouble(cells, base + AVG_RES_TIME * rows));
+        metrics.setAvgXferTime(getDouble(cells, base + AVG_XFER_TIME * rows));
+        metrics.setAvgServiceTime(getDouble(cells, base + AVG_SERVICE_TIME
+                * rows));
+        metrics.setAvgConnectTime(getDouble(cells, base + AVG_CONNECT_TIME
+                * rows));
+        metrics.setAvgHandshakeTime(getDouble(cells, base + AVG_HANDSHAKE_TIME
+                * rows));
+        metrics.setAvgFirstByteTime(getDouble(cells, base
+                + AVG_FIRST_BYTE_TIME * rows));
+        metrics.setAvgTransferTime(getDouble(cells, base + AVG_TRANSFER_TIME
+                * rows));
+        metrics.setThroughput(getDouble(cells, base + THROUGHPUT * rows));
+        metrics.setBandwidth(getDouble(cells, base + BANDWIDTH * rows));
+        metrics.setRatio(getDouble(cells, base + RATIO * rows));
+        long[][] percentiles = new long[8][];
+        for (int p = 0; p < percentiles.length; p++) {
+            int column = base + (PERCENTILES + p * 2) * rows;
+            long low = cells.get(column);
+            if (low >= 0)
+                percentiles[p] = new long[] { low, cells.get(column + rows) };
+        }
+        Histogram latency = new Histogram();
+        latency.set_50(percentiles[0]);
+        latency.set_60(percentiles[1]);
+        latency.set_80(percentiles[2]);
+        latency.set_90(percentiles[3]);
+        latency.set_95(percentiles[4]);
+        latency.set_99(percentiles[5]);
+        latency.set_999(percentiles[6]);
+        latency.set_100(percentiles[7]);
+        metrics.setLatency(latency);
+        return metrics;
+    }
+
+    private static double getDouble(LongBuffer cells, int index) {
+        return Double.longBitsToDouble(cells.get(index));
+    }
+
+    /* reads the header strings straight out of the mapped buffer */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining())
+                return -1;
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+    }
+
+}
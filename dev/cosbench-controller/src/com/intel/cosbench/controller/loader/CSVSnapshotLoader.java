@@ -25,9 +25,11 @@ import static com.intel.cosbench.controller.loader.Formats.getLongValue;
 import java.io.*;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
+import com.intel.cosbench.bench.Histogram;
 import com.intel.cosbench.bench.Metrics;
 import com.intel.cosbench.bench.Report;
 import com.intel.cosbench.bench.Snapshot;
@@ -50,9 +52,16 @@ class CSVSnapshotLoader extends AbstractSnapshotLoader {
 			return;
 		}
 		String workloadRecordLine = this.reader.readLine();
+		if (workloadRecordLine == null)
+			return;
 		String[] columns = workloadRecordLine.split(",");
-		for (Work work : stageContext.getStage().getWorks()) {
-			opNum += work.getOperations().size();
+		/* 7 metrics columns per metrics, parts included, then versions */
+		int versions = Arrays.asList(columns).indexOf("Min-Version");
+		if (versions > 0) {
+			opNum = (versions - 1) / 7;
+		} else {
+			for (Work work : stageContext.getStage().getWorks())
+				opNum += work.getOperations().size();
 		}
 		name = new String[opNum];
 		for (int i = 0; i < opNum; i++)
@@ -111,11 +120,42 @@ class CSVSnapshotLoader extends AbstractSnapshotLoader {
 //					: Double.valueOf(columns[i + opNum * 5 + 1].substring(0,
 //							columns[i + opNum * 5 + 1].length() - 1)) / 100.0);
 			setRatio(columns[i + opNum * 6 + 1], metric);
+			if (columns.length > opNum * 11 + 3)
+				metric.setLatency(loadHistogram(columns, i));
+			if (columns.length > opNum * 12 + 3)
+				metric.setAvgServiceTime(getDoubleValue(columns[i + opNum * 11 + 4]));
+			if (columns.length > opNum * 16 + 3)
+				loadPhases(columns, i, metric);
 			metrics.add(metric);
 		}
 		return metrics;
 	}
 	
+	private void loadPhases(String[] columns, int i, Metrics metric) {
+		if (columns[i + opNum * 12 + 4].equalsIgnoreCase("N/A"))
+			return; // no phases recorded
+		metric.setPhaseCount(metric.getSampleCount());
+		metric.setAvgConnectTime(getDoubleValue(columns[i + opNum * 12 + 4]));
+		metric.setAvgHandshakeTime(getDoubleValue(columns[i + opNum * 13 + 4]));
+		metric.setAvgFirstByteTime(getDoubleValue(columns[i + opNum * 14 + 4]));
+		metric.setAvgTransferTime(getDoubleValue(columns[i + opNum * 15 + 4]));
+	}
+
+	private Histogram loadHistogram(String[] columns, int i) {
+		Histogram histogram = new Histogram();
+		histogram.set_50(loadResTime(columns[i + opNum * 7 + 4]));
+		histogram.set_90(loadResTime(columns[i + opNum * 8 + 4]));
+		histogram.set_99(loadResTime(columns[i + opNum * 9 + 4]));
+		histogram.set_999(loadResTime(columns[i + opNum * 10 + 4]));
+		return histogram;
+	}
+
+	private static long[] loadResTime(String column) {
+		if (column.equalsIgnoreCase("N/A"))
+			return null;
+		return new long[] { 0L, (long) (getDoubleValue(column) * 1000) }; // to microsecond
+	}
+
 	private void setRatio(String column, Metrics metrics) {
 		if (!column.equalsIgnoreCase("N/A")) {
 			metrics.setRatio(Double.valueOf(column.substring(0,
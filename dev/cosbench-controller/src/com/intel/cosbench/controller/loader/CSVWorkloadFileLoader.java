@@ -21,7 +21,9 @@ import static com.intel.cosbench.controller.loader.Formats.DATETIME;
 
 import java.io.*;
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import com.intel.cosbench.bench.Histogram;
 import com.intel.cosbench.bench.Metrics;
@@ -31,6 +33,11 @@ import com.intel.cosbench.model.WorkloadInfo;
 
 class CSVWorkloadFileLoader extends AbstractWorkloadFileLoader {
 
+	/* files written before request phases were added have status at 16 */
+	private int status = 16;
+	/* nor a search result, which comes before status */
+	private int search = -1;
+
 	public CSVWorkloadFileLoader(BufferedReader reader,
 			WorkloadInfo workloadContext) throws IOException {
 		super.init(reader, workloadContext);
@@ -38,7 +45,14 @@ class CSVWorkloadFileLoader extends AbstractWorkloadFileLoader {
 
 	@Override
 	protected void readHeader() throws IOException {
-		this.reader.readLine();
+		String header = this.reader.readLine();
+		if (header == null)
+			return;
+		List<String> columns = Arrays.asList(header.split(","));
+		int index = columns.indexOf("Status");
+		if (index > 0)
+			status = index;
+		search = columns.indexOf("Search");
 	}
 
 	@Override
@@ -57,7 +71,7 @@ class CSVWorkloadFileLoader extends AbstractWorkloadFileLoader {
 				stageId = "s" + index++;
 				sameStage = false;
 			}
-			if (columns[16].equalsIgnoreCase("completed")) {
+			if (columns[status].equalsIgnoreCase("completed")) {
 				Metrics metrics = loadMetrics(columns);
 				if (!sameStage) {
 					Report report = new Report();
@@ -67,14 +81,18 @@ class CSVWorkloadFileLoader extends AbstractWorkloadFileLoader {
 						.addMetrics(metrics);
 				workloadContext.getReport().addMetrics(metrics);
 			}
+			if (!sameStage && search > 0
+					&& !columns[search].equalsIgnoreCase("N/A"))
+				workloadContext.getStageInfo(stageId).setSearchResult(
+						columns[search]);
 			for (StageState state : StageState.values()) {
-				if (columns[16]
+				if (columns[status]
 						.equalsIgnoreCase(state.toString().toLowerCase())) {
 					workloadContext.getStageInfo(stageId).setState(state, true);
 					break;
 				}
 			}
-			int pos = 16;
+			int pos = status;
 			while (!sameStage && ++pos <= columns.length - 1) {
 				String str[] = columns[pos].split("@");
 				String stateName = str[0].trim();
@@ -112,6 +130,13 @@ class CSVWorkloadFileLoader extends AbstractWorkloadFileLoader {
 		metrics.setThroughput(Double.valueOf(columns[13]));
 		metrics.setBandwidth(Double.valueOf(columns[14]));
 		setRatio(columns[15], metrics);
+		if (status > 19 && !columns[16].equalsIgnoreCase("N/A")) {
+			metrics.setPhaseCount(metrics.getSampleCount());
+			metrics.setAvgConnectTime(Double.valueOf(columns[16]));
+			metrics.setAvgHandshakeTime(Double.valueOf(columns[17]));
+			metrics.setAvgFirstByteTime(Double.valueOf(columns[18]));
+			metrics.setAvgTransferTime(Double.valueOf(columns[19]));
+		}
 		return metrics;
 	}
 
@@ -131,30 +156,30 @@ class CSVWorkloadFileLoader extends AbstractWorkloadFileLoader {
 	private Histogram loadHistogram(String[] columns) {
 		Histogram histogram = new Histogram();
 		long[] l_60 = new long[2];
-		l_60[1] = columns[7].equalsIgnoreCase("N/A") ? 0L : Long
-				.valueOf(columns[7]);
+		l_60[1] = loadResTime(columns[7]);
 		histogram.set_60(l_60);
 		long[] l_80 = new long[2];
-		l_80[1] = columns[8].equalsIgnoreCase("N/A") ? 0L : Long
-				.valueOf(columns[8]);
+		l_80[1] = loadResTime(columns[8]);
 		histogram.set_80(l_80);
 		long[] l_90 = new long[2];
-		l_90[1] = columns[9].equalsIgnoreCase("N/A") ? 0L : Long
-				.valueOf(columns[9]);
+		l_90[1] = loadResTime(columns[9]);
 		histogram.set_90(l_90);
 		long[] l_95 = new long[2];
-		l_95[1] = columns[10].equalsIgnoreCase("N/A") ? 0L : Long
-				.valueOf(columns[10]);
+		l_95[1] = loadResTime(columns[10]);
 		histogram.set_95(l_95);
 		long[] l_99 = new long[2];
-		l_99[1] = columns[11].equalsIgnoreCase("N/A") ? 0L : Long
-				.valueOf(columns[11]);
+		l_99[1] = loadResTime(columns[11]);
 		histogram.set_99(l_99);
 		long[] l_100 = new long[2];
-		l_100[1] = columns[12].equalsIgnoreCase("N/A") ? 0L : Long
-				.valueOf(columns[12]);
+		l_100[1] = loadResTime(columns[12]);
 		histogram.set_100(l_100);
 		return histogram;
 	}
 
+	private static long loadResTime(String column) {
+		if (column.equalsIgnoreCase("N/A"))
+			return 0L;
+		return (long) (Double.valueOf(column) * 1000); // to microsecond
+	}
+
 }
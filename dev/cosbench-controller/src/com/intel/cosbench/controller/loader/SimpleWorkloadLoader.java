@@ -8,6 +8,8 @@ import com.intel.cosbench.config.Stage;
 import com.intel.cosbench.config.WorkloadResolver;
 import com.intel.cosbench.config.XmlConfig;
 import com.intel.cosbench.config.castor.CastorConfigTools;
+import com.intel.cosbench.controller.archiver.RunIndex;
+import com.intel.cosbench.controller.archiver.StageTimeline;
 import com.intel.cosbench.controller.model.StageContext;
 import com.intel.cosbench.controller.model.StageRegistry;
 import com.intel.cosbench.controller.model.WorkloadContext;
@@ -49,11 +51,30 @@ public class SimpleWorkloadLoader implements WorkloadLoader {
 		return name;
 	}
 
+	/*
+	 * Only run items are loaded here, preferably from the run index which is
+	 * mapped rather than parsed; the index is rebuilt from "run-history.csv"
+	 * when it is missing or older.
+	 */
 	@Override
 	public List<WorkloadInfo> loadWorkloadRun() throws IOException {
 		File file = new File(ARCHIVE_DIR, "run-history.csv");
 		if (!file.exists())
 			return null;
+		File index = new File(ARCHIVE_DIR, RunIndex.FILE_NAME);
+		if (index.exists() && index.lastModified() >= file.lastModified())
+			try {
+				return RunIndex.open(index).getAll();
+			} catch (IOException e) {
+				LOGGER.warn("cannot use run index, loading " + file, e);
+			}
+		List<WorkloadInfo> workloads = loadRunHistory(file);
+		rebuildIndex(index, workloads);
+		return workloads;
+	}
+
+	private static List<WorkloadInfo> loadRunHistory(File file)
+			throws IOException {
 		BufferedReader reader = new BufferedReader(new FileReader(file));
 		RunLoader loader = Loaders.newRunExporter(reader);
 		List<WorkloadInfo> workloads = new ArrayList<WorkloadInfo>();
@@ -63,6 +84,19 @@ public class SimpleWorkloadLoader implements WorkloadLoader {
 		return workloads;
 	}
 
+	private static void rebuildIndex(File index, List<WorkloadInfo> workloads) {
+		index.delete();
+		try {
+			for (WorkloadInfo workload : workloads)
+				RunIndex.append(index, workload);
+		} catch (Exception e) {
+			LOGGER.warn("cannot rebuild run index " + index, e);
+			index.delete();
+			return;
+		}
+		LOGGER.info("run index has been rebuilt at {}", index.getAbsolutePath());
+	}
+
 	@Override
 	public void loadWorkloadPageInfo(WorkloadInfo workloadContext)
 			throws IOException {
@@ -139,10 +173,18 @@ public class SimpleWorkloadLoader implements WorkloadLoader {
 	@Override
 	public void loadStagePageInfo(WorkloadInfo workloadContext, String stageId)
 			throws IOException {
-		File file = new File(
-				new File(ARCHIVE_DIR, getRunDirName(workloadContext)),
-				getStageFileName(workloadContext.getStageInfo(stageId))
-						+ ".csv");
+		File runDir = new File(ARCHIVE_DIR, getRunDirName(workloadContext));
+		StageInfo stageContext = workloadContext.getStageInfo(stageId);
+		File timeline = new File(runDir, getStageFileName(stageContext)
+				+ StageTimeline.FILE_EXTENSION);
+		if (timeline.exists())
+			try {
+				StageTimeline.read(timeline, stageContext);
+				return;
+			} catch (IOException e) {
+				LOGGER.warn("cannot use stage timeline " + timeline, e);
+			}
+		File file = new File(runDir, getStageFileName(stageContext) + ".csv");
 		if (!file.exists())
 			return;
 		BufferedReader reader = new BufferedReader(new FileReader(file));
@@ -17,17 +17,226 @@ limitations under the License.
 
 package com.intel.cosbench.controller.model;
 
+import java.io.*;
+import java.util.*;
+
+import org.apache.commons.lang.StringUtils;
+
 import com.intel.cosbench.bench.Snapshot;
+import com.intel.cosbench.log.*;
+import com.intel.cosbench.protocol.SnapshotCodec;
 import com.intel.cosbench.utils.ListRegistry;
 
+/**
+ * This class holds the timeline of one stage.
+ * <p>
+ * With a spill file, only the latest snapshots are kept in RAM, in a ring
+ * buffer of "cosbench.controller.snapshots" entries; older ones are appended
+ * to the file, so memory stays flat however long the stage runs. Readers go
+ * through {@link #iterator()}, which reads spilled snapshots back in batches.
+ * Without a spill file, as for stages loaded from archives, all snapshots are
+ * kept in RAM.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
 public class SnapshotRegistry extends ListRegistry<Snapshot> {
 
+    private static final int HOT_SNAPSHOTS_DEFAULT = 720;
+
+    private static final String HOT_SNAPSHOTS_KEY = "cosbench.controller.snapshots";
+
+    private static final int BATCH = 64; /* snapshots read back at once */
+
+    private static final Logger LOGGER = LogFactory.getSystemLogger();
+
+    private final File spill; /* null if not spilling */
+    private Snapshot[] ring;
+    private int head = 0; /* oldest snapshot in the ring */
+    private int count = 0; /* snapshots in the ring */
+    private int spilled = 0; /* snapshots in the spill file */
+
+    public SnapshotRegistry() {
+        this(null, 16);
+    }
+
+    public SnapshotRegistry(File spill) {
+        this(spill, getHotCapacity());
+    }
+
+    private SnapshotRegistry(File spill, int capacity) {
+        this.spill = spill;
+        this.ring = new Snapshot[capacity];
+    }
+
+    private static int getHotCapacity() {
+        int capacity = HOT_SNAPSHOTS_DEFAULT;
+        String config = System.getProperty(HOT_SNAPSHOTS_KEY);
+        if (!StringUtils.isEmpty(config))
+            try {
+                capacity = Math.max(Integer.parseInt(config), 1);
+            } catch (NumberFormatException e) {
+            }
+        return capacity;
+    }
+
     public void addSnapshot(Snapshot snapshot) {
         addItem(snapshot);
     }
 
+    /**
+     * Loads all snapshots into RAM; prefer {@link #iterator()}.
+     */
     public Snapshot[] getAllSnapshot() {
         return getAllItems().toArray(new Snapshot[getSize()]);
     }
 
+    @Override
+    public synchronized int getSize() {
+        return spilled + count;
+    }
+
+    @Override
+    public synchronized void addItem(Snapshot snapshot) {
+        if (count == ring.length && (spill == null || !spillOldest()))
+            grow();
+        ring[(head + count) % ring.length] = snapshot;
+        count++;
+    }
+
+    /* called with the lock held, and the ring full */
+    private boolean spillOldest() {
+        Snapshot oldest = ring[head];
+        try {
+            byte[] bytes = SnapshotCodec.encode(oldest);
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(spill, true)));
+            try {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("cannot spill snapshots to " + spill
+                    + ", keeping them in RAM", e);
+            return false;
+        }
+        ring[head] = null;
+        head = (head + 1) % ring.length;
+        count--;
+        spilled++;
+        return true;
+    }
+
+    /* called with the lock held, and the ring full */
+    private void grow() {
+        Snapshot[] bigger = new Snapshot[ring.length * 2];
+        for (int i = 0; i < count; i++)
+            bigger[i] = ring[(head + i) % ring.length];
+        ring = bigger;
+        head = 0;
+    }
+
+    @Override
+    public synchronized Snapshot getItem(int index) {
+        if (index >= spilled)
+            return ring[(head + index - spilled) % ring.length];
+        Iterator<Snapshot> cursor = iterator();
+        for (int i = 0; i < index; i++)
+            cursor.next();
+        return cursor.next();
+    }
+
+    @Override
+    public List<Snapshot> getAllItems() {
+        List<Snapshot> snapshots = new ArrayList<Snapshot>(getSize());
+        for (Snapshot snapshot : this)
+            snapshots.add(snapshot);
+        return snapshots;
+    }
+
+    /**
+     * Returns a cursor over all snapshots, oldest first. Snapshots added
+     * while iterating are returned as well.
+     */
+    @Override
+    public Iterator<Snapshot> iterator() {
+        return new Cursor();
+    }
+
+    private synchronized int getSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Deletes the spill file, once the stage is gone.
+     */
+    public synchronized void dispose() {
+        if (spill != null && spill.exists() && !spill.delete())
+            LOGGER.warn("cannot delete {}", spill);
+    }
+
+    private class Cursor implements Iterator<Snapshot> {
+
+        private int index = 0; /* next snapshot to return */
+        private int record = 0; /* spilled snapshot at offset */
+        private long offset = 0L;
+        private LinkedList<Snapshot> batch = new LinkedList<Snapshot>();
+
+        @Override
+        public boolean hasNext() {
+            return index < getSize();
+        }
+
+        @Override
+        public Snapshot next() {
+            synchronized (SnapshotRegistry.this) {
+                if (index >= spilled + count)
+                    throw new NoSuchElementException();
+                if (index >= spilled) {
+                    batch.clear();
+                    return ring[(head + index++ - spilled) % ring.length];
+                }
+            }
+            if (batch.isEmpty())
+                readBatch();
+            index++;
+            return batch.removeFirst();
+        }
+
+        /* spilled snapshots never change, so no lock is needed */
+        private void readBatch() {
+            try {
+                RandomAccessFile file = new RandomAccessFile(spill, "r");
+                try {
+                    file.seek(offset);
+                    /* skip those returned from the ring before spilling */
+                    for (; record < index; record++) {
+                        offset += 4 + file.readInt();
+                        file.seek(offset);
+                    }
+                    int limit = Math.min(record + BATCH, getSpilled());
+                    for (; record < limit; record++) {
+                        byte[] bytes = new byte[file.readInt()];
+                        file.readFully(bytes);
+                        offset += 4 + bytes.length;
+                        batch.add(SnapshotCodec.decode(bytes));
+                    }
+                } finally {
+                    file.close();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot read snapshots from "
+                        + spill, e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
 }
@@ -42,8 +42,14 @@ public class StageContext implements StageInfo {
     private TaskRegistry taskRegistry;
     private SnapshotRegistry snapshotRegistry = new SnapshotRegistry();
 
+    /* Snapshots streamed by drivers are merged as soon as a tick is complete */
+    private transient long lastTick = 0L; /* latest tick merged */
+    private transient volatile long lastStreamed = 0L; /* when it was merged */
+
     /* Report will be available after the stage is completed */
     private volatile Report report = null; // will be merged from task reports
+    /* Set on the steps a saturation search ends with */
+    private volatile String searchResult = null;
 
     private transient List<StageListener> listeners = new ArrayList<StageListener>();
 
@@ -168,6 +174,44 @@ public class StageContext implements StageInfo {
 
     public void setTaskRegistry(TaskRegistry taskRegistry) {
         this.taskRegistry = taskRegistry;
+        TaskListener listener = new TaskListener() {
+            @Override
+            public void snapshotStreamed(TaskContext task) {
+                mergeStreamed();
+            }
+        };
+        for (TaskContext task : taskRegistry)
+            task.setListener(listener);
+    }
+
+    /*
+     * Makes a snapshot once every running task has streamed the same tick.
+     * Stages with tasks that are still queried are left to the stage checker.
+     */
+    private synchronized void mergeStreamed() {
+        long tick = Long.MAX_VALUE;
+        for (TaskContext task : taskRegistry) {
+            if (TaskState.isStopped(task.getState())
+                    || TaskState.FINISHED.equals(task.getState()))
+                continue;
+            if (!task.isStreamed())
+                return;
+            tick = Math.min(tick, task.getSnapshot().getTimestamp()
+                    .getTime());
+        }
+        if (tick == Long.MAX_VALUE || tick <= lastTick)
+            return;
+        lastTick = tick;
+        makeSnapshot();
+        lastStreamed = System.currentTimeMillis();
+    }
+
+    /**
+     * Tells whether snapshots are currently being made from streams, so that
+     * the stage checker need not make them.
+     */
+    public boolean isStreamed() {
+        return System.currentTimeMillis() - lastStreamed < interval * 2000L;
     }
 
     @Override
@@ -190,6 +234,16 @@ public class StageContext implements StageInfo {
         this.report = report;
     }
 
+    @Override
+    public String getSearchResult() {
+        return searchResult;
+    }
+
+    @Override
+    public void setSearchResult(String searchResult) {
+        this.searchResult = searchResult;
+    }
+
     @Override
     public Snapshot[] getSnapshots() {
         return snapshotRegistry.getAllSnapshot();
@@ -201,7 +255,12 @@ public class StageContext implements StageInfo {
     }
 
     public void makeSnapshot() {
-        snapshotRegistry.addSnapshot(getSnapshot());
+        Snapshot snapshot = getSnapshot();
+        /* only the interval percentiles are kept in the timeline */
+        for (Metrics metrics : snapshot.getReport())
+            if (metrics.getLatency() != null)
+                metrics.getLatency().discardData();
+        snapshotRegistry.addSnapshot(snapshot);
     }
 
     public void addListener(StageListener listener) {
@@ -222,4 +281,12 @@ public class StageContext implements StageInfo {
 		return snapshotRegistry;
 	}
 
+    public void setSnapshotRegistry(SnapshotRegistry snapshotRegistry) {
+        this.snapshotRegistry = snapshotRegistry;
+    }
+
+    public void disposeSnapshots() {
+        snapshotRegistry.dispose();
+    }
+
 }
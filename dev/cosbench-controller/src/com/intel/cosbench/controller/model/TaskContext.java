@@ -20,6 +20,7 @@ package com.intel.cosbench.controller.model;
 import java.util.HashMap;
 
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.codehaus.jackson.map.ObjectMapper;
 
 import com.intel.cosbench.bench.*;
@@ -32,6 +33,8 @@ public class TaskContext implements TaskInfo {
     private SchedulePlan schedule;
 
     private transient HttpClient httpClient;
+    /* The snapshot stream, if open, aborted when the task is cancelled */
+    private transient volatile HttpUriRequest stream;
     private transient ObjectMapper mapper;
 
     private String missionId;
@@ -39,6 +42,9 @@ public class TaskContext implements TaskInfo {
     private int interval;
     /* Each task starts with an empty snapshot */
     private transient volatile Snapshot snapshot = new Snapshot();
+    /* Whether snapshots are pushed by the driver rather than queried */
+    private transient volatile boolean streamed = false;
+    private transient volatile TaskListener listener;
     /* Each task starts with an empty report */
     private transient volatile Report report = new Report();
     /* Each task starts with an empty log */
@@ -84,6 +90,20 @@ public class TaskContext implements TaskInfo {
         this.httpClient = httpClient;
     }
 
+    public void setStream(HttpUriRequest stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Aborts the snapshot stream, if open, as a blocked read cannot be
+     * interrupted.
+     */
+    public void abortStream() {
+        HttpUriRequest stream = this.stream;
+        if (stream != null)
+            stream.abort();
+    }
+
     public ObjectMapper getMapper() {
         return mapper;
     }
@@ -117,6 +137,24 @@ public class TaskContext implements TaskInfo {
         this.snapshot = snapshot;
     }
 
+    /**
+     * Sets a snapshot pushed by the driver, and tells the listener about it.
+     */
+    public void streamSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+        this.streamed = true;
+        if (listener != null)
+            listener.snapshotStreamed(this);
+    }
+
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    public void setListener(TaskListener listener) {
+        this.listener = listener;
+    }
+
     public Report getReport() {
         return report;
     }
@@ -320,6 +320,12 @@ public class WorkloadContext implements WorkloadInfo {
         currentStage = null;
         listeners = null;
     }
+
+    public void disposeSnapshots() {
+        if (stageRegistry != null)
+            for (StageContext stage : stageRegistry)
+                stage.disposeSnapshots();
+    }
 	
 
     public DriverRegistry getDriverRegistry() {
@@ -76,6 +76,8 @@ public class RAMWorkloadRepository implements WorkloadRepository,
     public synchronized void saveWorkload(WorkloadContext workload) {
         workload.addListener(this);
         WorkloadContext[] removed = workloads.add(workload);
+        for (WorkloadContext old : removed)
+            old.disposeSnapshots();
         LOGGER.debug("workload {} has been saved in RAM", workload.getId());
         LOGGER.debug("{} workloads have been removed from RAM", removed.length);
     }
@@ -83,6 +85,7 @@ public class RAMWorkloadRepository implements WorkloadRepository,
     @Override
     public synchronized void removeWorkload(WorkloadContext workload) {
     	workloads.remove(workload);
+    	workload.disposeSnapshots();
     } 
 
     @Override
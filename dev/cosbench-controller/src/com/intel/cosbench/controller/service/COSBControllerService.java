@@ -82,6 +82,7 @@ class COSBControllerService implements ControllerService, WorkloadListener {
 		String archive_dir = context.getArchive_dir();
 		archiver = new SimpleWorkloadArchiver(archive_dir);
 	    loader = new SimpleWorkloadLoader(archive_dir);
+	    WorkloadProcessor.cleanSpillFiles(archive_dir);
 				
         count = new AtomicInteger(archiver.getTotalWorkloads());
         order = new AtomicInteger(0);
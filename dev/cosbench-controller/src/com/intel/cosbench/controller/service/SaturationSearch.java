@@ -0,0 +1,135 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.controller.service;
+
+import java.text.DecimalFormat;
+import java.util.List;
+
+import com.intel.cosbench.bench.*;
+import com.intel.cosbench.config.*;
+import com.intel.cosbench.controller.model.StageContext;
+import com.intel.cosbench.log.*;
+
+/**
+ * This class follows the steps of one search stage to find the highest
+ * throughput the target sustains.
+ * <p>
+ * After each step, the search checks every work against its acceptable
+ * failure ratio, and every operation against the p99 latency threshold of the
+ * stage. The first step crossing either ends the search, and the best
+ * throughput seen in the steps before it is reported, and kept as the search
+ * result of the step reaching it.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class SaturationSearch {
+
+    private static final Logger LOGGER = LogFactory.getSystemLogger();
+
+    private Stage stage; /* the search stage as configured */
+    private int steps; /* total steps */
+    private int done = 0; /* steps completed */
+
+    private double maxThroughput = 0D;
+    private StageContext maxStep; /* the step reaching the max throughput */
+
+    public SaturationSearch(Stage stage, int steps) {
+        this.stage = stage;
+        this.steps = steps;
+    }
+
+    public String getName() {
+        return stage.getName();
+    }
+
+    /**
+     * Checks the outcome of one step.
+     * 
+     * @return true if the search is over
+     */
+    public boolean check(StageContext stageContext) {
+        done++;
+        String id = stageContext.getId();
+        Report report = stageContext.getReport();
+        if (!isSustained(stageContext.getStage(), report)) {
+            LOGGER.info("search {} saturated at step {}", getName(), id);
+            stageContext.setSearchResult("saturated");
+            return true;
+        }
+        double throughput = 0D;
+        for (Metrics metrics : report)
+            throughput += metrics.getThroughput();
+        if (throughput > maxThroughput) {
+            maxThroughput = throughput;
+            maxStep = stageContext;
+        }
+        LOGGER.info("search {} sustained {} op/s at step {}", new Object[] {
+                getName(), throughput, id });
+        return done >= steps;
+    }
+
+    private boolean isSustained(Stage step, Report report) {
+        for (Work work : step) {
+            List<String> opIds = work.getOperationIDs();
+            long succ = 0;
+            long total = 0;
+            for (Metrics metrics : report) {
+                if (!opIds.contains(metrics.getOpId()))
+                    continue;
+                succ += Math.max(metrics.getSampleCount(), 0);
+                total += Math.max(metrics.getTotalSampleCount(), 0);
+                if (total == 0 || stage.getP99() <= 0
+                        || metrics.getLatency() == null
+                        || metrics.getLatency().get_99() == null)
+                    continue;
+                long p99 = metrics.getLatency().get_99()[1] / 1000; // to millisecond
+                if (p99 > stage.getP99()) {
+                    LOGGER.info("p99 latency of {} is {} ms, above {} ms",
+                            new Object[] { metrics.getName(), p99,
+                                    stage.getP99() });
+                    return false;
+                }
+            }
+            if (total == 0 || (total - succ) > total * work.getAfr() / 1000000) {
+                LOGGER.info("failure ratio of work {} is above the acceptable one",
+                        work.getName());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports the max sustainable throughput found, and keeps it on the step
+     * reaching it.
+     */
+    public void report() {
+        if (maxStep == null) {
+            LOGGER.info("search {} found no sustainable step in {} steps",
+                    getName(), done);
+            return;
+        }
+        maxStep.setSearchResult("max "
+                + new DecimalFormat("0.##").format(maxThroughput) + " op/s");
+        LOGGER.info("max sustainable throughput of search {} is {} op/s at step {}",
+                new Object[] { getName(), maxThroughput, maxStep.getId() });
+    }
+
+}
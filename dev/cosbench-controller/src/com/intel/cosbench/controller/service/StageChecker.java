@@ -70,6 +70,8 @@ public class StageChecker implements StageCallable {
         hold(); // hold for 2.5 seconds
         do {
             sleep();
+            if (stageContext.isStreamed())
+                continue; // made as snapshots are streamed
             stageContext.makeSnapshot();
             LOGGER.debug("made a snapshot for stage {}", stageContext.getId());
         } while (!isStopped(stageContext.getState()));
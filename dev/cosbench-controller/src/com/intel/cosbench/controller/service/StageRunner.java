@@ -267,6 +267,8 @@ class StageRunner implements StageCallable {
         String id = stageContext.getId();
         LOGGER.info("begin to cancel stage {}", id);
         executor.shutdownNow();
+        for (TaskContext task : stageContext.getTaskRegistry().getAllTasks())
+            task.abortStream(); // blocked in a read, deaf to the interrupt
         if (Thread.interrupted())
             LOGGER.warn("get cancelled when canceling stage");
         try {
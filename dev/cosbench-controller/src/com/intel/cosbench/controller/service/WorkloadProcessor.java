@@ -20,6 +20,7 @@ package com.intel.cosbench.controller.service;
 import static com.intel.cosbench.model.WorkloadState.*;
 import static java.util.concurrent.TimeUnit.*;
 
+import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -41,11 +42,15 @@ class WorkloadProcessor {
 
     private static final Logger LOGGER = LogFactory.getSystemLogger();
 
+    private static final String SPILL_DIR = ".snapshots";
+
     private WorkloadContext workloadContext;
     private ControllerContext controllerContext;
 
     private ExecutorService executor;
     private List<StageContext> queue;
+    /* search each step of a search stage belongs to */
+    private Map<String, SaturationSearch> searches = new HashMap<String, SaturationSearch>();
 
     public WorkloadProcessor() {
         /* empty */
@@ -87,20 +92,74 @@ class WorkloadProcessor {
         StageRegistry registry = new StageRegistry();
         int index = 1;
         for (Stage stage : workloadContext.getWorkload().getWorkflow()) {
+            if (stage.isSearch()) {
+                index = createSteps(registry, index, stage);
+                continue;
+            }
             String id = "s" + index++ + "-" + stage.getName();
             registry.addStage(createStageContext(id, stage));
         }
         workloadContext.setStageRegistry(registry);
     }
 
-    private static StageContext createStageContext(String id, Stage stage) {
+    /*
+     * Expands a search stage into one stage per step, all of them run within
+     * this workload until the search is over.
+     */
+    private int createSteps(StageRegistry registry, int index, Stage stage) {
+        int steps = (stage.getTo() - stage.getFrom()) / stage.getStep() + 1;
+        SaturationSearch search = new SaturationSearch(stage, steps);
+        for (int value = stage.getFrom(); value <= stage.getTo(); value += stage
+                .getStep()) {
+            Stage step = stage.newStep(value);
+            String id = "s" + index++ + "-" + step.getName();
+            registry.addStage(createStageContext(id, step));
+            searches.put(id, search);
+        }
+        return index;
+    }
+
+    private StageContext createStageContext(String id, Stage stage) {
     	initStageOpId(stage);
         StageContext context = new StageContext();
         context.setId(id);
         context.setStage(stage);
         context.setState(StageState.WAITING);
+        context.setSnapshotRegistry(new SnapshotRegistry(createSpillFile()));
         return context;
     }
+
+    /*
+     * Older snapshots of a stage are spilled into a file under the archive
+     * directory, it is deleted once the workload leaves the repository, or
+     * at the next startup if the controller stopped before.
+     */
+    private File createSpillFile() {
+        File dir = new File(controllerContext.getArchive_dir(), SPILL_DIR);
+        try {
+            if (!dir.exists())
+                dir.mkdirs();
+            return File.createTempFile("stage-", ".dat", dir);
+        } catch (IOException e) {
+            LOGGER.warn("cannot create snapshot file in " + dir
+                    + ", snapshots will be kept in RAM", e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes snapshot files left over by a previous run of the controller.
+     */
+    static void cleanSpillFiles(String archiveDir) {
+        File[] files = new File(archiveDir, SPILL_DIR).listFiles();
+        if (files == null)
+            return;
+        for (File file : files)
+            if (!file.delete())
+                LOGGER.warn("cannot delete {}", file);
+        LOGGER.debug("{} leftover snapshot files have been removed",
+                files.length);
+    }
     
     private static void initStageOpId(Stage stage) {
     	int index = 0;
@@ -151,13 +210,14 @@ class WorkloadProcessor {
     private void processWorkload() throws InterruptedException {
         workloadContext.setState(PROCESSING);
         workloadContext.setStartDate(new Date());
-        Iterator<StageContext> iter = queue.iterator();
         String trigger = workloadContext.getWorkload().getTrigger();
         executeTrigger(trigger, true, workloadContext.getId());
-        while (iter.hasNext()) {
-            StageContext stageContext = iter.next();
-            iter.remove();
+        while (!queue.isEmpty()) {
+            StageContext stageContext = queue.remove(0);
             runStage(stageContext);
+            SaturationSearch search = searches.get(stageContext.getId());
+            if (search != null && search.check(stageContext))
+                skipSteps(search);
         }
         executeTrigger(trigger, false, workloadContext.getId());
         workloadContext.setStopDate(new Date());
@@ -165,6 +225,8 @@ class WorkloadProcessor {
         workloadContext.mergeErrorStatistics();
 		for (StageContext stageContext : workloadContext.getStageRegistry()
 				.getAllItems()) {
+			if (searches.containsKey(stageContext.getId()))
+				continue; // a search is expected to end with a failing step
 			if (stageContext.getState().equals(StageState.FAILED)) {
 				workloadContext.setState(FAILED);
 				return;
@@ -173,6 +235,18 @@ class WorkloadProcessor {
         workloadContext.setState(FINISHED);
     }
 
+    /* cancels the steps left once a search is over, and reports its outcome */
+    private void skipSteps(SaturationSearch search) {
+        while (!queue.isEmpty()
+                && searches.get(queue.get(0).getId()) == search) {
+            StageContext stageContext = queue.remove(0);
+            stageContext.setState(StageState.CANCELLED);
+            LOGGER.info("skipped stage {} as search {} is over",
+                    stageContext.getId(), search.getName());
+        }
+        search.report();
+    }
+
     private static String millisToHMS(long millis) {
 
         long hrs = MILLISECONDS.toHours(millis) % 24;
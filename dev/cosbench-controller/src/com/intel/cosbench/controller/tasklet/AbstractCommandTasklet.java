@@ -68,9 +68,12 @@ abstract class AbstractCommandTasklet<T extends Response> extends
 
     protected void issueCommand(String command, String content) {
         T response = null;
-        String body = issueHttpRequest(command, content);
+        Object body = issueBinaryHttpRequest(command, content);
         try {
-            response = context.getMapper().readValue(body, clazz);
+            if (body instanceof String)
+                response = context.getMapper().readValue((String) body, clazz);
+            else
+                response = clazz.cast(body);
         } catch (Exception e) {
             LOGGER.error("cannot parse response body", e);
             throw new TaskletException(); // mark termination
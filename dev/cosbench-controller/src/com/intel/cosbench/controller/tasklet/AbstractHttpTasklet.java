@@ -30,6 +30,7 @@ import org.apache.http.util.EntityUtils;
 
 import com.intel.cosbench.client.http.HttpClientUtil;
 import com.intel.cosbench.controller.model.TaskContext;
+import com.intel.cosbench.protocol.*;
 import com.intel.cosbench.service.*;
 
 abstract class AbstractHttpTasklet extends AbstractTasklet {
@@ -52,13 +53,37 @@ abstract class AbstractHttpTasklet extends AbstractTasklet {
     }
 
     protected String issueHttpRequest(String command, String content) {
+        return (String) issueHttpRequest(command, content, false);
+    }
+
+    /**
+     * Issues a command, preferring the binary encoding for responses that
+     * carry reports.
+     * 
+     * @return the decoded response if the driver answered in binary, or the
+     *         response body otherwise
+     */
+    protected Object issueBinaryHttpRequest(String command, String content) {
+        return issueHttpRequest(command, content, true);
+    }
+
+    private Object issueHttpRequest(String command, String content,
+            boolean binary) {
         String url = getDriver().getUrl() + "/i/" + command + ".command";
         HttpClient client = context.getHttpClient();
         HttpPost request = prepareRequest(content, url);
-        String body = null;
+        if (binary) {
+            request.setHeader("Accept", ResponseCodec.CONTENT_TYPE
+                    + ", application/json");
+            request.setHeader("Accept-Encoding", ResponseCodec.GZIP);
+        }
+        Object body = null;
         try {
             HttpResponse response = client.execute(request);
-            body = fetchResponseBody(response);
+            if (binary && isBinary(response))
+                body = fetchResponse(response);
+            else
+                body = fetchResponseBody(response);
         } catch (SocketTimeoutException ste) {
             LOGGER.error("fail to POST driver", ste);
             throw new TaskletException(); // mark termination
@@ -74,6 +99,57 @@ abstract class AbstractHttpTasklet extends AbstractTasklet {
         return body; // HTTP response body retrieved
     }
 
+    /**
+     * Opens a long-lived response of the given content type. The response
+     * comes over a connection of its own, so the task's client stays free for
+     * other commands, and it is aborted when the task is cancelled. Closing the
+     * stream aborts the response and releases the connection.
+     * 
+     * @return the response body, or null if the driver does not offer it
+     */
+    protected InputStream openHttpStream(String command, String content,
+            String contentType) {
+        String url = getDriver().getUrl() + "/i/" + command + ".command";
+        final HttpClient client = HttpClientUtil.createHttpClient(TIMEOUT);
+        final HttpPost request = prepareRequest(content, url);
+        context.setStream(request);
+        boolean opened = false;
+        try {
+            HttpResponse response = client.execute(request);
+            HttpEntity entity = response.getEntity();
+            Header type = entity != null ? entity.getContentType() : null;
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK
+                    && type != null && contentType.equals(type.getValue())) {
+                opened = true;
+                return new FilterInputStream(entity.getContent()) {
+                    @Override
+                    public void close() {
+                        closeHttpStream(request, client);
+                    }
+                };
+            }
+            LOGGER.debug("[ << ] - {} [no stream]", response.getStatusLine());
+            EntityUtils.consume(entity);
+            return null;
+        } catch (InterruptedIOException ie) {
+            throw new CancelledException(); // task cancelled
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancelledException(); // aborted on cancel
+            LOGGER.warn("fail to open stream from driver", e);
+            return null;
+        } finally {
+            if (!opened)
+                closeHttpStream(request, client);
+        }
+    }
+
+    private void closeHttpStream(HttpPost request, HttpClient client) {
+        context.setStream(null);
+        request.abort(); // rather than reading the rest of it
+        HttpClientUtil.disposeHttpClient(client);
+    }
+
     private static HttpPost prepareRequest(String content, String url) {
         HttpPost POST = new HttpPost(url);
         try {
@@ -92,6 +168,30 @@ abstract class AbstractHttpTasklet extends AbstractTasklet {
         return POST; // HTTP request prepared
     }
 
+    private static boolean isBinary(HttpResponse response) {
+        Header type = response.getEntity() != null ? response.getEntity()
+                .getContentType() : null;
+        return type != null
+                && ResponseCodec.CONTENT_TYPE.equals(type.getValue());
+    }
+
+    private static Response fetchResponse(HttpResponse response)
+            throws IOException {
+        HttpEntity entity = response.getEntity();
+        Header encoding = entity.getContentEncoding();
+        boolean gzip = encoding != null
+                && ResponseCodec.GZIP.equals(encoding.getValue());
+        InputStream in = entity.getContent();
+        try {
+            Response body = ResponseCodec.read(in, gzip);
+            LOGGER.debug("[ << ] - {} [binary-{}]", response.getStatusLine(),
+                    body.getClass().getSimpleName());
+            return body;
+        } finally {
+            EntityUtils.consume(entity);
+        }
+    }
+
     private static String fetchResponseBody(HttpResponse response)
             throws IOException {
         String body = null;
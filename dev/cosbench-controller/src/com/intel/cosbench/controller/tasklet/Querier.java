@@ -19,16 +19,18 @@ package com.intel.cosbench.controller.tasklet;
 
 import static com.intel.cosbench.model.TaskState.FINISHED;
 
+import java.io.*;
 import java.util.Date;
 
 import com.intel.cosbench.bench.*;
 import com.intel.cosbench.controller.model.TaskContext;
-import com.intel.cosbench.protocol.QueryResponse;
+import com.intel.cosbench.protocol.*;
 import com.intel.cosbench.service.CancelledException;
 
 /**
  * The class encapsulates how to handle query request/response, internally, it
- * issues command to query driver to get performance snapshot.
+ * asks the driver to stream performance snapshots, and falls back to querying
+ * them every interval if the driver cannot.
  * 
  * @author ywang19, qzheng7
  * 
@@ -42,6 +44,8 @@ class Querier extends AbstractCommandTasklet<QueryResponse> {
     @Override
     protected void execute() {
         String id = context.getMissionId();
+        if (streamSnapshots(id))
+            return;
         do {
             sleep();
             try{
@@ -52,6 +56,42 @@ class Querier extends AbstractCommandTasklet<QueryResponse> {
         } while (!context.getState().equals(FINISHED));
     }
 
+    /**
+     * @return false if the snapshots are to be queried instead
+     */
+    private boolean streamSnapshots(String id) {
+        InputStream stream = openHttpStream("stream", id,
+                SnapshotCodec.CONTENT_TYPE);
+        if (stream == null)
+            return false;
+        try {
+            QueryResponse response;
+            while ((response = SnapshotCodec.readFrame(stream)) != null) {
+                if (Thread.interrupted())
+                    throw new CancelledException(); // task cancelled
+                handleSnapshot(response, true);
+                if (!response.isRunning())
+                    return true;
+            }
+            LOGGER.warn("snapshot stream from driver {} ended early",
+                    getDriver().getName());
+        } catch (InterruptedIOException ie) {
+            throw new CancelledException(); // task cancelled
+        } catch (IOException e) {
+            if (Thread.interrupted())
+                throw new CancelledException(); // aborted on cancel
+            LOGGER.warn("snapshot stream from driver " + getDriver().getName()
+                    + " broken", e);
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignore) {
+                /* ignore */
+            }
+        }
+        return context.getState().equals(FINISHED);
+    }
+
     private void sleep() {
         long seconds = context.getInterval();
         try {
@@ -63,6 +103,10 @@ class Querier extends AbstractCommandTasklet<QueryResponse> {
 
     @Override
     protected void handleResponse(QueryResponse response) {
+        handleSnapshot(response, false);
+    }
+
+    private void handleSnapshot(QueryResponse response, boolean streamed) {
     	if (response == null) {
     		LOGGER.warn("no response gets from driver");
     		return;
@@ -78,7 +122,10 @@ class Querier extends AbstractCommandTasklet<QueryResponse> {
         snapshot.setVersion(response.getVersion());
         snapshot.setMinVersion(response.getMinVersion());
         snapshot.setMaxVersion(response.getMaxVersion());
-        context.setSnapshot(snapshot);
+        if (streamed)
+            context.streamSnapshot(snapshot);
+        else
+            context.setSnapshot(snapshot);
     }
 
 }
@@ -54,6 +54,11 @@ class Submitter extends AbstractCommandTasklet<SubmitResponse> {
         mission.setOffset(plan.getOffset());
         mission.setInterval(work.getInterval());
         mission.setDivision(work.getDivision());
+        mission.setExecutor(work.getExecutor());
+        mission.setDepth(work.getDepth());
+        mission.setRate(work.getRate());
+        mission.setArrival(work.getArrival());
+        mission.setCap(work.getCap());
         mission.setRuntime(work.getRuntime());
         mission.setRampup(work.getRampup());
         mission.setRampdown(work.getRampdown());
@@ -17,7 +17,6 @@ limitations under the License.
 
 package com.intel.cosbench.bench;
 
-import static com.intel.cosbench.bench.Counter.*;
 import static com.intel.cosbench.bench.Metrics.newMetrics;
 
 import java.util.*;
@@ -66,6 +65,8 @@ public class Aggregator {
         metrics.setBandwidth(getBandwidth());
         metrics.setAvgResTime(getAvgResTime());
         metrics.setAvgXferTime(getAvgXferTime());
+        metrics.setAvgServiceTime(getAvgServiceTime());
+        aggregatePhases(metrics);
         metrics.setLatency(getLatency());
 		metrics.setRatio(metrics.getTotalSampleCount() > 0 ? (double) metrics
 				.getSampleCount() / metrics.getTotalSampleCount() : 0D);
@@ -104,23 +105,43 @@ public class Aggregator {
 		return sum / sampleCount;
 	}
 
+    private double getAvgServiceTime() {
+        if (sampleCount == 0)
+            return 0D;
+        double sum = 0D;
+        for (Metrics metrics : children)
+            sum += metrics.getAvgServiceTime() * metrics.getSampleCount();
+        return sum / sampleCount;
+    }
+
+    /* averages request phases over the samples which have them */
+    private void aggregatePhases(Metrics metrics) {
+        int count = 0;
+        double ct = 0D, hs = 0D, fb = 0D, tf = 0D;
+        for (Metrics child : children) {
+            int n = child.getPhaseCount();
+            count += n;
+            ct += child.getAvgConnectTime() * n;
+            hs += child.getAvgHandshakeTime() * n;
+            fb += child.getAvgFirstByteTime() * n;
+            tf += child.getAvgTransferTime() * n;
+        }
+        metrics.setPhaseCount(count);
+        if (count == 0)
+            return;
+        metrics.setAvgConnectTime(ct / count);
+        metrics.setAvgHandshakeTime(hs / count);
+        metrics.setAvgFirstByteTime(fb / count);
+        metrics.setAvgTransferTime(tf / count);
+    }
+
     private Histogram getLatency() {
         if (!containsLatency)
             return null;
-        Histogram histogram = new Histogram();
-        histogram.setHistoData(getLatencyHistoData());
-        histogram.recalcPercentiles();
-        return histogram;
-    }
-
-    private int[] getLatencyHistoData() {
-        int size = 1 + (int) (RES_MAX / RES_INT);
-        int[] data = new int[size];
+        List<Histogram> histograms = new ArrayList<Histogram>(children.size());
         for (Metrics metrics : children)
-            if (metrics.getLatency() != null)
-                for (int i = 0; i < size; i++)
-                    data[i] += metrics.getLatency().getHistoData()[i];
-        return data;
+            histograms.add(metrics.getLatency());
+        return Histogram.merge(histograms);
     }
 
 }
@@ -17,9 +17,16 @@ limitations under the License.
 
 package com.intel.cosbench.bench;
 
+import java.util.*;
+
 /**
  * This class encapsulates calculation of different percentiles, 
- * so far it supports 60/80/90/95/99/100 percentiles.
+ * so far it supports 50/60/80/90/95/99/99.9/100 percentiles, all of them are
+ * response time ranges in microseconds.
+ * <p>
+ * The raw data is sparse: only non-zero buckets are kept, as ascending bucket
+ * indexes with their counts, so copying and merging histograms costs as much
+ * as the buckets actually populated.
  * 
  * @author ywang19, qzheng7
  *
@@ -28,21 +35,32 @@ public class Histogram implements Cloneable {
 
     /* Percentile */
 
+    private long[] _50; /* 50% */
     private long[] _60; /* 60% */
     private long[] _80; /* 80% */
     private long[] _90; /* 90% */
     private long[] _95; /* 95% */
     private long[] _99; /* 99% */
+    private long[] _999; /* 99.9% */
     private long[] _100; /* 100% */
 
     /* Raw Data */
 
-    private int[] histoData; /* raw histogram data */
+    private int[] buckets; /* indexes of non-zero buckets, ascending */
+    private int[] counts; /* counts of those buckets */
 
     public Histogram() {
         /* empty */
     }
 
+    public long[] get_50() {
+        return _50;
+    }
+
+    public void set_50(long[] _50) {
+        this._50 = _50;
+    }
+
     public long[] get_60() {
         return _60;
     }
@@ -83,6 +101,14 @@ public class Histogram implements Cloneable {
         this._99 = _99;
     }
 
+    public long[] get_999() {
+        return _999;
+    }
+
+    public void set_999(long[] _999) {
+        this._999 = _999;
+    }
+
     public long[] get_100() {
         return _100;
     }
@@ -91,62 +117,118 @@ public class Histogram implements Cloneable {
         this._100 = _100;
     }
 
-    public int[] getHistoData() {
-        return histoData;
+    public int[] getBuckets() {
+        return buckets;
     }
 
+    public void setBuckets(int[] buckets) {
+        this.buckets = buckets;
+    }
+
+    public int[] getCounts() {
+        return counts;
+    }
+
+    public void setCounts(int[] counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * Sets the raw data from dense bucket counts, as sent by older drivers.
+     */
     public void setHistoData(int[] histoData) {
-        this.histoData = histoData;
+        if (histoData == null) {
+            discardData();
+            return;
+        }
+        int size = 0;
+        for (int count : histoData)
+            if (count != 0)
+                size++;
+        buckets = new int[size];
+        counts = new int[size];
+        for (int i = 0, j = 0; i < histoData.length; i++)
+            if (histoData[i] != 0) {
+                buckets[j] = i;
+                counts[j++] = histoData[i];
+            }
+    }
+
+    public boolean hasData() {
+        return buckets != null;
     }
 
     /**
-     * The method calculates 60/80/90/95/99 percentiles.
+     * Drops the raw data, keeping only the percentiles.
+     */
+    public void discardData() {
+        buckets = null;
+        counts = null;
+    }
+
+    public long calcTotalCount() {
+        long total = 0;
+        for (int i = 0; counts != null && i < counts.length; i++)
+            total += counts[i];
+        return total;
+    }
+
+    /**
+     * The method calculates 50/60/80/90/95/99/99.9 percentiles.
      * 
      * @param 
      * @return	
      */
     public void recalcPercentiles() {
-        int curr = 0;
-        int total = calcTotalCount();
+        long curr = 0;
+        long total = calcTotalCount();
 
         if (total == 0)
             return;
 
-        // define thresholds
-        final int T_99 = (int) (total * 0.99);
-        final int T_95 = (int) (total * 0.95);
-        final int T_90 = (int) (total * 0.90);
-        final int T_80 = (int) (total * 0.80);
-        final int T_60 = (int) (total * 0.60);
+        // define thresholds, as nearest ranks
+        final long T_999 = rank(total, 999);
+        final long T_99 = rank(total, 990);
+        final long T_95 = rank(total, 950);
+        final long T_90 = rank(total, 900);
+        final long T_80 = rank(total, 800);
+        final long T_60 = rank(total, 600);
+        final long T_50 = rank(total, 500);
 
         // calculate percentiles
-        for (int i = 0; i < histoData.length; i++) {
-            curr += histoData[i];
+        for (int j = 0; j < buckets.length; j++) {
+            int i = buckets[j];
+            curr += counts[j];
 
+            if (curr >= T_999 && _999 == null)
+                _999 = LatencyRecorder.getResTime(i);
             if (curr >= T_99 && _99 == null)
-                _99 = Counter.getResTime(i);
+                _99 = LatencyRecorder.getResTime(i);
             if (curr >= T_95 && _95 == null)
-                _95 = Counter.getResTime(i);
+                _95 = LatencyRecorder.getResTime(i);
             if (curr >= T_90 && _90 == null)
-                _90 = Counter.getResTime(i);
+                _90 = LatencyRecorder.getResTime(i);
             if (curr >= T_80 && _80 == null)
-                _80 = Counter.getResTime(i);
+                _80 = LatencyRecorder.getResTime(i);
             if (curr >= T_60 && _60 == null)
-                _60 = Counter.getResTime(i);
+                _60 = LatencyRecorder.getResTime(i);
+            if (curr >= T_50 && _50 == null)
+                _50 = LatencyRecorder.getResTime(i);
 
             if (curr >= total) {
-                _100 = Counter.getResTime(i);
+                _100 = LatencyRecorder.getResTime(i);
                 break;
             }
 
         }
     }
 
-    private int calcTotalCount() {
-        int total = 0;
-        for (int i = 0; i < histoData.length; i++)
-            total += histoData[i];
-        return total;
+    /*
+     * Returns ceil(total * permille / 1000) but at least 1, in integers so
+     * that no rounding error moves it up one sample.
+     */
+    private static long rank(long total, int permille) {
+        return Math.max(1L, (total * permille + 999) / 1000);
     }
 
     @Override
@@ -158,18 +240,79 @@ public class Histogram implements Cloneable {
         return this;
     }
 
-    public static Histogram convert(Counter counter) {
+    public static Histogram convert(LatencyRecorder recorder) {
+        Histogram histogram = new Histogram();
+        histogram.setHistoData(recorder.getCounts());
+        histogram.recalcPercentiles();
+        return histogram;
+    }
+
+    /**
+     * Merges the raw data of several histograms into a new one, in a single
+     * k-way pass over their populated buckets; a heap of the histograms keyed
+     * by their next bucket picks the smallest one.
+     */
+    public static Histogram merge(List<Histogram> histograms) {
+        Histogram[] parts = new Histogram[histograms.size()];
+        int n = 0, size = 0;
+        for (Histogram histogram : histograms)
+            if (histogram != null && histogram.hasData()
+                    && histogram.buckets.length > 0) {
+                parts[n++] = histogram;
+                size += histogram.buckets.length;
+            }
+        int[] buckets = new int[size];
+        int[] counts = new int[size];
+        int[] heap = new int[n]; /* indexes of parts */
+        int[] next = new int[n]; /* next position in each part */
+        for (int i = 0; i < n; i++)
+            heap[i] = i;
+        for (int i = n / 2 - 1; i >= 0; i--)
+            siftDown(heap, n, i, parts, next);
+        int k = -1;
+        while (n > 0) {
+            int p = heap[0];
+            int bucket = parts[p].buckets[next[p]];
+            if (k >= 0 && buckets[k] == bucket) {
+                counts[k] += parts[p].counts[next[p]];
+            } else {
+                buckets[++k] = bucket;
+                counts[k] = parts[p].counts[next[p]];
+            }
+            if (++next[p] == parts[p].buckets.length)
+                heap[0] = heap[--n]; /* this part is done */
+            siftDown(heap, n, 0, parts, next);
+        }
         Histogram histogram = new Histogram();
-        histogram.setHistoData(retrieveData(counter));
+        histogram.setBuckets(k + 1 == size ? buckets : Arrays.copyOf(buckets,
+                k + 1));
+        histogram.setCounts(k + 1 == size ? counts : Arrays.copyOf(counts,
+                k + 1));
         histogram.recalcPercentiles();
         return histogram;
     }
 
-    private static int[] retrieveData(Counter counter) {
-        int size = counter.size();
-        int[] data = new int[size];
-        for (int i = 0; i < size; i++)
-            data[i] = counter.get(i);
-        return data;
+    private static void siftDown(int[] heap, int n, int i, Histogram[] parts,
+            int[] next) {
+        while (true) {
+            int min = i, l = 2 * i + 1, r = l + 1;
+            if (l < n && headOf(heap[l], parts, next) < headOf(heap[min],
+                    parts, next))
+                min = l;
+            if (r < n && headOf(heap[r], parts, next) < headOf(heap[min],
+                    parts, next))
+                min = r;
+            if (min == i)
+                return;
+            int tmp = heap[i];
+            heap[i] = heap[min];
+            heap[min] = tmp;
+            i = min;
+        }
     }
+
+    private static int headOf(int p, Histogram[] parts, int[] next) {
+        return parts[p].buckets[next[p]];
+    }
+
 }
@@ -0,0 +1,121 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.bench;
+
+/**
+ * The class encapsulates the sample counting of response time histogram with a log-linear bucket
+ * layout: values below 64 microseconds get their own bucket, and every power-of-two range above
+ * that is split into 32 equal buckets, which keeps the relative error under 3% from 1 microsecond
+ * up to the 19 hours upper limit.
+ * <p>
+ * One recorder is owned by one worker, so recording is a plain array increment without any
+ * synchronization; recorders from different workers are merged once the report is generated.
+ *
+ * @author ywang19, qzheng7
+ *
+ */
+public class LatencyRecorder {
+
+    /* bits of the linear sub-buckets in each power-of-two range */
+    public final static int SUB_BITS = 6;
+
+    /* bits of the upper limit in microseconds */
+    public final static int MAX_BITS = 36;
+
+    /* limit for the response time histogram */
+    public final static long RES_MAX = 1L << MAX_BITS; // ~19 hours
+
+    /* number of buckets */
+    public final static int SIZE = (MAX_BITS - SUB_BITS + 2) << (SUB_BITS - 1);
+
+    /* the index of upper limit */
+    public final static int UL = SIZE - 1;
+
+    private int[] counts = new int[SIZE];
+
+    public LatencyRecorder() {
+        /* empty */
+    }
+
+    public int size() {
+        return counts.length;
+    }
+
+    public int get(int index) {
+        return counts[index];
+    }
+
+    public int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * The method counts the time to corresponding bucket.
+     *
+     * @param time	the response time in microseconds
+     */
+    public void record(long time) {
+        counts[getIndex(time)]++;
+    }
+
+    /**
+     * The method adds the counts from another recorder into this one.
+     *
+     * @param other	the recorder to be merged
+     */
+    public void add(LatencyRecorder other) {
+        add(other.counts);
+    }
+
+    public void add(int[] data) {
+        int size = Math.min(counts.length, data.length);
+        for (int i = 0; i < size; i++)
+            counts[i] += data[i];
+    }
+
+    public void clear() {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = 0;
+    }
+
+    public static int getIndex(long time) {
+        if (time < (1L << SUB_BITS))
+            return time < 0 ? 0 : (int) time;
+        if (time >= RES_MAX)
+            return UL;
+        int shift = 63 - Long.numberOfLeadingZeros(time) - (SUB_BITS - 1);
+        return (shift << (SUB_BITS - 1)) + (int) (time >>> shift);
+    }
+
+    /**
+     * The method returns the response time range of one bucket.
+     *
+     * @param index	the bucket index
+     * @return	the lower (inclusive) and upper (exclusive) bounds in microseconds
+     */
+    public static long[] getResTime(int index) {
+        if (index < (1 << SUB_BITS))
+            return new long[] { index, index + 1 };
+        int shift = (index >> (SUB_BITS - 1)) - 1;
+        long sub = index - (shift << (SUB_BITS - 1));
+        if (index >= UL)
+            return new long[] { sub << shift, Long.MAX_VALUE };
+        return new long[] { sub << shift, (sub + 1) << shift };
+    }
+
+}
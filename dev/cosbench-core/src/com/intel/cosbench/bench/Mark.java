@@ -42,8 +42,17 @@ public class Mark implements Cloneable, Item {
 
     private long rtSum; /* total response time */
     private long xtSum; /* total transfer time */
+    private long stSum; /* total service time */
     private long byteCount; /* total bytes transferred */
 
+    private int phaseCount; /* number of successful samples with phases */
+    private long ctSum; /* total connect time, in microseconds */
+    private long hsSum; /* total handshake time, in microseconds */
+    private long fbSum; /* total time to first byte, in microseconds */
+    private long tfSum; /* total request transfer time, in microseconds */
+
+    private LatencyRecorder recorder; /* response time histogram, optional */
+
     public Mark() {
         /* empty */
     }
@@ -137,6 +146,14 @@ public class Mark implements Cloneable, Item {
 		this.xtSum = xtSum;
 	}
 
+    public long getStSum() {
+        return stSum;
+    }
+
+    public void setStSum(long stSum) {
+        this.stSum = stSum;
+    }
+
     public long getByteCount() {
         return byteCount;
     }
@@ -145,6 +162,54 @@ public class Mark implements Cloneable, Item {
         this.byteCount = byteCount;
     }
 
+    public int getPhaseCount() {
+        return phaseCount;
+    }
+
+    public void setPhaseCount(int phaseCount) {
+        this.phaseCount = phaseCount;
+    }
+
+    public long getCtSum() {
+        return ctSum;
+    }
+
+    public void setCtSum(long ctSum) {
+        this.ctSum = ctSum;
+    }
+
+    public long getHsSum() {
+        return hsSum;
+    }
+
+    public void setHsSum(long hsSum) {
+        this.hsSum = hsSum;
+    }
+
+    public long getFbSum() {
+        return fbSum;
+    }
+
+    public void setFbSum(long fbSum) {
+        this.fbSum = fbSum;
+    }
+
+    public long getTfSum() {
+        return tfSum;
+    }
+
+    public void setTfSum(long tfSum) {
+        this.tfSum = tfSum;
+    }
+
+    public LatencyRecorder getRecorder() {
+        return recorder;
+    }
+
+    public void setRecorder(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
     public void clear() {
         opCount = 0;
         sampleCount = 0;
@@ -152,7 +217,12 @@ public class Mark implements Cloneable, Item {
         totalSampleCount = 0;
         rtSum = 0;
         xtSum = 0;
+        stSum = 0;
         byteCount = 0;
+        phaseCount = 0;
+        ctSum = hsSum = fbSum = tfSum = 0;
+        if (recorder != null)
+            recorder.clear();
     }
 
     public void addSample(Sample sample) {
@@ -161,7 +231,17 @@ public class Mark implements Cloneable, Item {
             sampleCount += 1;
             rtSum += sample.getTime();
             xtSum += sample.getXferTime();
+            stSum += sample.getServiceTime();
             byteCount += sample.getBytes();
+            if (sample.isPhased()) {
+                phaseCount += 1;
+                ctSum += sample.getConnectNanos() / 1000;
+                hsSum += sample.getHandshakeNanos() / 1000;
+                fbSum += sample.getFirstByteNanos() / 1000;
+                tfSum += sample.getTransferNanos() / 1000;
+            }
+            if (recorder != null)
+                recorder.record(sample.getTimeNanos() / 1000);
         }
         
         totalSampleCount += 1;
@@ -48,6 +48,12 @@ public class Metrics implements Item, Cloneable {
     
     private double avgResTime; /* average response time */
     private double avgXferTime; /* average transfer time */
+    private double avgServiceTime; /* average service time */
+    private int phaseCount; /* number of samples with request phases */
+    private double avgConnectTime; /* average connect time */
+    private double avgHandshakeTime; /* average TLS handshake time */
+    private double avgFirstByteTime; /* average time to first byte */
+    private double avgTransferTime; /* average request transfer time */
     private double throughput; /* operation throughput */
     private double bandwidth; /* network bandwidth */
 
@@ -150,6 +156,54 @@ public class Metrics implements Item, Cloneable {
     	this.avgXferTime = avgXferTime;
     }
     
+    public double getAvgServiceTime() {
+        return avgServiceTime;
+    }
+
+    public void setAvgServiceTime(double avgServiceTime) {
+        this.avgServiceTime = avgServiceTime;
+    }
+
+    public int getPhaseCount() {
+        return phaseCount;
+    }
+
+    public void setPhaseCount(int phaseCount) {
+        this.phaseCount = phaseCount;
+    }
+
+    public double getAvgConnectTime() {
+        return avgConnectTime;
+    }
+
+    public void setAvgConnectTime(double avgConnectTime) {
+        this.avgConnectTime = avgConnectTime;
+    }
+
+    public double getAvgHandshakeTime() {
+        return avgHandshakeTime;
+    }
+
+    public void setAvgHandshakeTime(double avgHandshakeTime) {
+        this.avgHandshakeTime = avgHandshakeTime;
+    }
+
+    public double getAvgFirstByteTime() {
+        return avgFirstByteTime;
+    }
+
+    public void setAvgFirstByteTime(double avgFirstByteTime) {
+        this.avgFirstByteTime = avgFirstByteTime;
+    }
+
+    public double getAvgTransferTime() {
+        return avgTransferTime;
+    }
+
+    public void setAvgTransferTime(double avgTransferTime) {
+        this.avgTransferTime = avgTransferTime;
+    }
+
     public double getThroughput() {
         return throughput;
     }
@@ -212,6 +266,7 @@ public class Metrics implements Item, Cloneable {
         int tsps = mark.getTotalSampleCount();
         long rtSum = mark.getRtSum();
         long xtSum = mark.getXtSum();
+        long stSum = mark.getStSum();
         long bytes = mark.getByteCount();
 		String type = getMetricsType(mark.getOpId(), mark.getOpType(),
 				mark.getSampleType(), mark.getOpName());
@@ -224,8 +279,19 @@ public class Metrics implements Item, Cloneable {
         metrics.setWorkerCount(1);
         metrics.setAvgResTime(rtSum > 0 ? ((double) rtSum) / sps : 0);
         metrics.setAvgXferTime(xtSum > 0 ? ((double) xtSum) / sps : 0);
+        metrics.setAvgServiceTime(stSum > 0 ? ((double) stSum) / sps : 0);
+        int pps = mark.getPhaseCount();
+        metrics.setPhaseCount(pps);
+        if (pps > 0) { // microseconds to milliseconds
+            metrics.setAvgConnectTime(mark.getCtSum() / 1000D / pps);
+            metrics.setAvgHandshakeTime(mark.getHsSum() / 1000D / pps);
+            metrics.setAvgFirstByteTime(mark.getFbSum() / 1000D / pps);
+            metrics.setAvgTransferTime(mark.getTfSum() / 1000D / pps);
+        }
         metrics.setThroughput(sps > 0 ? ((double) sps) / window * 1000 : 0);
         metrics.setBandwidth(bytes > 0 ? ((double) bytes) / window * 1000 : 0);
+        if (mark.getRecorder() != null)
+            metrics.setLatency(Histogram.convert(mark.getRecorder()));
         return metrics;
     }
 
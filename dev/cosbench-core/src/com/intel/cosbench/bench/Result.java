@@ -17,17 +17,17 @@ limitations under the License.
 
 package com.intel.cosbench.bench;
 
-import java.util.Date;
-
 /**
  * This class encapsulates the returned result for one operation.
+ * <p>
+ * Like {@link Sample}, one result is owned by one worker and reused for each operation.
  * 
  * @author ywang19, qzheng7
  *
  */
 public class Result {
 
-    private Date timestamp;
+    private long timestamp; /* in nanoseconds, from System.nanoTime() */
 
     private boolean succ;
     private String opType;
@@ -35,7 +35,16 @@ public class Result {
     private String opName;
     private String opId;
 
-	public Result(Date timestamp, String opId, String opType,
+	public Result() {
+		/* empty */
+	}
+
+	public Result(long timestamp, String opId, String opType,
+			String sampleType, String opName, boolean succ) {
+		reset(timestamp, opId, opType, sampleType, opName, succ);
+	}
+
+	public Result reset(long timestamp, String opId, String opType,
 			String sampleType, String opName, boolean succ) {
 		this.timestamp = timestamp;
 		this.succ = succ;
@@ -43,13 +52,14 @@ public class Result {
 		this.sampleType = sampleType;
 		this.opName = opName;
 		this.opId = opId;
+		return this;
 	}
 
-    public Date getTimestamp() {
+    public long getTimestamp() {
         return timestamp;
     }
 
-    public void setTimestamp(Date timestamp) {
+    public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
 
@@ -17,17 +17,19 @@ limitations under the License.
 
 package com.intel.cosbench.bench;
 
-import java.util.Date;
-
 /**
  * This class encapsulates the performance sample of one operation.
+ * <p>
+ * One sample is owned by one worker and re-initialized through <code>reset</code> for each
+ * operation, so no object is allocated on the hot path; the timestamp is taken from the
+ * monotonic <code>System.nanoTime()</code> clock instead of the wall clock.
  * 
  * @author ywang19, qzheng7
  *
  */
 public class Sample {
 
-    private Date timestamp;
+    private long timestamp; /* in nanoseconds, from System.nanoTime() */
 
     private String opName;
     private boolean succ;
@@ -35,30 +37,62 @@ public class Sample {
     private String opId;
     private String sampleType;
 
-    private long time; /* response time */
+    private long timeNanos; /* response time in nanoseconds */
+    private long serviceNanos; /* service time in nanoseconds */
     private long xferTime; /* transfer time */
     private long bytes; /* bytes transferred */
 
-	public Sample(Date timestamp, String opId, String opType,
+    /* request phases in nanoseconds, if reported by the storage */
+    private boolean phased;
+    private long connectNanos;
+    private long handshakeNanos;
+    private long firstByteNanos;
+    private long transferNanos;
+
+	public Sample() {
+		/* empty */
+	}
+
+	public Sample(long timestamp, String opId, String opType,
 			String sampleType, String opName, boolean succ) {
 		this(timestamp, opId, opType, sampleType, opName, succ, 0L, 0L, 0L);
     }
 
-	public Sample(Date timestamp, String opId, String opType,
-			String sampleType, String opName, boolean succ, long time, long xferTime,
-			long bytes) {
+	public Sample(long timestamp, String opId, String opType,
+			String sampleType, String opName, boolean succ, long timeNanos,
+			long xferTime, long bytes) {
+		reset(timestamp, opId, opType, sampleType, opName, succ, timeNanos,
+				xferTime, bytes);
+	}
+
+	/**
+	 * The method re-initializes this sample so that it can be reused for the
+	 * next operation.
+	 * 
+	 * @param timestamp	the completion time in nanoseconds
+	 * @param timeNanos	the response time in nanoseconds
+	 * @return this sample
+	 */
+	public Sample reset(long timestamp, String opId, String opType,
+			String sampleType, String opName, boolean succ, long timeNanos,
+			long xferTime, long bytes) {
 		this.timestamp = timestamp;
 		this.succ = succ;
-		this.time = time;
+		this.timeNanos = timeNanos;
+		this.serviceNanos = timeNanos;
 		this.xferTime = xferTime;
 		this.bytes = bytes;
+		this.phased = false;
+		this.connectNanos = this.handshakeNanos = 0L;
+		this.firstByteNanos = this.transferNanos = 0L;
 		this.opType = opType;
 		this.sampleType = sampleType;
 		this.opName = opName;
 		this.opId = opId;
+		return this;
 	}
 
-    public Date getTimestamp() {
+    public long getTimestamp() {
         return timestamp;
     }
     
@@ -70,7 +104,7 @@ public class Sample {
 		return opId;
 	}
 
-    public void setTimestamp(Date timestamp) {
+    public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
 
@@ -98,12 +132,44 @@ public class Sample {
         this.sampleType = sampleType;
     }
 
+    /* response time in milliseconds */
     public long getTime() {
-        return time;
+        return timeNanos / 1000000;
     }
 
     public void setTime(long time) {
-        this.time = time;
+        this.timeNanos = this.serviceNanos = time * 1000000;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public void setTimeNanos(long timeNanos) {
+        this.timeNanos = this.serviceNanos = timeNanos;
+    }
+
+    /* service time in milliseconds */
+    public long getServiceTime() {
+        return serviceNanos / 1000000;
+    }
+
+    public long getServiceNanos() {
+        return serviceNanos;
+    }
+
+    /**
+     * The method measures the response time from the time the operation was
+     * intended to start rather than the time it actually started, so that an
+     * operation held back by earlier ones in open-loop mode is charged for its
+     * wait. The time taken from the actual start is kept as service time.
+     * 
+     * @param intended	the intended start time in nanoseconds
+     */
+    public void setIntendedStart(long intended) {
+        long time = timestamp - intended;
+        if (time > timeNanos)
+            timeNanos = time;
     }
 
     public long getXferTime() {
@@ -122,4 +188,38 @@ public class Sample {
         this.bytes = bytes;
     }
 
+    /* whether the request phases below are known */
+    public boolean isPhased() {
+        return phased;
+    }
+
+    /**
+     * The method records how long the phases of the requests made for this
+     * operation took, all in nanoseconds.
+     */
+    public void setPhases(long connect, long handshake, long firstByte,
+            long transfer) {
+        this.phased = true;
+        this.connectNanos = connect;
+        this.handshakeNanos = handshake;
+        this.firstByteNanos = firstByte;
+        this.transferNanos = transfer;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getHandshakeNanos() {
+        return handshakeNanos;
+    }
+
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    public long getTransferNanos() {
+        return transferNanos;
+    }
+
 }
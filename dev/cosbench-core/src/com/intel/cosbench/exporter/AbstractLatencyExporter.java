@@ -18,12 +18,14 @@ limitations under the License.
 package com.intel.cosbench.exporter;
 
 import java.io.*;
+import java.util.*;
 
 import com.intel.cosbench.bench.*;
-import com.intel.cosbench.model.WorkloadInfo;
+import com.intel.cosbench.model.*;
 
 /**
- * This class is the base class for exporting response time histogram.
+ * This class is the base class for exporting response time histogram. Only
+ * buckets populated in some stage are exported.
  * 
  * @author ywang19, qzheng7
  *
@@ -32,6 +34,7 @@ abstract class AbstractLatencyExporter implements LatencyExporter {
 
     protected int[] accs;
     protected int[] sums;
+    private int[] cursors; /* next populated bucket of each stage metrics */
 
     protected WorkloadInfo workload;
 
@@ -47,7 +50,6 @@ abstract class AbstractLatencyExporter implements LatencyExporter {
     public void export(Writer writer) throws IOException {
         writeHeader(writer);
         writer.flush();
-        int size = 1 + Counter.UL;
         Report report = workload.getReport();
         int metricsIdx = 0;
         int metricsNum = report.getSize();
@@ -57,16 +59,40 @@ abstract class AbstractLatencyExporter implements LatencyExporter {
             int sum = 0;
             if(metrics.getLatency() == null)
             	continue;
-            int[] data = metrics.getLatency().getHistoData();
-            for (int idx = 0; idx < size; idx++)
-                sum += data[idx];
+            sum = (int) metrics.getLatency().calcTotalCount();
             sums[metricsIdx++] = sum;
         }
-        for (int idx = 0; idx < size; idx++)
+        int stageMetrics = 0;
+        SortedSet<Integer> populated = new TreeSet<Integer>();
+        for (StageInfo stage : workload.getStageInfos())
+            for (Metrics metrics : stage.getReport()) {
+                stageMetrics++;
+                Histogram latency = metrics.getLatency();
+                if (latency != null && latency.hasData())
+                    for (int idx : latency.getBuckets())
+                        populated.add(idx);
+            }
+        cursors = new int[stageMetrics];
+        for (int idx : populated)
             writeHistogram(writer, idx);
         writer.flush();
     }
 
+    /**
+     * Returns the count of one bucket, for buckets asked in ascending order.
+     */
+    protected int getCount(Histogram latency, int metricsIdx, int idx) {
+        if (latency == null || !latency.hasData())
+            return 0;
+        int[] buckets = latency.getBuckets();
+        int pos = cursors[metricsIdx];
+        while (pos < buckets.length && buckets[pos] < idx)
+            pos++;
+        cursors[metricsIdx] = pos;
+        return pos < buckets.length && buckets[pos] == idx ? latency
+                .getCounts()[pos] : 0;
+    }
+
     protected abstract void writeHeader(Writer writer) throws IOException;
 
     protected abstract void writeHistogram(Writer writer, int idx)
@@ -18,6 +18,7 @@ limitations under the License.
 package com.intel.cosbench.exporter;
 
 import java.io.*;
+import java.util.Iterator;
 
 import com.intel.cosbench.bench.Snapshot;
 import com.intel.cosbench.model.StageInfo;
@@ -33,7 +34,7 @@ abstract class AbstractStageExporter implements StageExporter {
     protected StageInfo stage;
 
     protected int numOpTypes;
-    protected Snapshot[] snapshots;
+    protected Snapshot first; /* decides the columns */
 
     public AbstractStageExporter() {
         /* empty */
@@ -45,20 +46,22 @@ abstract class AbstractStageExporter implements StageExporter {
 
     @Override
     public void export(Writer writer) throws IOException {
-        if ((snapshots = stage.getSnapshots()) == null)
+        /* read through a cursor, snapshots may be spilled to disk */
+        Iterator<Snapshot> cursor = stage.getSnapshotRegistry().iterator();
+        if (!cursor.hasNext())
             return;
-        if (snapshots.length == 0)
+        if ((numOpTypes = (first = cursor.next()).getReport().getSize()) == 0)
             return;
-        if ((numOpTypes = snapshots[0].getReport().getSize()) == 0)
-            return;
-        writeReport(writer);
+        writeReport(writer, cursor);
     }
 
-    private void writeReport(Writer writer) throws IOException {
+    private void writeReport(Writer writer, Iterator<Snapshot> cursor)
+            throws IOException {
         writeHeader(writer);
         writer.flush();
-        for (Snapshot snapshot : snapshots)
-            writeMetrics(writer, snapshot);
+        writeMetrics(writer, first);
+        while (cursor.hasNext())
+            writeMetrics(writer, cursor.next());
         writer.flush();
     }
 
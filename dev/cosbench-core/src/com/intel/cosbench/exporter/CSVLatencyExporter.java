@@ -36,7 +36,7 @@ class CSVLatencyExporter extends AbstractLatencyExporter {
     @Override
     protected void writeHeader(Writer writer) throws IOException {
         StringBuilder buffer = new StringBuilder();
-        buffer.append("ResTime").append(',');
+        buffer.append("ResTime(us)").append(',');
         for (StageInfo stage : workload.getStageInfos()) {
         	writeOpType(buffer, stage);
         }
@@ -68,7 +68,7 @@ class CSVLatencyExporter extends AbstractLatencyExporter {
     @Override
     protected void writeHistogram(Writer writer, int idx) throws IOException {
         StringBuilder buffer = new StringBuilder();
-        long[] resTime = Counter.getResTime(idx);
+        long[] resTime = LatencyRecorder.getResTime(idx);
         buffer.append(resTime[0]).append('~');
         if (resTime[1] < Long.MAX_VALUE)
             buffer.append(resTime[1]);
@@ -82,7 +82,7 @@ class CSVLatencyExporter extends AbstractLatencyExporter {
         		if (!metrics.getOpName().equals(metrics.getSampleType()) || metrics.getLatency() == null) {
         			continue; /*skip for special work*/
         		}
-        		int count = metrics.getLatency().getHistoData()[idx];
+        		int count = getCount(metrics.getLatency(), metricsIdx, idx);
         		buffer.append(count).append(',');
         		accs[metricsIdx] += count;
         		double per = sums[metricsIdx] != 0 ?
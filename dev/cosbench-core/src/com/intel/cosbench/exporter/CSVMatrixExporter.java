@@ -124,7 +124,7 @@ class CSVMatrixExporter extends AbstractMatrixExporter {
         if (resTime == null)
             buffer.append("N/A");
         else
-            buffer.append(resTime[1]);
+            buffer.append(NUM.format(resTime[1] / 1000D)); // to millisecond
         buffer.append(',');
     }
 
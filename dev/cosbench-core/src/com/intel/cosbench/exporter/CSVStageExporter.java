@@ -52,10 +52,20 @@ class CSVStageExporter extends AbstractStageExporter {
         buffer.append("Bandwidth").append(suffix);
         buffer.append("Succ-Ratio").append(suffix);
         buffer.append("Version-Info");
-        buffer.append(',').append(',').append('\n').append(',');
+        buffer.append(',').append(',').append(',');
+        buffer.append("50%-ResTime").append(suffix);
+        buffer.append("90%-ResTime").append(suffix);
+        buffer.append("99%-ResTime").append(suffix);
+        buffer.append("99.9%-ResTime").append(suffix);
+        buffer.append("Avg-ServiceTime").append(suffix);
+        buffer.append("Avg-ConnectTime").append(suffix);
+        buffer.append("Avg-HandshakeTime").append(suffix);
+        buffer.append("Avg-FirstByteTime").append(suffix);
+        buffer.append("Avg-TransferTime");
+        buffer.append('\n').append(',');
         for (int i = 0; i < 7; i++)
             // 7 metrics
-            for (Metrics metrics : snapshots[0].getReport())
+            for (Metrics metrics : first.getReport())
 				buffer.append(
 						StringUtils.join(new Object[] {
 								(metrics.getOpName().equals(
@@ -64,7 +74,17 @@ class CSVStageExporter extends AbstractStageExporter {
 								metrics.getSampleType() })).append(',');
         buffer.append("Min-Version").append(','); 
         buffer.append("Version").append(',');
-        buffer.append("Max-Version").append('\n');
+        buffer.append("Max-Version").append(',');
+        for (int i = 0; i < 9; i++)
+            // 4 percentiles, service time and 4 request phases
+            for (Metrics metrics : first.getReport())
+				buffer.append(
+						StringUtils.join(new Object[] {
+								(metrics.getOpName().equals(
+										metrics.getSampleType()) ? null
+										: metrics.getOpName() + "-"),
+								metrics.getSampleType() })).append(',');
+        buffer.setCharAt(buffer.length() - 1, '\n');
         writer.write(buffer.toString());
     }
 
@@ -121,8 +141,57 @@ class CSVStageExporter extends AbstractStageExporter {
         /* Version Info */
         buffer.append(snapshot.getMinVersion()).append(',');
         buffer.append(snapshot.getVersion()).append(',');
-        buffer.append(snapshot.getMaxVersion()).append('\n');
+        buffer.append(snapshot.getMaxVersion()).append(',');
+        /* Interval Percentiles */
+        for (Metrics metrics : report)
+            writePercentileRT(buffer, metrics.getLatency() != null ? metrics
+                    .getLatency().get_50() : null);
+        for (Metrics metrics : report)
+            writePercentileRT(buffer, metrics.getLatency() != null ? metrics
+                    .getLatency().get_90() : null);
+        for (Metrics metrics : report)
+            writePercentileRT(buffer, metrics.getLatency() != null ? metrics
+                    .getLatency().get_99() : null);
+        for (Metrics metrics : report)
+            writePercentileRT(buffer, metrics.getLatency() != null ? metrics
+                    .getLatency().get_999() : null);
+        /* Service Time */
+        for (Metrics metrics : report) {
+            double st = metrics.getAvgServiceTime();
+            if (st > 0)
+                buffer.append(NUM.format(st));
+            else
+                buffer.append("N/A");
+            buffer.append(',');
+        }
+        /* Request Phases */
+        for (Metrics metrics : report)
+            writePhase(buffer, metrics, metrics.getAvgConnectTime());
+        for (Metrics metrics : report)
+            writePhase(buffer, metrics, metrics.getAvgHandshakeTime());
+        for (Metrics metrics : report)
+            writePhase(buffer, metrics, metrics.getAvgFirstByteTime());
+        for (Metrics metrics : report)
+            writePhase(buffer, metrics, metrics.getAvgTransferTime());
+        buffer.setCharAt(buffer.length() - 1, '\n');
         writer.write(buffer.toString());
     }
 
+    private static void writePhase(StringBuilder buffer, Metrics metrics,
+            double time) {
+        if (metrics.getPhaseCount() > 0)
+            buffer.append(NUM.format(time));
+        else
+            buffer.append("N/A");
+        buffer.append(',');
+    }
+
+    private static void writePercentileRT(StringBuilder buffer, long[] resTime) {
+        if (resTime == null)
+            buffer.append("N/A");
+        else
+            buffer.append(NUM.format(resTime[1] / 1000D)); // to millisecond
+        buffer.append(',');
+    }
+
 }
@@ -52,6 +52,11 @@ class CSVWorkloadExporter extends AbstractWorkloadExporter {
         buffer.append("Throughput").append(',');
         buffer.append("Bandwidth").append(',');
         buffer.append("Succ-Ratio").append(',');
+        buffer.append("Avg-ConnectTime").append(',');
+        buffer.append("Avg-HandshakeTime").append(',');
+        buffer.append("Avg-FirstByteTime").append(',');
+        buffer.append("Avg-TransferTime").append(',');
+        buffer.append("Search").append(',');
         buffer.append("Status").append(',');
         buffer.append("Detailed Status").append('\n');
         writer.write(buffer.toString());
@@ -94,6 +99,8 @@ class CSVWorkloadExporter extends AbstractWorkloadExporter {
             buffer.append(RATIO.format(metrics.getRatio())).append(',');
         else
             buffer.append("N/A").append(',');
+        writePhases(buffer, metrics);
+        writeSearchResult(buffer, stage);
         buffer.append(stage.getState().name().toLowerCase()).append(',');
         for (StateInfo state : stage.getStateHistory()) {
 			buffer.append(
@@ -124,6 +131,11 @@ class CSVWorkloadExporter extends AbstractWorkloadExporter {
          buffer.append("N/A").append(',');
          buffer.append("N/A").append(',');
          buffer.append("N/A").append(',');
+         buffer.append("N/A").append(',');
+         buffer.append("N/A").append(',');
+         buffer.append("N/A").append(',');
+         buffer.append("N/A").append(',');
+         writeSearchResult(buffer, stage);
          buffer.append(stage.getState().name().toLowerCase()).append(',');
          for (StateInfo state : stage.getStateHistory()) {
  			buffer.append(
@@ -134,6 +146,24 @@ class CSVWorkloadExporter extends AbstractWorkloadExporter {
          writer.write(buffer.toString());
     }
 
+    private static void writePhases(StringBuilder buffer, Metrics metrics) {
+        double[] phases = { metrics.getAvgConnectTime(),
+                metrics.getAvgHandshakeTime(), metrics.getAvgFirstByteTime(),
+                metrics.getAvgTransferTime() };
+        for (double phase : phases) {
+            if (metrics.getPhaseCount() > 0)
+                buffer.append(NUM.format(phase));
+            else
+                buffer.append("N/A");
+            buffer.append(',');
+        }
+    }
+
+    private static void writeSearchResult(StringBuilder buffer, StageInfo stage) {
+        String result = stage.getSearchResult();
+        buffer.append(result != null ? result : "N/A").append(',');
+    }
+
     private static void writeLatencyInfo(StringBuilder buffer, Histogram latency)
             throws IOException {
     	if(latency == null) {
@@ -157,7 +187,7 @@ class CSVWorkloadExporter extends AbstractWorkloadExporter {
         if (resTime == null)
             buffer.append("N/A");
         else
-            buffer.append(resTime[1]);
+            buffer.append(NUM.format(resTime[1] / 1000D)); // to millisecond
         buffer.append(',');
     }
 
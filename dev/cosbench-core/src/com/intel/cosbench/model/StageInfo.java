@@ -55,6 +55,14 @@ public interface StageInfo extends LifeCycle, Benchmark {
     public int getSnapshotCount();
 
 	public void setReport(Report report);
+
+    /**
+     * @return the outcome of the saturation search at this step, e.g. the max
+     *         sustainable throughput, or null if the search did not end here
+     */
+    public String getSearchResult();
+
+    public void setSearchResult(String result);
 	
 	public ListRegistry<Snapshot> getSnapshotRegistry();
 
@@ -0,0 +1,250 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.protocol;
+
+import java.io.*;
+import java.util.*;
+
+import com.intel.cosbench.bench.*;
+
+/**
+ * Shared pieces of the binary encodings between controller and driver.
+ * Integers are zigzag varints, and latency histograms only carry their
+ * non-zero buckets, as index deltas and counts.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class BinaryFormat {
+
+    private BinaryFormat() {
+        /* empty */
+    }
+
+    static void writeReport(DataOutputStream out, List<Metrics> report)
+            throws IOException {
+        if (report == null) {
+            writeVarLong(out, -1L);
+            return;
+        }
+        writeVarLong(out, report.size());
+        for (Metrics metrics : report)
+            writeMetrics(out, metrics);
+    }
+
+    static List<Metrics> readReport(DataInputStream in) throws IOException {
+        int count = (int) readVarLong(in);
+        if (count < 0)
+            return null;
+        List<Metrics> report = new ArrayList<Metrics>(count);
+        for (int i = 0; i < count; i++)
+            report.add(readMetrics(in));
+        return report;
+    }
+
+    static void writeMetrics(DataOutputStream out, Metrics metrics)
+            throws IOException {
+        writeString(out, metrics.getName());
+        writeString(out, metrics.getOpType());
+        writeString(out, metrics.getSampleType());
+        writeString(out, metrics.getOpName());
+        writeString(out, metrics.getOpId());
+        writeVarLong(out, metrics.getSampleCount());
+        writeVarLong(out, metrics.getTotalSampleCount());
+        writeVarLong(out, metrics.getByteCount());
+        writeVarLong(out, metrics.getWorkerCount());
+        out.writeDouble(metrics.getAvgResTime());
+        out.writeDouble(metrics.getAvgXferTime());
+        out.writeDouble(metrics.getAvgServiceTime());
+        writeVarLong(out, metrics.getPhaseCount());
+        out.writeDouble(metrics.getAvgConnectTime());
+        out.writeDouble(metrics.getAvgHandshakeTime());
+        out.writeDouble(metrics.getAvgFirstByteTime());
+        out.writeDouble(metrics.getAvgTransferTime());
+        out.writeDouble(metrics.getThroughput());
+        out.writeDouble(metrics.getBandwidth());
+        out.writeDouble(metrics.getRatio());
+        writeHistogram(out, metrics.getLatency());
+    }
+
+    static Metrics readMetrics(DataInputStream in) throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.setName(readString(in));
+        metrics.setOpType(readString(in));
+        metrics.setSampleType(readString(in));
+        metrics.setOpName(readString(in));
+        metrics.setOpId(readString(in));
+        metrics.setSampleCount((int) readVarLong(in));
+        metrics.setTotalSampleCount((int) readVarLong(in));
+        metrics.setByteCount(readVarLong(in));
+        metrics.setWorkerCount((int) readVarLong(in));
+        metrics.setAvgResTime(in.readDouble());
+        metrics.setAvgXferTime(in.readDouble());
+        metrics.setAvgServiceTime(in.readDouble());
+        metrics.setPhaseCount((int) readVarLong(in));
+        metrics.setAvgConnectTime(in.readDouble());
+        metrics.setAvgHandshakeTime(in.readDouble());
+        metrics.setAvgFirstByteTime(in.readDouble());
+        metrics.setAvgTransferTime(in.readDouble());
+        metrics.setThroughput(in.readDouble());
+        metrics.setBandwidth(in.readDouble());
+        metrics.setRatio(in.readDouble());
+        metrics.setLatency(readHistogram(in));
+        return metrics;
+    }
+
+    static void writeHistogram(DataOutputStream out, Histogram latency)
+            throws IOException {
+        out.writeBoolean(latency != null);
+        if (latency == null)
+            return;
+        writeLongs(out, latency.get_50());
+        writeLongs(out, latency.get_60());
+        writeLongs(out, latency.get_80());
+        writeLongs(out, latency.get_90());
+        writeLongs(out, latency.get_95());
+        writeLongs(out, latency.get_99());
+        writeLongs(out, latency.get_999());
+        writeLongs(out, latency.get_100());
+        int[] buckets = latency.getBuckets();
+        int[] counts = latency.getCounts();
+        if (buckets == null) {
+            writeVarLong(out, -1L);
+            return;
+        }
+        writeVarLong(out, buckets.length);
+        int last = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            writeVarLong(out, buckets[i] - last);
+            writeVarLong(out, counts[i]);
+            last = buckets[i];
+        }
+    }
+
+    static Histogram readHistogram(DataInputStream in)
+            throws IOException {
+        if (!in.readBoolean())
+            return null;
+        Histogram latency = new Histogram();
+        latency.set_50(readLongs(in));
+        latency.set_60(readLongs(in));
+        latency.set_80(readLongs(in));
+        latency.set_90(readLongs(in));
+        latency.set_95(readLongs(in));
+        latency.set_99(readLongs(in));
+        latency.set_999(readLongs(in));
+        latency.set_100(readLongs(in));
+        int size = (int) readVarLong(in);
+        if (size < 0)
+            return latency;
+        int[] buckets = new int[size];
+        int[] counts = new int[size];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            index += (int) readVarLong(in);
+            buckets[i] = index;
+            counts[i] = (int) readVarLong(in);
+        }
+        latency.setBuckets(buckets);
+        latency.setCounts(counts);
+        return latency;
+    }
+
+    static void writeLongs(DataOutputStream out, long[] values)
+            throws IOException {
+        if (values == null) {
+            writeVarLong(out, -1L);
+            return;
+        }
+        writeVarLong(out, values.length);
+        for (long value : values)
+            writeVarLong(out, value);
+    }
+
+    static long[] readLongs(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length < 0)
+            return null;
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++)
+            values[i] = readVarLong(in);
+        return values;
+    }
+
+    static void writeString(DataOutputStream out, String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /* for strings that may not fit in 64KB, such as logs */
+    static void writeText(DataOutputStream out, String value)
+            throws IOException {
+        if (value == null) {
+            writeVarLong(out, -1L);
+            return;
+        }
+        byte[] bytes = value.getBytes("UTF-8");
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readText(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /* zigzag varints, so that small negative numbers stay short */
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0)
+            throw new EOFException();
+        return readVarLong(in, first);
+    }
+
+    static long readVarLong(InputStream in, int first)
+            throws IOException {
+        long v = first & 0x7F;
+        int b = first;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            if (shift > 63 || (b = in.read()) < 0)
+                throw new EOFException("bad varint");
+            v |= (long) (b & 0x7F) << shift;
+        }
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.protocol;
+
+import static com.intel.cosbench.protocol.BinaryFormat.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import com.intel.cosbench.model.TaskState;
+
+/**
+ * This class encodes the responses carrying metrics reports (query, close and
+ * abort) in a compact binary form, offered next to JSON.
+ * <p>
+ * The controller asks for it with an "Accept" header, and for compression
+ * with "Accept-Encoding: gzip". Drivers that know neither keep answering
+ * JSON, and so do all drivers for other responses, so the content type of
+ * each response tells how to read it.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class ResponseCodec {
+
+    public static final String CONTENT_TYPE = "application/x-cosbench-binary";
+    public static final String GZIP = "gzip";
+
+    private static final int QUERY = 1;
+    private static final int CLOSE = 2;
+    private static final int ABORT = 3;
+
+    private ResponseCodec() {
+        /* empty */
+    }
+
+    public static boolean isSupported(Response response) {
+        return response instanceof QueryResponse
+                || response instanceof CloseResponse
+                || response instanceof AbortResponse;
+    }
+
+    public static void write(OutputStream out, Response response,
+            boolean compressed) throws IOException {
+        GZIPOutputStream gzip = compressed ? new GZIPOutputStream(out) : null;
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                gzip != null ? gzip : out));
+        writeResponse(data, response);
+        data.flush();
+        if (gzip != null)
+            gzip.finish();
+    }
+
+    public static Response read(InputStream in, boolean compressed)
+            throws IOException {
+        if (compressed)
+            in = new GZIPInputStream(in);
+        return readResponse(new DataInputStream(new BufferedInputStream(in)));
+    }
+
+    private static void writeResponse(DataOutputStream out, Response response)
+            throws IOException {
+        if (response instanceof QueryResponse) {
+            out.writeByte(QUERY);
+            writeBase(out, response);
+            SnapshotCodec.writeResponse(out, (QueryResponse) response);
+        } else if (response instanceof CloseResponse) {
+            CloseResponse close = (CloseResponse) response;
+            out.writeByte(CLOSE);
+            writeBase(out, response);
+            writeReport(out, close.getReport());
+            writeText(out, close.getDriverLog());
+            writeString(out, close.getState() != null ? close.getState()
+                    .name() : null);
+            writeCounts(out, close.getErrorStatistics());
+        } else if (response instanceof AbortResponse) {
+            AbortResponse abort = (AbortResponse) response;
+            out.writeByte(ABORT);
+            writeBase(out, response);
+            writeReport(out, abort.getReport());
+            writeText(out, abort.getDriverLog());
+        } else {
+            throw new IllegalArgumentException("unsupported response: "
+                    + response.getClass().getName());
+        }
+    }
+
+    private static Response readResponse(DataInputStream in)
+            throws IOException {
+        int type = in.readByte();
+        Response response;
+        switch (type) {
+        case QUERY: {
+            Response base = readBase(in);
+            response = SnapshotCodec.readResponse(in);
+            copyBase(base, response);
+            break;
+        }
+        case CLOSE: {
+            CloseResponse close = new CloseResponse();
+            copyBase(readBase(in), close);
+            close.setReport(readReport(in));
+            close.setDriverLog(readText(in));
+            String state = readString(in);
+            close.setState(state != null ? TaskState.valueOf(state) : null);
+            close.setErrorStatistics(readCounts(in));
+            response = close;
+            break;
+        }
+        case ABORT: {
+            AbortResponse abort = new AbortResponse();
+            copyBase(readBase(in), abort);
+            abort.setReport(readReport(in));
+            abort.setDriverLog(readText(in));
+            response = abort;
+            break;
+        }
+        default:
+            throw new IOException("unknown response type: " + type);
+        }
+        return response;
+    }
+
+    private static void writeBase(DataOutputStream out, Response response)
+            throws IOException {
+        writeVarLong(out, response.getCode());
+        out.writeBoolean(response.isSucc());
+        writeText(out, response.getError());
+    }
+
+    private static Response readBase(DataInputStream in) throws IOException {
+        Response base = new Response();
+        base.setCode((int) readVarLong(in));
+        base.setSucc(in.readBoolean());
+        base.setError(readText(in));
+        return base;
+    }
+
+    private static void copyBase(Response from, Response to) {
+        to.setCode(from.getCode());
+        to.setSucc(from.isSucc());
+        to.setError(from.getError());
+    }
+
+    private static void writeCounts(DataOutputStream out,
+            Map<String, Integer> counts) throws IOException {
+        if (counts == null) {
+            writeVarLong(out, -1L);
+            return;
+        }
+        writeVarLong(out, counts.size());
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            writeText(out, entry.getKey());
+            writeVarLong(out, entry.getValue());
+        }
+    }
+
+    private static HashMap<String, Integer> readCounts(DataInputStream in)
+            throws IOException {
+        int size = (int) readVarLong(in);
+        if (size < 0)
+            return null;
+        HashMap<String, Integer> counts = new HashMap<String, Integer>();
+        for (int i = 0; i < size; i++)
+            counts.put(readText(in), (int) readVarLong(in));
+        return counts;
+    }
+
+}
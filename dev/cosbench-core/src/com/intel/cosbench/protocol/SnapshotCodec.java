@@ -0,0 +1,124 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.protocol;
+
+import static com.intel.cosbench.protocol.BinaryFormat.*;
+
+import java.io.*;
+import java.util.*;
+
+import com.intel.cosbench.bench.*;
+
+/**
+ * This class encodes query responses as compact binary frames, which drivers
+ * push to the controller one per snapshot interval.
+ * <p>
+ * A frame is a varint length followed by the response: flags, the time stamp,
+ * the snapshot versions and the metrics, encoded as by {@link BinaryFormat}.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class SnapshotCodec {
+
+    public static final String CONTENT_TYPE = "application/x-cosbench-snapshots";
+
+    private static final int RUNNING = 1;
+
+    private SnapshotCodec() {
+        /* empty */
+    }
+
+    public static void writeFrame(OutputStream out, QueryResponse response)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        DataOutputStream data = new DataOutputStream(buffer);
+        writeResponse(data, response);
+        data.flush();
+        writeVarLong(out, buffer.size());
+        buffer.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * @return the next response, or null at the end of the stream
+     */
+    public static QueryResponse readFrame(InputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0)
+            return null;
+        long length = readVarLong(in, first);
+        byte[] frame = new byte[(int) length];
+        new DataInputStream(in).readFully(frame);
+        return readResponse(new DataInputStream(new ByteArrayInputStream(
+                frame)));
+    }
+
+    /**
+     * Encodes one snapshot, for storing it rather than sending it.
+     */
+    public static byte[] encode(Snapshot snapshot) throws IOException {
+        QueryResponse response = new QueryResponse();
+        response.setTime(snapshot.getTimestamp());
+        response.setVersion(snapshot.getVersion());
+        response.setMinVersion(snapshot.getMinVersion());
+        response.setMaxVersion(snapshot.getMaxVersion());
+        response.setReport(Arrays.asList(snapshot.getReport().getAllMetrics()));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        DataOutputStream data = new DataOutputStream(buffer);
+        writeResponse(data, response);
+        data.flush();
+        return buffer.toByteArray();
+    }
+
+    public static Snapshot decode(byte[] bytes) throws IOException {
+        QueryResponse response = readResponse(new DataInputStream(
+                new ByteArrayInputStream(bytes)));
+        Report report = new Report();
+        for (Metrics metrics : response.getReport())
+            report.addMetrics(metrics);
+        Snapshot snapshot = new Snapshot(report, response.getTime());
+        snapshot.setVersion(response.getVersion());
+        snapshot.setMinVersion(response.getMinVersion());
+        snapshot.setMaxVersion(response.getMaxVersion());
+        return snapshot;
+    }
+
+    static void writeResponse(DataOutputStream out,
+            QueryResponse response) throws IOException {
+        out.writeByte(response.isRunning() ? RUNNING : 0);
+        writeVarLong(out, response.getTime().getTime());
+        writeVarLong(out, response.getVersion());
+        writeVarLong(out, response.getMinVersion());
+        writeVarLong(out, response.getMaxVersion());
+        writeReport(out, response.getReport());
+    }
+
+    static QueryResponse readResponse(DataInputStream in)
+            throws IOException {
+        QueryResponse response = new QueryResponse();
+        response.setRunning((in.readByte() & RUNNING) != 0);
+        response.setTime(new Date(readVarLong(in)));
+        response.setVersion((int) readVarLong(in));
+        response.setMinVersion((int) readVarLong(in));
+        response.setMaxVersion((int) readVarLong(in));
+        response.setReport(readReport(in));
+        return response;
+    }
+
+}
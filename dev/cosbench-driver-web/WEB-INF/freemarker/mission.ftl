@@ -115,6 +115,28 @@
       <span class="label"><strong>Interval</strong>:</span>
       ${info.mission.interval}s
     </span>
+    <span class="grid">
+      <span class="label"><strong>Executor</strong>:</span>
+      ${info.mission.executor}
+    </span>
+    <#if (info.mission.depth > 1) >
+      <span class="grid">
+        <span class="label"><strong>Depth</strong>:</span>
+        ${info.mission.depth}
+      </span>
+    </#if>
+    <#if info.mission.rate?? >
+      <span class="grid">
+        <span class="label"><strong>Rate</strong>:</span>
+        ${info.mission.rate} (${info.mission.arrival})
+      </span>
+    </#if>
+    <#if info.mission.cap?? >
+      <span class="grid">
+        <span class="label"><strong>Cap</strong>:</span>
+        ${info.mission.cap}
+      </span>
+    </#if>
     <#if (info.mission.rampup > 0) >
       <span class="grid">
         <span class="label"><strong>Rampup</strong>:</span>
@@ -28,7 +28,7 @@ import org.springframework.web.servlet.mvc.Controller;
 
 import com.intel.cosbench.config.ConfigException;
 import com.intel.cosbench.log.*;
-import com.intel.cosbench.protocol.Response;
+import com.intel.cosbench.protocol.*;
 import com.intel.cosbench.service.IllegalStateException;
 import com.intel.cosbench.web.*;
 
@@ -59,10 +59,31 @@ abstract class AbstractCommandHandler implements Controller {
                 HttpServletResponse res) throws Exception {
             Response response = (Response) model.get("response");
             res.setStatus(response.getCode());
+            if (acceptsBinary(req) && ResponseCodec.isSupported(response)) {
+                renderBinary(req, res, response);
+                return;
+            }
             res.setContentType("application/json");
             mapper.writeValue(res.getWriter(), response);
         }
 
+        private static boolean acceptsBinary(HttpServletRequest req) {
+            String accept = req.getHeader("Accept");
+            return accept != null
+                    && accept.contains(ResponseCodec.CONTENT_TYPE);
+        }
+
+        private static void renderBinary(HttpServletRequest req,
+                HttpServletResponse res, Response response) throws Exception {
+            String encoding = req.getHeader("Accept-Encoding");
+            boolean gzip = encoding != null
+                    && encoding.contains(ResponseCodec.GZIP);
+            res.setContentType(ResponseCodec.CONTENT_TYPE);
+            if (gzip)
+                res.setHeader("Content-Encoding", ResponseCodec.GZIP);
+            ResponseCodec.write(res.getOutputStream(), response, gzip);
+        }
+
     }
 
     protected abstract Response process(HttpServletRequest req,
@@ -86,6 +107,8 @@ abstract class AbstractCommandHandler implements Controller {
             response = new Response(500, e.getMessage());
             LOGGER.error("unexpected error", e);
         }
+        if (response == null)
+            return null; // already written by the handler
         return new ModelAndView(JSON, "response", response);
     }
 
@@ -43,11 +43,11 @@ abstract class MissionHandler extends AbstractCommandHandler {
     protected Response process(HttpServletRequest req, HttpServletResponse res)
             throws Exception {
         Scanner scanner = new Scanner(req.getInputStream());
-        MissionInfo info = getMissionInfo(scanner);
+        MissionInfo info = getMissionInfo(driver, scanner);
         return process(info);
     }
 
-    private MissionInfo getMissionInfo(Scanner scanner) {
+    static MissionInfo getMissionInfo(DriverService driver, Scanner scanner) {
         if (!scanner.hasNext())
             throw new BadRequestException();
         MissionInfo info = driver.getMissionInfo(scanner.next());
@@ -34,7 +34,7 @@ public class QueryHandler extends MissionHandler {
         return getResponse(info);
     }
 
-    private Response getResponse(MissionInfo info) {
+    static QueryResponse getResponse(MissionInfo info) {
         QueryResponse response = new QueryResponse();
         Snapshot snapshot = info.getSnapshot();
         response.setTime(snapshot.getTimestamp());
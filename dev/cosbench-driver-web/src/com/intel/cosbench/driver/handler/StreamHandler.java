@@ -0,0 +1,79 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.driver.handler;
+
+import java.io.*;
+import java.util.*;
+
+import javax.servlet.http.*;
+
+import com.intel.cosbench.model.MissionInfo;
+import com.intel.cosbench.protocol.*;
+import com.intel.cosbench.service.DriverService;
+
+/**
+ * Streams snapshots to the controller instead of waiting for it to query.
+ * <p>
+ * One binary frame is pushed per snapshot interval, right after each
+ * wall-clock tick, so that frames from all drivers describe the same window.
+ * The stream ends with a frame telling the mission is no longer running.
+ */
+public class StreamHandler extends AbstractCommandHandler {
+
+    private DriverService driver;
+
+    public void setDriver(DriverService driver) {
+        this.driver = driver;
+    }
+
+    @Override
+    protected Response process(HttpServletRequest req, HttpServletResponse res)
+            throws Exception {
+        MissionInfo info = MissionHandler.getMissionInfo(driver, new Scanner(
+                req.getInputStream()));
+        res.setStatus(200);
+        res.setContentType(SnapshotCodec.CONTENT_TYPE);
+        try {
+            stream(info, res.getOutputStream());
+        } catch (IOException ioe) {
+            LOGGER.debug("snapshot stream closed by controller", ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        return null; // already written
+    }
+
+    private static void stream(MissionInfo info, OutputStream out)
+            throws IOException, InterruptedException {
+        long period = info.getMission().getInterval() * 1000L;
+        /* leave workers some time to roll their windows over */
+        long grace = Math.min(period / 10, 1000L);
+        boolean running;
+        do {
+            long tick = (System.currentTimeMillis() / period + 1) * period;
+            long delay = tick + grace - System.currentTimeMillis();
+            if (delay > 0)
+                Thread.sleep(delay);
+            QueryResponse response = QueryHandler.getResponse(info);
+            response.setTime(new Date(tick));
+            running = response.isRunning();
+            SnapshotCodec.writeFrame(out, response);
+        } while (running);
+    }
+
+}
@@ -0,0 +1,90 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.driver.agent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intel.cosbench.log.*;
+
+/**
+ * This class creates the executor which runs the agents of one mission.
+ * <p>
+ * The "platform" mode gives each worker its own platform thread, as before.
+ * The "virtual" mode runs each worker on a virtual thread when the hosting JVM
+ * provides them; otherwise it falls back to platform threads created with a
+ * small stack, so that one driver can hold many more concurrent workers.
+ *
+ * @author ywang19, qzheng7
+ *
+ */
+public class AgentExecutors {
+
+    private static final Logger LOGGER = LogFactory.getSystemLogger();
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    /* stack size for fallback threads in virtual mode */
+    private static final long SMALL_STACK = 256 * 1024;
+
+    public static ExecutorService newExecutor(String mode, int workers) {
+        if (!VIRTUAL.equals(mode))
+            return Executors.newFixedThreadPool(workers);
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor != null)
+            return executor;
+        LOGGER.info("virtual threads are not supported by this jvm, "
+                + "use small stack threads instead");
+        return Executors.newFixedThreadPool(workers, new SmallStackThreadFactory());
+    }
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively since
+     * the bundle is still compiled against older class libraries.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException nsme) {
+            return null;
+        } catch (Exception e) {
+            LOGGER.warn("fail to create virtual thread executor", e);
+            return null;
+        }
+    }
+
+    private static class SmallStackThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL = new AtomicInteger(1);
+
+        private final AtomicInteger count = new AtomicInteger(1);
+        private final String prefix = "agent-" + POOL.getAndIncrement() + "-";
+
+        @Override
+        public Thread newThread(Runnable task) {
+            return new Thread(null, task, prefix + count.getAndIncrement(),
+                    SMALL_STACK);
+        }
+
+    }
+
+}
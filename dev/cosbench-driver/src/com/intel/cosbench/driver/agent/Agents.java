@@ -33,6 +33,7 @@ public class Agents {
         agent.setWorkerContext(wc);
         agent.setOperationPicker(mc.getOperationPicker());
         agent.setOperatorRegistry(mc.getOperatorRegistry());
+        agent.setArrivalScheduler(mc.getArrivalScheduler());
         return agent;
     }
 
@@ -0,0 +1,80 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+package com.intel.cosbench.driver.agent;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.intel.cosbench.driver.operator.PendingOperation;
+
+/**
+ * This class holds the operations one work agent keeps in flight in
+ * pipelined mode, it owns one reusable record per slot and the queue through
+ * which completed operations come back to the agent.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class Pipeline {
+
+    private final BlockingQueue<PendingOperation> completions = new LinkedBlockingQueue<PendingOperation>();
+    private final Deque<PendingOperation> free = new ArrayDeque<PendingOperation>();
+    private final int depth;
+
+    public Pipeline(int depth) {
+        this.depth = depth;
+        for (int i = 0; i < depth; i++)
+            free.push(new PendingOperation(completions));
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isFull() {
+        return free.isEmpty();
+    }
+
+    public int getInFlight() {
+        return depth - free.size();
+    }
+
+    public PendingOperation acquire() {
+        return free.pop();
+    }
+
+    public void release(PendingOperation pending) {
+        free.push(pending);
+    }
+
+    /**
+     * Waits for the next completed operation, resuming the paused ones
+     * meanwhile.
+     * 
+     * @return the completed operation, or null if none completed in time
+     */
+    public PendingOperation poll(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        PendingOperation done;
+        while ((done = completions.poll(Math.max(deadline - System.nanoTime(),
+                0L), TimeUnit.NANOSECONDS)) != null && done.resume())
+            ; // still in flight
+        return done;
+    }
+
+}
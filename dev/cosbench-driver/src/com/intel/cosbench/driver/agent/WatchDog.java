@@ -17,59 +17,82 @@ limitations under the License.
 
 package com.intel.cosbench.driver.agent;
 
-import java.util.*;
+import java.util.concurrent.*;
 
 import com.intel.cosbench.driver.model.WorkerContext;
 import com.intel.cosbench.log.*;
 
-class WatchDog extends TimerTask {
+/**
+ * This class is the driver-wide timeout service, it aborts work agents which
+ * overrun their expected stop time.
+ * <p>
+ * The deadlines of all workers from all missions are kept in one scheduled
+ * executor with a single daemon thread; dismissing a deadline only cancels
+ * its scheduled task, and the alarm itself fires through
+ * <code>StorageAPI.abort()</code>.
+ *
+ * @author ywang19, qzheng7
+ *
+ */
+class WatchDog {
 
     private static final Logger LOGGER = LogFactory.getSystemLogger();
 
-    private WorkerContext workerContext;
+    private static final long GRACE = 10 * 1000; /* in milliseconds */
 
-    private volatile boolean cancel = false;
+    private static final WatchDog INSTANCE = new WatchDog();
 
-    private Timer timer = new Timer(); /* alarm service */
+    private ScheduledExecutorService timer; /* alarm service */
 
-    public WatchDog() {
-        /* empty */
+    private WatchDog() {
+        timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "watchdog");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
-    public void setWorkerContext(WorkerContext workerContext) {
-        this.workerContext = workerContext;
+    public static WatchDog getInstance() {
+        return INSTANCE;
     }
 
-    public void dismiss() {
-        timer.cancel();
-        this.cancel = true;
-        LOGGER.debug("timeout service has been dismissed");
+    /**
+     * The method schedules an alarm for one work agent.
+     *
+     * @param workerContext	the worker to be aborted on timeout
+     * @param delay	milliseconds from now until the expected stop time
+     * @return	the handle used to dismiss the alarm, or null if no alarm is needed
+     */
+    public Future<?> watch(final WorkerContext workerContext, long delay) {
+        if (delay <= 0)
+            return null;
+        return timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                alert(workerContext);
+            }
+        }, delay + 1000 + GRACE, TimeUnit.MILLISECONDS);
     }
 
-    public void watch(long timeout) {
-        if (timeout != 0)
-            timer.schedule(this, new Date(timeout + 1000));
+    public void dismiss(Future<?> alarm) {
+        if (alarm != null)
+            alarm.cancel(false);
+        LOGGER.debug("timeout service has been dismissed");
     }
 
-    @Override
-    public void run() {
+    private static void alert(WorkerContext workerContext) {
         int idx = workerContext.getIndex();
-        int secs = 10;
-        while (secs > 0 && !cancel) {
-            LOGGER.debug("work agent {} will timeout in {} seconds", idx, secs);
-            try {
-                Thread.sleep(5000);
-            } catch (InterruptedException ignore) {
-            }
-            secs -= 5;
-        }
-        if (!cancel) {
+        try {
             workerContext.getStorageApi().abort();
-        	workerContext.disposeRuntime();
-        	
-            LOGGER.debug("work agent {} has been alerted for timeout", idx);
-        } else
-            LOGGER.debug("work agent {} has completed before timeout", idx);
+            workerContext.disposeRuntime();
+        } catch (Exception e) {
+            LOGGER.error("fail to abort work agent " + idx, e);
+            return;
+        }
+        LOGGER.debug("work agent {} has been alerted for timeout", idx);
     }
 
 }
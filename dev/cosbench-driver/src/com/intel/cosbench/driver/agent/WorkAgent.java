@@ -22,17 +22,23 @@ import static com.intel.cosbench.bench.Mark.*;
 import com.intel.cosbench.bench.ErrorStatistics;
 
 import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.naming.AuthenticationException;
 
 import com.intel.cosbench.api.auth.AuthBadException;
 import com.intel.cosbench.api.auth.AuthException;
 import com.intel.cosbench.api.context.AuthContext;
+import com.intel.cosbench.api.storage.AsyncStorageAPI;
+import com.intel.cosbench.api.storage.AsyncStorageSupport;
+import com.intel.cosbench.api.storage.PhaseTimer;
 import com.intel.cosbench.api.storage.StorageAPI;
 import com.intel.cosbench.bench.*;
 import com.intel.cosbench.config.Mission;
 import com.intel.cosbench.driver.model.*;
 import com.intel.cosbench.driver.operator.*;
+import com.intel.cosbench.driver.util.ArrivalScheduler;
 import com.intel.cosbench.driver.util.AuthCachePool;
 import com.intel.cosbench.driver.util.OperationPicker;
 import com.intel.cosbench.log.Logger;
@@ -40,6 +46,9 @@ import com.intel.cosbench.service.AbortedException;
 
 class WorkAgent extends AbstractAgent implements Session, OperationListener {
 
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final long POLL_TIMEOUT = 1000; /* in milliseconds */
+
     private long start; /* agent startup time */
     private long begin; /* effective workload startup time */
     private long end; /* effective workload shut-down time */
@@ -63,13 +72,33 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
 
     private OperationPicker operationPicker;
     private OperatorRegistry operatorRegistry;
+    private ArrivalScheduler arrivalScheduler; /* null for closed loop */
 
 //    private boolean isFinished = false;
-    private WatchDog dog = new WatchDog();
+    private Future<?> alarm; /* pending timeout alarm */
 
     private Status currMarks = new Status(); /* for snapshots */
     private Status globalMarks = new Status(); /* for the final report */
 
+    /* marks indexed by operator position, resolved once in initMarks() */
+    private Mark[] currSlots;
+    private Mark[] globalSlots;
+    /* marks for the parts of parted operations, null for other operators */
+    private Mark[] currParts;
+    private Mark[] globalParts;
+    private String[] partTypes;
+    private int slot; /* position of the operator being performed */
+
+    /* records and buffer reused for each operation */
+    private Sample sample = new Sample();
+    private Result result = new Result();
+    private byte[] buffer;
+
+    private Pipeline pipeline; /* operations in flight, null unless pipelined */
+
+    private long intended; /* intended start of the current operation, in nanoseconds */
+    private long arrival; /* next arrival claimed but not yet due, in nanoseconds */
+
     public WorkAgent() {
         /* empty */
     }
@@ -78,8 +107,6 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
     public void setWorkerContext(WorkerContext workerContext) {
         super.setWorkerContext(workerContext);
         this.has_histo = workerContext.getMission().hasHisto();
-        
-        dog.setWorkerContext(workerContext);
     }
 
     public void setOperationPicker(OperationPicker operationPicker) {
@@ -90,6 +117,10 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
         this.operatorRegistry = operatorRegistry;
     }
 
+    public void setArrivalScheduler(ArrivalScheduler arrivalScheduler) {
+        this.arrivalScheduler = arrivalScheduler;
+    }
+
     @Override
     public int getIndex() {
         return workerContext.getIndex();
@@ -124,16 +155,37 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
         return this;
     }
 
+    @Override
+    public Sample getSample() {
+        return sample;
+    }
+
+    @Override
+    public Result getResult() {
+        return result;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+        if (buffer == null)
+            buffer = new byte[BUFFER_SIZE];
+        return buffer;
+    }
+
     @Override
     protected void execute() {
         initTimes();
         initLimites();
         initMarks();
-        dog.watch(timeout);
+        initPipeline();
+        WatchDog dog = WatchDog.getInstance();
+        alarm = dog.watch(workerContext, timeout > 0 ? timeout - start : 0L);
         try {
             doWork(); // launch work
         } finally {
-            dog.dismiss();
+            dog.dismiss(alarm);
+            if (pipeline != null)
+                AsyncStorageSupport.release(pipeline.getDepth());
         }
         /* work agent has completed execution successfully */
     }
@@ -141,8 +193,8 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
     private void initTimes() {
         Mission mission = workerContext.getMission();
         interval = mission.getInterval();
-        lcheck = curr = start = System.currentTimeMillis();
-        check = lcheck + interval * 1000;
+        lcheck = curr = start = now();
+        check = nextTick(lcheck);
         begin = start;
         timeout = 0L;
         lop = lrsample = lsample = start;
@@ -161,25 +213,66 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
     }
 
     private void initMarks() {
-        Set<String> types = new LinkedHashSet<String>();
-        for (OperatorContext op : operatorRegistry)
-            types.add(getMarkType(op.getId(), op.getOpType(), op.getSampleType(), op.getName()));
-        for (String type : types)
-            currMarks.addMark(newMark(type));
-        for (String type : types)
-            globalMarks.addMark(newMark(type));
+        int size = operatorRegistry.getSize();
+        currSlots = new Mark[size];
+        globalSlots = new Mark[size];
+        currParts = new Mark[size];
+        globalParts = new Mark[size];
+        partTypes = new String[size];
+        for (OperatorContext op : operatorRegistry) {
+            String type = getMarkType(op.getId(), op.getOpType(), op.getSampleType(), op.getName());
+            currMarks.addMark(currSlots[op.getIndex()] = newMark(type, has_histo));
+            globalMarks.addMark(globalSlots[op.getIndex()] = newMark(type, has_histo));
+            String partType = op.getPartSampleType();
+            if (partType == null)
+                continue;
+            partTypes[op.getIndex()] = partType;
+            type = getMarkType(op.getId(), op.getOpType(), partType, op.getName());
+            currMarks.addMark(currParts[op.getIndex()] = newMark(type, has_histo));
+            globalMarks.addMark(globalParts[op.getIndex()] = newMark(type, has_histo));
+        }
+    }
+
+    private void initPipeline() {
+        int depth = workerContext.getMission().getDepth();
+        if (depth <= 1)
+            return;
+        StorageAPI api = workerContext.getStorageApi();
+        if (api instanceof AsyncStorageAPI
+                && ((AsyncStorageAPI) api).isAsyncSupported()) {
+            pipeline = new Pipeline(depth);
+            AsyncStorageSupport.reserve(depth); // one I/O thread per slot
+        } else if (workerContext.getIndex() == workerContext.getMission().getOffset() + 1)
+            LOGGER.warn("storage cannot run operations asynchronously, depth {} is ignored", depth);
+    }
+
+    /* monotonic clock in milliseconds, same origin as sample timestamps */
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    private static Mark newMark(String type, boolean histo) {
+        Mark mark = Mark.newMark(type);
+        if (histo)
+            mark.setRecorder(new LatencyRecorder()); // reset along with the mark
+        return mark;
     }
 
     private void doWork() {
         doSnapshot();
         while (!workerContext.isFinished())
             try {
-                performOperation();
+                if (pipeline == null)
+                    performOperation();
+                else
+                    performPipelined();
 			}catch (AbortedException ae) {
                 if (lrsample > frsample)
                     doSummary();
                 workerContext.setFinished(true);
             }
+        if (pipeline != null)
+            awaitPipeline();
         doSnapshot();
     }
         
@@ -189,10 +282,15 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
     		throw new AbortedException();
     	if(! workerContext.getStorageApi().isAuthValid())
     		reLogin();
-        lbegin = System.currentTimeMillis();
+        if (arrivalScheduler != null)
+            intended = awaitArrival();
         Random random = workerContext.getRandom();
         String op = operationPicker.pickOperation(random);
         OperatorContext context = operatorRegistry.getOperator(op);
+        awaitToken(context);
+        lbegin = now();
+        slot = context.getIndex();
+        PhaseTimer.get().clear(); // drop phases of requests outside operations
         try{
         	context.getOperator().operate(this);
         }catch(AuthException ae) {
@@ -200,15 +298,123 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
         }
     }
     
+    /* sleeps until the operation is allowed under its throughput cap */
+    private static void awaitToken(OperatorContext context) {
+        if (context.getLimiter() == null)
+            return;
+        try {
+            context.getLimiter().acquire();
+        } catch (InterruptedException ie) {
+            throw new AbortedException();
+        }
+    }
+
+    /* sleeps until the next arrival is due in open-loop mode */
+    private long awaitArrival() {
+        long next = arrivalScheduler.next();
+        long wait = next - System.nanoTime();
+        if (wait > 0)
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ie) {
+                throw new AbortedException();
+            }
+        return next;
+    }
+
+    /*
+     * Fills the pipeline up to its depth, then reports one completed operation.
+     * Operations which cannot run asynchronously are performed in place. In
+     * open-loop mode, only arrivals already due are issued, and completions are
+     * awaited no longer than until the next one is.
+     */
+    private void performPipelined() {
+        if(workerContext.getAuthApi() == null || workerContext.getStorageApi() == null) 
+            throw new AbortedException();
+        if(! workerContext.getStorageApi().isAuthValid())
+            reLogin();
+        Random random = workerContext.getRandom();
+        while (!pipeline.isFull() && !workerContext.isFinished()) {
+            if (arrivalScheduler != null) {
+                if (arrival == 0L)
+                    arrival = arrivalScheduler.next();
+                if (arrival > System.nanoTime())
+                    break; // not due yet
+            }
+            String op = operationPicker.pickOperation(random);
+            OperatorContext context = operatorRegistry.getOperator(op);
+            Operator operator = context.getOperator();
+            awaitToken(context);
+            lbegin = now();
+            slot = context.getIndex();
+            PhaseTimer.get().clear();
+            intended = arrival;
+            arrival = 0L;
+            try {
+                if (operator instanceof AsyncOperator
+                        && ((AsyncOperator) operator).isAsync()) {
+                    PendingOperation pending = pipeline.acquire();
+                    pending.reset((AsyncOperator) operator, slot, lbegin,
+                            intended);
+                    ((AsyncOperator) operator).issue(this, pending);
+                } else {
+                    operator.operate(this);
+                }
+            } catch (AuthException ae) {
+                reLogin();
+            }
+        }
+        long timeout = POLL_TIMEOUT * 1000000;
+        if (arrival != 0L)
+            timeout = Math.max(arrival - System.nanoTime(), 0L);
+        PendingOperation done;
+        try {
+            done = pipeline.poll(timeout, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ie) {
+            throw new AbortedException();
+        }
+        if (done == null)
+            return;
+        lbegin = done.getIssued();
+        slot = done.getSlot();
+        intended = done.getIntended();
+        try {
+            done.getOperator().complete(this, done);
+        } finally {
+            pipeline.release(done);
+        }
+    }
+
+    /* lets operations still in flight complete without reporting them */
+    private void awaitPipeline() {
+        try {
+            while (pipeline.getInFlight() > 0) {
+                PendingOperation done = pipeline.poll(POLL_TIMEOUT,
+                        TimeUnit.MILLISECONDS);
+                if (done != null)
+                    pipeline.release(done);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     public void onSampleCreated(Sample sample) {
-        curr = sample.getTimestamp().getTime();
-		String type = getMarkType(sample.getOpId(), sample.getOpType(),
-				sample.getSampleType(), sample.getOpName());
-        currMarks.getMark(type).addSample(sample);
+        boolean part = partTypes[slot] != null
+                && partTypes[slot].equals(sample.getSampleType());
+        if (intended != 0L && !part) // parts are timed on their own
+            sample.setIntendedStart(intended); // open loop
+        PhaseTimer timer = PhaseTimer.get();
+        if (timer.isTimed()) { // requests made on this thread since the last sample
+            sample.setPhases(timer.getConnect(), timer.getHandshake(),
+                    timer.getFirstByte(), timer.getTransfer());
+            timer.clear();
+        }
+        curr = sample.getTimestamp() / 1000000;
+        (part ? currParts : currSlots)[slot].addSample(sample);
         if (lbegin >= begin && lbegin < end && curr > begin && curr <= end) {
-            globalMarks.getMark(type).addSample(sample);
-            operatorRegistry.getOperator(sample.getOpId()).addSample(sample);
+            (part ? globalParts : globalSlots)[slot].addSample(sample);
             if (lbegin < frsample)
                 frsample = lbegin; // first sample emitted during runtime
             lrsample = curr; // last sample collected during runtime
@@ -221,8 +427,15 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
         if (lsample < check)
             return;
         doSnapshot();
-        lcheck = System.currentTimeMillis();
-        check = lcheck + interval * 1000;
+        lcheck = now();
+        check = nextTick(lcheck);
+    }
+
+    /* snapshots are cut at wall-clock ticks, the same on all drivers */
+    private long nextTick(long time) {
+        long period = interval * 1000;
+        long wall = System.currentTimeMillis();
+        return time + (wall / period + 1) * period - wall;
     }
 
     private void doSnapshot() {
@@ -238,13 +451,11 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
 
     @Override
     public void onOperationCompleted(Result result) {
-        curr = result.getTimestamp().getTime();
+        curr = result.getTimestamp() / 1000000;
 /* */
-		String type = getMarkType(result.getOpId(), result.getOpType(),
-				result.getSampleType(), result.getOpName());
-        currMarks.getMark(type).addOperation(result);
+        currSlots[slot].addOperation(result);
         if (lop >= begin && lop < end && curr > begin && curr <= end)
-            globalMarks.getMark(type).addOperation(result);
+            globalSlots[slot].addOperation(result);
 /* */
         lop = curr; // last operation performed
         trySummary(); // make a summary report if necessary
@@ -274,14 +485,14 @@ class WorkAgent extends AbstractAgent implements Session, OperationListener {
 //    	return ++op_count;
     	
         int sum = 0;
-        for (Mark mark : globalMarks)
+        for (Mark mark : globalSlots)
             sum += mark.getTotalOpCount();
         return sum;
     }
 
     private long getTotalBytes() {
         long bytes = 0;
-        for (Mark mark : globalMarks)
+        for (Mark mark : globalSlots)
             bytes += mark.getByteCount();
         return bytes;
     }
@@ -0,0 +1,108 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.driver.generator;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.intel.cosbench.config.ConfigException;
+
+/**
+ * This class describes write content with a given compression and dedup ratio.
+ * <p>
+ * Content is laid out in 4 KB blocks. Every block starts with an 8-byte key,
+ * followed by incompressible bytes sliced from the shared binary
+ * {@link PayloadPool} at an offset derived from the key, and is padded with
+ * zeros. The incompressible part takes 1 / compressratio of the block, so the
+ * rest compresses away. Blocks with the same key are identical: a fraction of
+ * 1 / dedupratio of all blocks get a fresh random key, the others reuse one of
+ * a small set of keys shared by the driver, which gives the requested dedup
+ * ratio over any sizeable data set.
+ * <p>
+ * Generators are cached per (compressratio, dedupratio), so all workers of a
+ * driver draw duplicates from the same set of keys.
+ *
+ * @author ywang19, qzheng7
+ *
+ */
+public class ContentGenerator {
+
+    private static final int DUP_KEYS = 1024;
+
+    private static final ConcurrentMap<String, ContentGenerator> GENERATORS = new ConcurrentHashMap<String, ContentGenerator>();
+
+    private final byte[] data;
+    private final int randomLen; /* key plus incompressible bytes per block */
+    private final double freshRate; /* fraction of blocks with a fresh key */
+    private final long[] dupKeys;
+
+    private ContentGenerator(double compressRatio, double dedupRatio) {
+        this.data = PayloadPool.getBinaryPool().getData();
+        int len = (int) Math.round(RandomInputStream.BLOCK / compressRatio);
+        this.randomLen = Math.max(len, RandomInputStream.TAG);
+        this.freshRate = 1.0 / dedupRatio;
+        Random random = new Random();
+        this.dupKeys = new long[dedupRatio > 1 ? DUP_KEYS : 0];
+        for (int i = 0; i < dupKeys.length; i++)
+            dupKeys[i] = random.nextLong();
+    }
+
+    /**
+     * @return the cached generator for the given compression and dedup ratio.
+     */
+    public static ContentGenerator getGenerator(double compressRatio,
+            double dedupRatio) {
+        if (!(compressRatio >= 1) || !(dedupRatio >= 1))
+            throw new ConfigException("compressratio and dedupratio should be no less than 1");
+        String key = compressRatio + ":" + dedupRatio;
+        ContentGenerator generator = GENERATORS.get(key);
+        if (generator == null) {
+            generator = new ContentGenerator(compressRatio, dedupRatio);
+            ContentGenerator prev = GENERATORS.putIfAbsent(key, generator);
+            if (prev != null)
+                generator = prev;
+        }
+        return generator;
+    }
+
+    /**
+     * Picks the key of the next block, which determines its whole content.
+     */
+    public long nextKey(Random random) {
+        if (dupKeys.length == 0 || random.nextDouble() < freshRate)
+            return random.nextLong();
+        return dupKeys[random.nextInt(dupKeys.length)];
+    }
+
+    /* the backing data, which must never be modified */
+    byte[] getData() {
+        return data;
+    }
+
+    /* where the block with the given key starts in the data */
+    int offsetOf(long key) {
+        return (int) ((key >>> 1) % (data.length - RandomInputStream.BLOCK + 1));
+    }
+
+    /* the number of leading bytes of a block which are not zeros */
+    int getRandomLen() {
+        return randomLen;
+    }
+
+}
@@ -37,6 +37,20 @@ public class Generators {
         return generator;
     }
 
+    /**
+     * Parses a fixed size such as "64MB" into bytes.
+     */
+    public static long parseSize(String size) {
+        DefaultSizeGenerator generator = new DefaultSizeGenerator();
+        long base = generator.setUnit(size);
+        String num = size.replaceAll("[a-zA-Z]+$", "").trim();
+        try {
+            return Long.parseLong(num) * base;
+        } catch (NumberFormatException nfe) {
+            throw new ConfigException("illegal size: " + size);
+        }
+    }
+
     private static IntGenerator getIntGenerator(String pattern) {
         IntGenerator generator = null;
         if ((generator = ConstantIntGenerator.parse(pattern)) != null)
@@ -14,13 +14,13 @@ limitations under the License.
 package com.intel.cosbench.driver.generator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Random;
 
 import org.apache.commons.lang.NotImplementedException;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.math.RandomUtils;
 
 import com.intel.cosbench.config.ConfigException;
 //import com.intel.cosbench.driver.generator.RangeIntGenerator.TestThread;
@@ -32,6 +32,11 @@ import com.intel.cosbench.config.ConfigException;
  * 
  * h(1|64|10,64|512|70,512|2048|20)KB
  * 
+ * Buckets are picked from a table with one slot per unit of weight when the
+ * total weight is small (the usual case of percentages), or else by a binary
+ * search over the cumulative weights; the value is then drawn uniformly within
+ * the bucket.
+ * 
  * @author Christophe Vedel <cv@scality.com>
  *
  */
@@ -46,36 +51,64 @@ public class HistogramIntGenerator implements IntGenerator {
 	private static class Bucket {
 
 		private final int lower;
-		private final UniformIntGenerator gen;
+		private final int range;
 		private final int weight;
 		private int cumulativeWeight;
 
 		Bucket(int lower, int upper, int weight) {
+			if (lower <= 0 || upper <= 0 || lower > upper || weight < 0)
+				throw new IllegalArgumentException();
 			this.lower = lower;
-			this.gen = new UniformIntGenerator(lower, upper);
+			this.range = upper - lower + 1;
 			this.weight = weight;
 			this.cumulativeWeight = 0;
 		}
 	}
 
+	/* largest total weight for which a slot table is built */
+	private static final int MAX_SLOTS = 4096;
+
 	private final Bucket buckets[];
+	private final int cumulativeWeights[];
+	private final int slots[]; /* bucket index per unit of weight, or null */
 	private final int totalWeight;
 
 	public HistogramIntGenerator(Bucket buckets[]) {
 		this.buckets = buckets;
+		cumulativeWeights = new int[buckets.length];
+		for (int i = 0; i < buckets.length; i++)
+			cumulativeWeights[i] = buckets[i].cumulativeWeight;
 		totalWeight = buckets[buckets.length - 1].cumulativeWeight;
+		if (totalWeight <= 0)
+			throw new IllegalArgumentException();
+		slots = totalWeight <= MAX_SLOTS ? toSlots(cumulativeWeights) : null;
+	}
 
+	private static int[] toSlots(int cumulativeWeights[]) {
+		int slots[] = new int[cumulativeWeights[cumulativeWeights.length - 1]];
+		int last = 0;
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			Arrays.fill(slots, last, cumulativeWeights[i], i);
+			last = cumulativeWeights[i];
+		}
+		return slots;
 	}
 
 	@Override
 	public int next(Random random) {
-		final int next = RandomUtils.nextInt(random, totalWeight);
-		for (Bucket bucket : buckets) {
-			if (next <= bucket.cumulativeWeight) {
-				return bucket.gen.next(random);
-			}
-		}
-		return 0;
+		final int next = random.nextInt(totalWeight);
+		final Bucket bucket = buckets[slots != null ? slots[next] : search(next)];
+		return bucket.lower + random.nextInt(bucket.range);
+	}
+
+	/* the first bucket whose cumulative weight exceeds the draw */
+	private int search(int next) {
+		int idx = Arrays.binarySearch(cumulativeWeights, next + 1);
+		if (idx < 0)
+			return -idx - 1;
+		while (idx > 0 && cumulativeWeights[idx - 1] == next + 1)
+			idx--; // skip back over zero-weight buckets
+		return idx;
 	}
 
 	/* (non-Javadoc)
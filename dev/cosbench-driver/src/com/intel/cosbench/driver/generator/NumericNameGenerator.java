@@ -21,10 +21,18 @@ import java.util.Random;
 
 import org.apache.commons.lang.StringUtils;
 
+/**
+ * This class generates names from a numeric key generator. It is stateless
+ * besides its key generator, so it is safe for concurrent use as long as the
+ * key generator is.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
 class NumericNameGenerator implements NameGenerator {
 
-    private String prefix;
-    private String suffix;
+    private String prefix = "";
+    private String suffix = "";
     private IntGenerator generator;
 
     public NumericNameGenerator() {
@@ -32,11 +40,11 @@ class NumericNameGenerator implements NameGenerator {
     }
 
     public void setPrefix(String prefix) {
-        this.prefix = prefix;
+        this.prefix = StringUtils.defaultString(prefix);
     }
 
     public void setSuffix(String suffix) {
-        this.suffix = suffix;
+        this.suffix = StringUtils.defaultString(suffix);
     }
 
     public void setGenerator(IntGenerator generator) {
@@ -45,8 +53,7 @@ class NumericNameGenerator implements NameGenerator {
 
     @Override
     public String next(Random random) {
-        int value = generator.next(random);
-        return StringUtils.join(new Object[] { prefix, value, suffix });
+        return toName(generator.next(random));
     }
     
     @Override
@@ -56,8 +63,12 @@ class NumericNameGenerator implements NameGenerator {
 
     @Override
     public String next(Random random, int idx, int all) {
-        int value = generator.next(random, idx, all);
-        return StringUtils.join(new Object[] { prefix, value, suffix });
+        return toName(generator.next(random, idx, all));
+    }
+
+    private String toName(int value) {
+        return new StringBuilder(prefix.length() + 11 + suffix.length())
+                .append(prefix).append(value).append(suffix).toString();
     }
 
 }
@@ -0,0 +1,92 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.driver.generator;
+
+import java.util.Random;
+
+/**
+ * This class holds pre-generated payload data shared by all writers in the
+ * driver. Objects are sliced out of the pool starting at a per-object offset
+ * and wrapping around at the end, so no content is generated on the write path
+ * while the data still varies from one object to another.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class PayloadPool {
+
+    public static final int SIZE = 1024 * 1024; // 1 MB
+
+    private static final PayloadPool RANDOM = newRandomPool();
+    private static final PayloadPool ZERO = new PayloadPool(new byte[SIZE]);
+    private static final PayloadPool BINARY = newBinaryPool();
+
+    private final byte[] data;
+
+    public PayloadPool(byte[] data) {
+        if (data == null || data.length == 0)
+            throw new IllegalArgumentException();
+        this.data = data;
+    }
+
+    /**
+     * @return the shared pool of random lower-case letters, or of zeros.
+     */
+    public static PayloadPool getPool(boolean isRandom) {
+        return isRandom ? RANDOM : ZERO;
+    }
+
+    /**
+     * @return the shared pool of random bytes over the full byte range, which
+     *         do not compress at all.
+     */
+    public static PayloadPool getBinaryPool() {
+        return BINARY;
+    }
+
+    private static PayloadPool newBinaryPool() {
+        byte[] data = new byte[SIZE];
+        new Random().nextBytes(data);
+        return new PayloadPool(data);
+    }
+
+    private static PayloadPool newRandomPool() {
+        Random random = new Random();
+        byte[] data = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            data[i] = (byte) (random.nextInt(26) + 'a');
+        return new PayloadPool(data);
+    }
+
+    /* the backing data, which must never be modified */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * Picks the offset where one object starts in the pool.
+     */
+    public int pickOffset(Random random) {
+        return random.nextInt(data.length);
+    }
+
+}
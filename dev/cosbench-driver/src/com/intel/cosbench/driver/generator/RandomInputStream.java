@@ -17,59 +17,119 @@ limitations under the License.
 
 package com.intel.cosbench.driver.generator;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.security.NoSuchAlgorithmException;
 import java.util.Random;
 
 import org.apache.commons.io.input.NullInputStream;
-import org.apache.commons.lang.math.RandomUtils;
 
+import com.intel.cosbench.api.storage.PayloadSource;
 import com.intel.cosbench.driver.util.HashUtil;
 import com.intel.cosbench.log.*;
 
 /**
  * This class is to generate random data as input stream for data uploading.
+ * <p>
+ * The content is sliced out of a shared {@link PayloadPool} from a random
+ * offset picked per object, so nothing is generated per object. When read as a
+ * stream the slices are copied into the caller's buffer; storage clients which
+ * support {@link PayloadSource} get the slices written straight to the request
+ * body instead. In unique mode the first bytes of every 4 KB block carry a tag
+ * derived from a per-object random value, so no two blocks of any objects are
+ * identical for dedup-sensitive backends. With a {@link ContentGenerator} each
+ * 4 KB block is instead laid out as the generator prescribes, which controls
+ * how well the content compresses and dedups. With hash check on, a checksum of
+ * the content is appended as trailer.
  * 
  * @author ywang19, qzheng7
  * 
  */
-public class RandomInputStream extends NullInputStream {
+public class RandomInputStream extends NullInputStream implements PayloadSource {
 
-    private static final int SIZE = 4096; // 4 KB
+    static final int BLOCK = 4096; // 4 KB
+    static final int TAG = 8; // tag bytes per block in unique or generated mode
 
-    private byte[] buffer;
+    private static final byte[] ZEROS = new byte[BLOCK];
+
+    private final byte[] pool;
+    private int cursor; /* offset of the next content byte in the pool */
+
+    private final boolean unique;
+    private final long tag;
+    private final byte[] tagBytes = new byte[TAG];
+
+    private final ContentGenerator generator;
+    private final Random random;
+    private long block = -1; /* index of the current generated block */
+    private int blockOff; /* offset of the current generated block in the pool */
 
     private boolean hashCheck = false;
     private HashUtil util = null;
     private int hashLen = 0;
     private byte[] hashBytes;
     private long size = 0;
+    private long body = 0; /* content size without the hash trailer */
     private long processed = 0;
 
+    /* the current slice to emit */
+    private byte[] src;
+    private int srcOff;
+    private int srcLen;
+
     private static Logger logger = LogFactory.getSystemLogger();
 
     public RandomInputStream(long size, Random random, boolean isRandom,
             boolean hashCheck) {
+        this(size, random, PayloadPool.getPool(isRandom), false, hashCheck);
+    }
+
+    public RandomInputStream(long size, Random random, PayloadPool payload,
+            boolean unique, boolean hashCheck) {
+        super(size);
+        initHash(size, hashCheck);
+
+        this.pool = payload.getData();
+        this.cursor = payload.pickOffset(random);
+        this.unique = unique;
+        this.tag = unique ? random.nextLong() : 0L;
+        this.generator = null;
+        this.random = null;
+    }
+
+    public RandomInputStream(long size, Random random,
+            ContentGenerator generator, boolean hashCheck) {
         super(size);
+        initHash(size, hashCheck);
+
+        this.pool = generator.getData();
+        this.unique = false;
+        this.tag = 0L;
+        this.generator = generator;
+        this.random = random;
+    }
 
+    private void initHash(long size, boolean hashCheck) {
         this.hashCheck = hashCheck;
-        try {
-            this.util = new HashUtil();
-        } catch (NoSuchAlgorithmException e) {
-            logger.error("Alogrithm not found", e);
+        if (hashCheck) {
+            try {
+                this.util = new HashUtil();
+                this.hashLen = this.util.getHashLen();
+            } catch (NoSuchAlgorithmException e) {
+                logger.error("Alogrithm not found", e);
+                this.hashCheck = false;
+            }
         }
-        this.hashLen = this.util.getHashLen();
-        if (size <= hashLen) {
+        if (this.hashCheck && size <= hashLen) {
             logger.warn("The size is too small to embed checksum, will ignore integrity checking.");
             this.hashCheck = false;
+        }
+        if (!this.hashCheck) {
             this.util = null;
             this.hashLen = 0;
         }
         this.size = size;
-
-        buffer = new byte[SIZE];
-        if (isRandom)
-            for (int i = 0; i < SIZE; i++)
-                buffer[i] = (byte) (RandomUtils.nextInt(random, 26) + 'a');
+        this.body = size - hashLen;
     }
 
     @Override
@@ -79,52 +139,107 @@ public class RandomInputStream extends NullInputStream {
 
     @Override
     protected void processBytes(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            nextSlice();
+            int segment = length > srcLen ? srcLen : length;
+            System.arraycopy(src, srcOff, bytes, offset, segment);
+            consume(segment);
+
+            length -= segment;
+            offset += segment;
+        } // data copy completed
+    }
 
-        if (!hashCheck) {
-            do {
-                int segment = length > SIZE ? SIZE : length;
-                System.arraycopy(buffer, 0, bytes, offset, segment);
+    @Override
+    public long writeTo(OutputStream out) throws IOException {
+        long start = processed;
+        while (processed < size) {
+            nextSlice();
+            out.write(src, srcOff, srcLen);
+            consume(srcLen);
+        }
+        long written = processed - start;
+        skip(size - getPosition()); // keep the stream position in line
+        return written;
+    }
 
-                length -= segment;
-                offset += segment;
-            } while (length > 0); // data copy completed
+    /* locates the longest slice which can be emitted at the current position */
+    private void nextSlice() {
+        if (processed >= body) { // hash trailer
+            if (hashBytes == null)
+                hashBytes = toBytes(util.calculateHash());
+            src = hashBytes;
+            srcOff = (int) (processed - body);
+            srcLen = hashLen - srcOff;
+            return;
+        }
+        long left = body - processed;
+        int inBlock = (int) (processed % BLOCK);
+        if (generator != null) {
+            nextGeneratedSlice(inBlock, left);
+            return;
+        }
+        if (unique && inBlock < TAG) {
+            fillTag(tag ^ (processed / BLOCK * 0x9E3779B97F4A7C15L));
+            src = tagBytes;
+            srcOff = inBlock;
+            srcLen = (int) Math.min(TAG - inBlock, left);
+            return;
+        }
+        src = pool;
+        srcOff = cursor;
+        srcLen = (int) Math.min(pool.length - cursor, left);
+        if (unique)
+            srcLen = Math.min(srcLen, BLOCK - inBlock);
+    }
 
+    /* key, then incompressible bytes, then zeros, as the generator prescribes */
+    private void nextGeneratedSlice(int inBlock, long left) {
+        long index = processed / BLOCK;
+        if (index != block) {
+            long key = generator.nextKey(random);
+            fillTag(key);
+            blockOff = generator.offsetOf(key);
+            block = index;
+        }
+        int randomLen = generator.getRandomLen();
+        if (inBlock < TAG) {
+            src = tagBytes;
+            srcOff = inBlock;
+            srcLen = (int) Math.min(TAG - inBlock, left);
+        } else if (inBlock < randomLen) {
+            src = pool;
+            srcOff = blockOff + inBlock;
+            srcLen = (int) Math.min(randomLen - inBlock, left);
         } else {
-            if (length <= hashLen) {
-                System.arraycopy(hashBytes, hashLen - length, bytes, 0, length);
+            src = ZEROS;
+            srcOff = inBlock;
+            srcLen = (int) Math.min(BLOCK - inBlock, left);
+        }
+    }
 
-                return;
-            }
+    private void consume(int length) {
+        if (hashCheck && src != hashBytes)
+            util.update(src, srcOff, length);
+        if (src == pool && generator == null) {
+            cursor += length;
+            if (cursor == pool.length)
+                cursor = 0;
+        }
+        processed += length;
+    }
 
-            int gap = (int) ((processed + length) - (size - hashLen));
-            if (gap > 0) // partial hash needs append in gap area.
-                length -= gap;
-
-            processed += length;
-            do {
-                int segment = length > SIZE ? SIZE : length;
-                System.arraycopy(buffer, 0, bytes, offset, segment);
-                util.update(buffer, 0, segment);
-
-                length -= segment;
-                offset += segment;
-            } while (length > 0); // data copy completed
-
-            if ((gap <= hashLen) && (gap >= 0)) {
-                // append md5 hash
-                String hashString = util.calculateHash();
-
-                try {
-                    hashBytes = hashString.getBytes("UTF-8");
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    hashBytes = hashString.getBytes();
-                }
-
-                if (gap > 0)
-                    System.arraycopy(hashBytes, 0, bytes, offset, gap);
-            }
+    private void fillTag(long value) {
+        for (int i = 0; i < TAG; i++, value >>>= 8)
+            tagBytes[i] = (byte) value;
+    }
 
+    private static byte[] toBytes(String hashString) {
+        try {
+            return hashString.getBytes("UTF-8");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return hashString.getBytes();
         }
     }
 
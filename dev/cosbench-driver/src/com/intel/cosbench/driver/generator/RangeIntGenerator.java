@@ -31,7 +31,8 @@ public class RangeIntGenerator implements IntGenerator {
     private int lower;
     private int upper;
 
-    private AtomicInteger cursors[] = null;
+    /* one cursor per worker, published once fully initialized */
+    private volatile AtomicInteger cursors[] = null;
 
     static class TestThread extends Thread {
         private int all;
@@ -102,11 +103,12 @@ public class RangeIntGenerator implements IntGenerator {
     	if(cursors != null) 
     		return;
     	
-      	this.cursors = new AtomicInteger[all];
+      	AtomicInteger[] cursors = new AtomicInteger[all];
 
 		for (int i = 0; i<all; i++) {
 			cursors[i] = new AtomicInteger(0);
 		}
+		this.cursors = cursors;
     }
     
     @Override
@@ -116,8 +118,11 @@ public class RangeIntGenerator implements IntGenerator {
 
     @Override
     public int next(Random random, int idx, int all) {
-    	if(cursors == null)
+    	AtomicInteger[] cursors = this.cursors;
+    	if(cursors == null) {
     		init(all);
+    		cursors = this.cursors;
+    	}
     		
         int range = upper - lower + 1;
         int base = range / all;
@@ -125,7 +130,8 @@ public class RangeIntGenerator implements IntGenerator {
         int offset = base * (idx - 1) + (extra >= idx - 1 ? idx - 1 : extra);
         int segment = base + (extra >= idx ? 1 : 0);
         
-    	return lower + offset + cursors[idx-1].getAndIncrement() % segment;
+    	int cursor = cursors[idx-1].getAndIncrement() & Integer.MAX_VALUE;
+    	return lower + offset + cursor % segment;
     }
 
     public static RangeIntGenerator parse(String pattern) {
@@ -2,21 +2,55 @@ package com.intel.cosbench.driver.generator;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import org.apache.commons.io.input.CountingInputStream;
 
+import com.intel.cosbench.api.storage.PayloadSource;
+
 /**
  * This class is to record the time of data transfer
  * 
+ * It passes direct writes through when the wrapped stream is a
+ * {@link PayloadSource}, counting the bytes written that way as well.
  * 
  */
 
-public class XferCountingInputStream extends CountingInputStream{
+public class XferCountingInputStream extends CountingInputStream implements PayloadSource {
+	private final InputStream source;
 	private long xferStart = 0L;
 	private long xferEnd = 0L;
+	private long written = 0L; /* bytes written directly */
 	private boolean isFirstByte = true;
 	
 	public XferCountingInputStream(InputStream in) {
 		super(in);	
+		this.source = in;
+	}
+
+	@Override
+	public long writeTo(OutputStream out) throws IOException {
+		if (!(source instanceof PayloadSource)) {
+			byte[] buffer = new byte[4096];
+			long count = 0;
+			int n;
+			while ((n = read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+				count += n;
+			}
+			return count; // already counted by read()
+		}
+		recordTime();
+		long count = ((PayloadSource) source).writeTo(out);
+		recordTime();
+		synchronized (this) {
+			written += count;
+		}
+		return count;
+	}
+
+	@Override
+	public synchronized long getByteCount() {
+		return super.getByteCount() + written;
 	}
 	
 	@Override
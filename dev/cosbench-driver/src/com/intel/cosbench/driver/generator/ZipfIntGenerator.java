@@ -1,72 +1,59 @@
 package com.intel.cosbench.driver.generator;
 
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.math.RandomUtils;
 import com.intel.cosbench.config.ConfigException;
 
+/**
+ * This class generates integers following a zipfian distribution, configured as
+ * "z(items,theta)" or "z(items,theta,scrambled)". Values range from 0 to items - 1,
+ * and 0 is the most popular one unless the distribution is scrambled.
+ * <p>
+ * Sampling uses the rejection-inversion method from "Rejection-Inversion to Generate
+ * Variates from Monotone Discrete Distributions", W. Hormann and G. Derflinger, 1996,
+ * which takes constant expected time and needs no zeta sum over all items. The
+ * precomputed sampler constants are cached per (items, theta) for the whole driver,
+ * so operators and missions with the same pattern share them.
+ * <p>
+ * The scrambled variant maps each rank through a fixed permutation of the item space,
+ * so hot keys are spread across containers instead of clustering at low indices.
+ */
 class ZipfIntGenerator implements IntGenerator {
 
     public static final double ZIPFIAN_CONSTANT = 0.99;
 
-    /**
-     * Number of items.
-     */
-    private final long items;
+    private static final String SCRAMBLED = "scrambled";
 
     /**
-     * Min item to generate.
+     * Samplers shared by all generators, keyed by items and theta.
      */
-    private final long base;
+    private static final ConcurrentMap<String, Sampler> SAMPLERS = new ConcurrentHashMap<String, Sampler>();
 
     /**
-     * The zipfian constant to use.
+     * Number of items.
      */
-    private final double zipfianconstant;
+    private final long items;
 
     /**
-     * Computed parameters for generating the distribution.
+     * Min item to generate.
      */
-    private double alpha, zetan, eta, theta, zeta2theta;
+    private final long base;
 
     /**
-     * The number of items used to compute zetan the last time.
+     * The cached sampler for the given items and theta.
      */
-    private long countforzeta;
+    private final Sampler sampler;
 
     /**
-     * Flag to prevent problems. If you increase the number of items the zipfian generator is allowed to choose from,
-     * this code will incrementally compute a new zeta value for the larger itemcount. However, if you decrease the
-     * number of items, the code computes zeta from scratch; this is expensive for large itemsets.
-     * Usually this is not intentional; e.g. one thread thinks the number of items is 1001 and calls "nextLong()" with
-     * that item count; then another thread who thinks the number of items is 1000 calls nextLong() with itemcount=1000
-     * triggering the expensive recomputation. (It is expensive for 100 million items, not really for 1000 items.) Why
-     * did the second thread think there were only 1000 items? maybe it read the item count before the first thread
-     * incremented it. So this flag allows you to say if you really do want that recomputation. If true, then the code
-     * will recompute zeta if the itemcount goes down. If false, the code will assume itemcount only goes up, and never
-     * recompute.
+     * Multiplier of the rank permutation, 1 if not scrambled.
      */
-    private boolean allowitemcountdecrease = false;
+    private final long multiplier;
 
     /******************************* Constructors **************************************/
 
-    /**
-     * Create a zipfian generator for the specified number of items.
-     * @param items The number of items in the distribution.
-     */
-    public ZipfIntGenerator(long items) {
-        this(0, items - 1);
-    }
-
-    /**
-     * Create a zipfian generator for items between min and max.
-     * @param min The smallest integer to generate in the sequence.
-     * @param max The largest integer to generate in the sequence.
-     */
-    public ZipfIntGenerator(long min, long max) {
-        this(min, max, ZIPFIAN_CONSTANT);
-    }
-
     /**
      * Create a zipfian generator for the specified number of items using the specified zipfian constant.
      *
@@ -74,7 +61,7 @@ class ZipfIntGenerator implements IntGenerator {
      * @param zipfianconstant The zipfian constant to use.
      */
     public ZipfIntGenerator(long items, double zipfianconstant) {
-        this(0, items - 1, zipfianconstant);
+        this(0, items - 1, zipfianconstant, false);
     }
 
     /**
@@ -82,166 +69,64 @@ class ZipfIntGenerator implements IntGenerator {
      * @param min The smallest integer to generate in the sequence.
      * @param max The largest integer to generate in the sequence.
      * @param zipfianconstant The zipfian constant to use.
-     */
-    public ZipfIntGenerator(long min, long max, double zipfianconstant) {
-        this(min, max, zipfianconstant, zetastatic(max - min + 1, zipfianconstant));
-    }
-
-    /**
-     * Create a zipfian generator for items between min and max (inclusive) for the specified zipfian constant, using
-     * the precomputed value of zeta.
-     *
-     * @param min The smallest integer to generate in the sequence.
-     * @param max The largest integer to generate in the sequence.
-     * @param zipfianconstant The zipfian constant to use.
-     * @param zetan The precomputed zeta constant.
-     */
-    public ZipfIntGenerator(long min, long max, double zipfianconstant, double zetan) {
-
-        items = max - min + 1;
-        base = min;
-        this.zipfianconstant = zipfianconstant;
-
-        theta = this.zipfianconstant;
-
-        zeta2theta = zeta(2, theta);
-
-        alpha = 1.0 / (1.0 - theta);
-        this.zetan = zetan;
-        countforzeta = items;
-        eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / this.zetan);
-        nextValue(new Random());
+     * @param scrambled Whether popular items are scattered throughout the item space.
+     */
+    public ZipfIntGenerator(long min, long max, double zipfianconstant, boolean scrambled) {
+        if (max < min || zipfianconstant < 0)
+            throw new IllegalArgumentException();
+        this.items = max - min + 1;
+        this.base = min;
+        this.sampler = getSampler(items, zipfianconstant);
+        this.multiplier = scrambled ? getMultiplier(items) : 1;
     }
 
     /**************************************************************************/
 
-    /**
-     * Compute the zeta constant needed for the distribution. Do this from scratch for a distribution with n items,
-     * using the zipfian constant thetaVal. Remember the value of n, so if we change the itemcount, we can recompute zeta.
-     *
-     * @param n The number of items to compute zeta over.
-     * @param thetaVal The zipfian constant.
-     */
-    double zeta(long n, double thetaVal) {
-        countforzeta = n;
-        return zetastatic(n, thetaVal);
-    }
-
-    /**
-     * Compute the zeta constant needed for the distribution. Do this from scratch for a distribution with n items,
-     * using the zipfian constant theta. This is a static version of the function which will not remember n.
-     * @param n The number of items to compute zeta over.
-     * @param theta The zipfian constant.
-     */
-    static double zetastatic(long n, double theta) {
-        return zetastatic(0, n, theta, 0);
-    }
-
-    /**
-     * Compute the zeta constant needed for the distribution. Do this incrementally for a distribution that
-     * has n items now but used to have st items. Use the zipfian constant thetaVal. Remember the new value of
-     * n so that if we change the itemcount, we'll know to recompute zeta.
-     *
-     * @param st The number of items used to compute the last initialsum
-     * @param n The number of items to compute zeta over.
-     * @param thetaVal The zipfian constant.
-     * @param initialsum The value of zeta we are computing incrementally from.
-     */
-    double zeta(long st, long n, double thetaVal, double initialsum) {
-        countforzeta = n;
-        return zetastatic(st, n, thetaVal, initialsum);
-    }
-
-    /**
-     * Compute the zeta constant needed for the distribution. Do this incrementally for a distribution that
-     * has n items now but used to have st items. Use the zipfian constant theta. Remember the new value of
-     * n so that if we change the itemcount, we'll know to recompute zeta.
-     * @param st The number of items used to compute the last initialsum
-     * @param n The number of items to compute zeta over.
-     * @param theta The zipfian constant.
-     * @param initialsum The value of zeta we are computing incrementally from.
-     */
-    static double zetastatic(long st, long n, double theta, double initialsum) {
-        double sum = initialsum;
-        for (long i = st; i < n; i++) {
-
-            sum += 1 / (Math.pow(i + 1, theta));
+    static Sampler getSampler(long items, double theta) {
+        String key = items + ":" + theta;
+        Sampler sampler = SAMPLERS.get(key);
+        if (sampler == null) {
+            sampler = new Sampler(items, theta);
+            Sampler prev = SAMPLERS.putIfAbsent(key, sampler);
+            if (prev != null)
+                sampler = prev;
         }
-
-        //System.out.println("countforzeta="+countforzeta);
-
-        return sum;
+        return sampler;
     }
 
-    /****************************************************************************************/
-
-
     /**
-     * Generate the next item as a long.
-     *
-     * @param itemcount The number of items in the distribution.
-     * @return The next item in the sequence.
+     * Pick a multiplier coprime with the number of items, close to items / golden ratio, so that
+     * consecutive ranks land far apart and rank * multiplier mod items is a permutation.
+     * The hottest rank lands on the multiplier itself rather than on the first item.
      */
-    long nextLong(long itemcount, Random rnd) {
-        //from "Quickly Generating Billion-Record Synthetic Databases", Jim Gray et al, SIGMOD 1994
-
-        if (itemcount != countforzeta) {
-
-            //have to recompute zetan and eta, since they depend on itemcount
-            synchronized (this) {
-                if (itemcount > countforzeta) {
-                    //System.err.println("WARNING: Incrementally recomputing Zipfian distribtion. (itemcount="+itemcount+"
-                    // countforzeta="+countforzeta+")");
-
-                    //we have added more items. can compute zetan incrementally, which is cheaper
-                    zetan = zeta(countforzeta, itemcount, theta, zetan);
-                    eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
-                } else if ((itemcount < countforzeta) && (allowitemcountdecrease)) {
-                    //have to start over with zetan
-                    //note : for large itemsets, this is very slow. so don't do it!
-
-                    //TODO: can also have a negative incremental computation, e.g. if you decrease the number of items,
-                    // then just subtract the zeta sequence terms for the items that went away. This would be faster than
-                    // recomputing from scratch when the number of items decreases
-
-                    System.err.println("WARNING: Recomputing Zipfian distribtion. This is slow and should be avoided. " +
-                      "(itemcount=" + itemcount + " countforzeta=" + countforzeta + ")");
-
-                    zetan = zeta(itemcount, theta);
-                    eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
-                }
-            }
-        }
-
-        double u = rnd.nextDouble();
-        double uz = u * zetan;
-
-        if (uz < 1.0) {
-            return base;
-        }
+    static long getMultiplier(long items) {
+        if (items <= 2)
+            return 1;
+        long m = (long) (items * 0.6180339887498949) | 1L;
+        while (gcd(m, items) != 1)
+            m += 2;
+        return m % items;
+    }
 
-        if (uz < 1.0 + Math.pow(0.5, theta)) {
-            return base + 1;
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
         }
-
-        long ret = base + (long) ((itemcount) * Math.pow(eta * u - eta + 1, alpha));
-        //setLastValue(ret);
-        return ret;
+        return a;
     }
 
     /**
-     * Return the next value, skewed by the Zipfian distribution. The 0th item will be the most popular, followed by
-     * the 1st, followed by the 2nd, etc. (Or, if min != 0, the min-th item is the most popular, the min+1th item the
-     * next most popular, etc.) If you want the popular items scattered throughout the item space, use
-     * ScrambledZipfianGenerator instead.
+     * Return the next value, skewed by the Zipfian distribution.
      */
-
-    public Long nextValue(Random rnd) {
-        return nextLong(items, rnd);
+    long nextLong(Random rnd) {
+        long rank = sampler.sample(rnd); // 1 based
+        if (multiplier == 1)
+            return base + rank - 1;
+        return base + rank * multiplier % items; // still a permutation of 0 .. items - 1
     }
 
-
-
     @Override
     public int next(Random random) {
         return next(random, 1, 1);
@@ -249,7 +134,7 @@ class ZipfIntGenerator implements IntGenerator {
 
     @Override
     public int next(Random random, int idx, int all) {
-        return nextValue(random).intValue();
+        return (int) nextLong(random);
     }
 
     public static ZipfIntGenerator parse(String pattern) {
@@ -259,7 +144,7 @@ class ZipfIntGenerator implements IntGenerator {
             return tryParse(pattern);
         } catch (Exception e) {
         }
-        String msg = "illegal uniform distribution pattern: " + pattern;
+        String msg = "illegal zipfian distribution pattern: " + pattern;
         throw new ConfigException(msg);
     }
 
@@ -267,7 +152,84 @@ class ZipfIntGenerator implements IntGenerator {
         pattern = StringUtils.substringBetween(pattern, "(", ")");
         String[] args = StringUtils.split(pattern, ',');
         int size = Integer.parseInt(args[0]);
-        double skew = Double.parseDouble(args[1]);
-        return new ZipfIntGenerator(size, skew);
+        double skew = args.length > 1 ? Double.parseDouble(args[1]) : ZIPFIAN_CONSTANT;
+        boolean scrambled = false;
+        if (args.length > 2) {
+            if (!SCRAMBLED.equals(args[2].trim()))
+                throw new IllegalArgumentException();
+            scrambled = true;
+        }
+        return new ZipfIntGenerator(0, size - 1, skew, scrambled);
     }
+
+    /**
+     * The immutable part of the rejection-inversion sampler, producing ranks from 1 to n with
+     * probability proportional to 1 / rank^exponent.
+     */
+    static class Sampler {
+
+        private final long n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        Sampler(long n, double exponent) {
+            if (n <= 0)
+                throw new IllegalArgumentException();
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1d;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2d - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        long sample(Random random) {
+            if (exponent == 0)
+                return 1 + (long) (random.nextDouble() * n); // uniform
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                long k = (long) (x + 0.5);
+                if (k < 1)
+                    k = 1;
+                else if (k > n)
+                    k = n;
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k))
+                    return k;
+            }
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1d - exponent) * logX) * logX;
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = x * (1d - exponent);
+            if (t < -1d)
+                t = -1d; // limit to the domain of log1p
+            return Math.exp(helper1(t) * x);
+        }
+
+        /* log(1 + x) / x, accurate near 0 */
+        private static double helper1(double x) {
+            if (Math.abs(x) > 1e-8)
+                return Math.log1p(x) / x;
+            return 1d - x * (0.5 - x * (1d / 3d - 0.25 * x));
+        }
+
+        /* (exp(x) - 1) / x, accurate near 0 */
+        private static double helper2(double x) {
+            if (Math.abs(x) > 1e-8)
+                return Math.expm1(x) / x;
+            return 1d + x * 0.5 * (1d + x * (1d / 3d) * (1d + 0.25 * x));
+        }
+
+    }
+
 }
@@ -23,6 +23,7 @@ import java.util.concurrent.Future;
 import com.intel.cosbench.bench.*;
 import com.intel.cosbench.config.*;
 import com.intel.cosbench.config.common.KVConfigParser;
+import com.intel.cosbench.driver.util.ArrivalScheduler;
 import com.intel.cosbench.driver.util.OperationPicker;
 import com.intel.cosbench.log.LogManager;
 import com.intel.cosbench.model.*;
@@ -48,6 +49,7 @@ public class MissionContext implements MissionInfo {
     private ErrorStatistics errorStatistics;
     private transient OperationPicker operationPicker;
     private transient OperatorRegistry operatorRegistry;
+    private transient ArrivalScheduler arrivalScheduler; /* null for closed loop */
     
     private WorkerRegistry workerRegistry;
 
@@ -107,19 +109,17 @@ public class MissionContext implements MissionInfo {
         Report report = merger.merge();
         Config missionConfig = KVConfigParser.parse(mission.getConfig());
         boolean histogram = missionConfig.getBoolean(GENERATE_HISTOGRAM_KEY, DEFAULT_GENERATE_HISTOGRAM);
-        if(histogram) {
-        	generateHistogram(report);
+        if(!histogram) {
+        	removeHistogram(report);
         }
         return report;
     }
     
-    private void generateHistogram(Report report) {
-        OperatorRegistry registry = operatorRegistry;
-        for (Metrics metrics : report) {
-            OperatorContext op = registry.getOperator(metrics.getOpId());
-            metrics.setLatency(Histogram.convert(op.getCounter()));
-        }
+    private void removeHistogram(Report report) {
+        for (Metrics metrics : report)
+            metrics.setLatency(null);
     }
+
     @Override
     public StateInfo[] getStateHistory() {
         return stateHistory.getAllStates();
@@ -177,6 +177,14 @@ public class MissionContext implements MissionInfo {
         this.operationPicker = operationPicker;
     }
 
+    public ArrivalScheduler getArrivalScheduler() {
+        return arrivalScheduler;
+    }
+
+    public void setArrivalScheduler(ArrivalScheduler arrivalScheduler) {
+        this.arrivalScheduler = arrivalScheduler;
+    }
+
     public OperatorRegistry getOperatorRegistry() {
         return operatorRegistry;
     }
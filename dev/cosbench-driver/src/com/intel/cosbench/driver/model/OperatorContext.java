@@ -17,9 +17,9 @@ limitations under the License.
 
 package com.intel.cosbench.driver.model;
 
-import com.intel.cosbench.bench.*;
 import com.intel.cosbench.driver.operator.Operator;
-import com.intel.cosbench.log.*;
+import com.intel.cosbench.driver.operator.PartedOperator;
+import com.intel.cosbench.driver.util.TokenBucket;
 import com.intel.cosbench.utils.MapRegistry.Item;
 
 /**
@@ -30,10 +30,9 @@ import com.intel.cosbench.utils.MapRegistry.Item;
  */
 public class OperatorContext implements Item {
 
-    private static Logger logger = LogFactory.getSystemLogger();
-
+    private int index; /* position in the operator registry */
     private Operator operator;
-    private Counter counter = Counter.getResCounter();
+    private TokenBucket limiter; /* throughput cap, null for none */
 
     public OperatorContext() {
         /* empty */
@@ -56,6 +55,21 @@ public class OperatorContext implements Item {
         return operator.getSampleType();
     }
 
+    /* the sample type of per-part samples, null if there are none */
+    public String getPartSampleType() {
+        if (operator instanceof PartedOperator)
+            return ((PartedOperator) operator).getPartSampleType();
+        return null;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     public Operator getOperator() {
         return operator;
     }
@@ -64,25 +78,12 @@ public class OperatorContext implements Item {
         this.operator = operator;
     }
 
-    public void addSample(Sample sample) {
-        if (!sample.isSucc())
-            return;
-        doAddSample(sample);
-    }
-
-    private void doAddSample(Sample sample) {
-        long time = sample.getTime();
-        long start = System.nanoTime();
-        counter.doAdd(time); // atomic addition (CPU intensive)
-        long end = System.nanoTime();
-        double dura = end - start;
-        if (dura >= 500000) // if greater than 0.5 milliseconds
-            logger.warn("heavy atomic op overhead detected: {}ms",
-                    dura / 1000000); // from nanosecond to millisecond
+    public TokenBucket getLimiter() {
+        return limiter;
     }
 
-    public Counter getCounter() {
-        return counter;
+    public void setLimiter(TokenBucket limiter) {
+        this.limiter = limiter;
     }
 
 }
@@ -30,6 +30,8 @@ public class OperatorRegistry extends MapRegistry<OperatorContext> {
     }
     
     public void addItem(OperatorContext item) {
+        OperatorContext prev = registry.get(item.getId());
+        item.setIndex(prev != null ? prev.getIndex() : registry.size());
         registry.put(item.getId(), item);
     }
 
@@ -17,13 +17,18 @@ limitations under the License.
 
 package com.intel.cosbench.driver.operator;
 
-
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 
+import com.intel.cosbench.api.storage.StorageInterruptedException;
 import com.intel.cosbench.bench.ErrorStatistics;
+import com.intel.cosbench.bench.Result;
+import com.intel.cosbench.bench.Sample;
 import com.intel.cosbench.config.Config;
 import com.intel.cosbench.log.LogFactory;
 import com.intel.cosbench.log.Logger;
+import com.intel.cosbench.service.AbortedException;
 
 /**
  * The base class encapsulates different operations.
@@ -112,6 +117,66 @@ abstract class AbstractOperator implements Operator {
     }
 
     protected abstract void operate(int idx, int all, Session session);
+
+    /*
+     * Reports an operation completed in pipelined mode the same way the
+     * blocking operation reports its outcome, see AsyncOperator.
+     */
+    public void complete(Session session, PendingOperation pending) {
+        Exception e = pending.getError();
+        Sample sample;
+        if (e == null) {
+            sample = getSample(session, this, pending.getStart(),
+                    pending.getEnd(), pending.getXferTime(), pending.getBytes());
+        } else if (e instanceof StorageInterruptedException) {
+            doLogErr(session.getLogger(), e.getMessage(), e);
+            throw new AbortedException();
+        } else {
+            isUnauthorizedException(e, session);
+            errorStatisticsHandle(e, session, pending.getTarget());
+            sample = getSample(session, this, false);
+        }
+        session.getListener().onSampleCreated(sample);
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
+        session.getListener().onOperationCompleted(result);
+    }
+
+    /*
+     * The sample and result records are owned by the worker and re-initialized
+     * for each operation, so the hot path does not allocate them.
+     */
+    protected static Sample getSample(Session session, Operator op, boolean succ) {
+        return session.getSample().reset(System.nanoTime(), op.getId(),
+                op.getOpType(), op.getSampleType(), op.getName(), succ, 0L,
+                0L, 0L);
+    }
+
+    protected static Sample getSample(Session session, Operator op, long start,
+            long end, long xferTime, long bytes) {
+        return session.getSample().reset(end, op.getId(), op.getOpType(),
+                op.getSampleType(), op.getName(), true, end - start, xferTime,
+                bytes);
+    }
+
+    /*
+     * Reads the whole stream into the worker's scratch buffer and returns the
+     * number of bytes read, the content itself is discarded.
+     */
+    protected static long drain(InputStream in, byte[] buffer)
+            throws IOException {
+        long count = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1)
+            count += n;
+        return count;
+    }
+
+    protected static Result getResult(Session session, Operator op,
+            long timestamp, boolean succ) {
+        return session.getResult().reset(timestamp, op.getId(),
+                op.getOpType(), op.getSampleType(), op.getName(), succ);
+    }
     
     public static void errorStatisticsHandle(Exception e, Session session, String target){
     		String trace = e.getStackTrace()[0].toString();
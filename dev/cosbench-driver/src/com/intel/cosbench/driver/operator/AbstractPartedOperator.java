@@ -0,0 +1,220 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.driver.operator;
+
+import java.util.concurrent.*;
+
+import com.intel.cosbench.api.storage.*;
+import com.intel.cosbench.bench.Sample;
+import com.intel.cosbench.config.Config;
+import com.intel.cosbench.config.ConfigException;
+import com.intel.cosbench.driver.generator.Generators;
+import com.intel.cosbench.service.AbortedException;
+
+/**
+ * The base class of operations which move one object in parts of "partsize"
+ * bytes, up to "parallel" parts at a time.
+ * <p>
+ * Parts run on the shared storage I/O threads when the storage client can be
+ * used from several threads at once (see
+ * {@link AsyncStorageAPI#isAsyncSupported()}), and one after another on the
+ * worker's thread otherwise. Either way, each part is reported from the
+ * worker's thread as it completes, under the "part" sample type.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+abstract class AbstractPartedOperator extends AbstractOperator implements
+        PartedOperator {
+
+    public static final String PART_SAMPLE_TYPE = "part";
+
+    protected long partSize;
+    protected int parallel;
+
+    /**
+     * One part of an operation.
+     */
+    protected interface Part {
+
+        /**
+         * Moves the given part and records its transfer time in it.
+         * 
+         * @return the number of content bytes transferred.
+         */
+        public long run(PartResult part) throws Exception;
+
+    }
+
+    /**
+     * The outcome of one part.
+     */
+    protected static class PartResult implements StorageCallback {
+
+        private final BlockingQueue<PartResult> completions;
+
+        final int index; /* starting from 0 */
+        long start;
+        long end;
+        long xferTime; /* in milliseconds */
+        long bytes;
+        Exception error;
+
+        PartResult(int index, BlockingQueue<PartResult> completions) {
+            this.index = index;
+            this.completions = completions;
+        }
+
+        @Override
+        public void started() {
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void paused(Runnable resume) {
+            resume.run(); // parts have no thread of their own to hand it to
+        }
+
+        @Override
+        public void completed(long bytes) {
+            this.end = System.nanoTime();
+            this.bytes = bytes;
+            completions.offer(this);
+        }
+
+        @Override
+        public void failed(Exception e) {
+            this.end = System.nanoTime();
+            this.error = e;
+            completions.offer(this);
+        }
+
+    }
+
+    /**
+     * The outcome of all parts of one operation.
+     */
+    protected static class PartsResult {
+
+        long first = Long.MAX_VALUE; /* start of the first part */
+        long last = Long.MIN_VALUE; /* end of the last part */
+        long bytes;
+        Exception error; /* of the first failed part */
+
+        long getXferTime() {
+            return last > first ? (last - first) / 1000000 : 0L;
+        }
+
+    }
+
+    @Override
+    protected void init(String id, int ratio, String division, Config config) {
+        super.init(id, ratio, division, config);
+        partSize = Generators.parseSize(config.get("partsize", "64MB"));
+        parallel = config.getInt("parallel", 4);
+        if (partSize <= 0 || parallel <= 0)
+            throw new ConfigException("partsize and parallel should be positive");
+    }
+
+    @Override
+    public String getPartSampleType() {
+        return PART_SAMPLE_TYPE;
+    }
+
+    /**
+     * Runs all parts of one operation and reports each of them. No more parts
+     * are started once one fails.
+     */
+    protected PartsResult runParts(Session session, int count, final Part part) {
+        boolean concurrent = parallel > 1
+                && session.getApi() instanceof AsyncStorageAPI
+                && ((AsyncStorageAPI) session.getApi()).isAsyncSupported();
+        int limit = concurrent ? parallel : 1;
+        BlockingQueue<PartResult> completions = new LinkedBlockingQueue<PartResult>();
+        PartsResult result = new PartsResult();
+        int next = 0;
+        int running = 0;
+        if (concurrent)
+            AsyncStorageSupport.reserve(limit);
+        try {
+            while (running > 0 || (next < count && result.error == null)) {
+                while (running < limit && next < count && result.error == null) {
+                    final PartResult pr = new PartResult(next++, completions);
+                    running++;
+                    if (concurrent)
+                        AsyncStorageSupport.submit(new AsyncStorageSupport.Task() {
+                            @Override
+                            public long call() throws Exception {
+                                return part.run(pr);
+                            }
+                        }, pr);
+                    else
+                        runPart(part, pr);
+                }
+                PartResult done;
+                try {
+                    done = completions.take();
+                } catch (InterruptedException ie) {
+                    throw new AbortedException();
+                }
+                running--;
+                reportPart(session, done, result);
+            }
+        } finally {
+            if (concurrent)
+                AsyncStorageSupport.release(limit);
+        }
+        return result;
+    }
+
+    private static void runPart(Part part, PartResult pr) {
+        if (Thread.interrupted())
+            throw new AbortedException();
+        pr.start = System.nanoTime();
+        long bytes;
+        try {
+            bytes = part.run(pr);
+        } catch (Exception e) {
+            pr.failed(e);
+            return;
+        }
+        pr.completed(bytes);
+    }
+
+    private void reportPart(Session session, PartResult pr, PartsResult result) {
+        Sample sample;
+        if (pr.error == null) {
+            sample = session.getSample().reset(pr.end, getId(), getOpType(),
+                    getPartSampleType(), getName(), true, pr.end - pr.start,
+                    pr.xferTime, pr.bytes);
+            result.bytes += pr.bytes;
+            result.first = Math.min(result.first, pr.start);
+            result.last = Math.max(result.last, pr.end);
+        } else {
+            if (pr.error instanceof StorageInterruptedException)
+                throw new AbortedException();
+            sample = session.getSample().reset(pr.end, getId(), getOpType(),
+                    getPartSampleType(), getName(), false, 0L, 0L, 0L);
+            if (result.error == null)
+                result.error = pr.error;
+        }
+        session.getListener().onSampleCreated(sample);
+    }
+
+}
@@ -0,0 +1,46 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+package com.intel.cosbench.driver.operator;
+
+/**
+ * An operation which can also be issued asynchronously, so that a worker can
+ * keep several of them in flight.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public interface AsyncOperator extends Operator {
+
+    /**
+     * Tells whether this operation can be issued asynchronously with its
+     * current settings.
+     */
+    public boolean isAsync();
+
+    /**
+     * Issues the operation; its outcome is always delivered to the given
+     * pending operation, even if it fails right away.
+     */
+    public void issue(Session session, PendingOperation pending);
+
+    /**
+     * Reports a completed operation to the session listener, on the thread of
+     * the worker which issued it.
+     */
+    public void complete(Session session, PendingOperation pending);
+
+}
@@ -22,7 +22,6 @@ import static com.intel.cosbench.driver.operator.Deleter.doDelete;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
@@ -93,9 +92,7 @@ class Cleaner extends AbstractOperator {
         if (deleteContainer && lastContainer != null)
             doDispose(lastContainer, config, session);
 
-        Date now = new Date();
-		Result result = new Result(now, getId(), getOpType(), getSampleType(),
-				getName(), true);
+        Result result = getResult(session, this, System.nanoTime(), true);
         session.getListener().onOperationCompleted(result);
     }
 
@@ -17,8 +17,8 @@ limitations under the License.
 
 package com.intel.cosbench.driver.operator;
 
-import java.util.Date;
 
+import com.intel.cosbench.api.storage.AsyncStorageAPI;
 import com.intel.cosbench.api.storage.StorageException;
 import com.intel.cosbench.api.storage.StorageInterruptedException;
 import com.intel.cosbench.bench.*;
@@ -32,7 +32,7 @@ import com.intel.cosbench.service.AbortedException;
  * @author ywang19, qzheng7
  * 
  */
-class Deleter extends AbstractOperator {
+class Deleter extends AbstractOperator implements AsyncOperator {
 
     public static final String OP_TYPE = "delete";
 
@@ -58,12 +58,43 @@ class Deleter extends AbstractOperator {
         String[] path = objPicker.pickObjPath(session.getRandom(), idx, all);
         Sample sample = doDelete(path[0], path[1], config, session, this);
         session.getListener().onSampleCreated(sample);
-        Date now = sample.getTimestamp();
-        Result result = new Result(now, getId(), getOpType(), getSampleType(),
-				getName(), sample.isSucc());
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
         session.getListener().onOperationCompleted(result);
     }
     
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    @Override
+    public void issue(Session session, PendingOperation pending) {
+        if (Thread.interrupted())
+            throw new AbortedException();
+        String[] path = objPicker.pickObjPath(session.getRandom(),
+                session.getIndex(), session.getTotalWorkers());
+        pending.begin(path[0], path[1], null);
+        try {
+            ((AsyncStorageAPI) session.getApi()).deleteObjectAsync(path[0],
+                    path[1], config, pending);
+        } catch (Exception e) {
+            pending.failed(e);
+        }
+    }
+
+    @Override
+    public void complete(Session session, PendingOperation pending) {
+        Exception e = pending.getError();
+        if (e instanceof StorageException
+                && !(e instanceof StorageInterruptedException)) {
+            String msg = "Error deleting object " + pending.getTarget();
+            doLogWarn(session.getLogger(), msg);
+            pending.clearError();
+        }
+        super.complete(session, pending);
+    }
+
     public static Sample doDelete(String conName, String objName,
             Config config, Session session, Operator op) {
         if (Thread.interrupted())
@@ -83,14 +114,12 @@ class Deleter extends AbstractOperator {
         	isUnauthorizedException(e, session);
         	errorStatisticsHandle(e, session, conName + "/" + objName); 
 
-            return new Sample(new Date(), op.getId(), op.getOpType(),
-					op.getSampleType(), op.getName(), false);
+            return getSample(session, op, false);
         }
 
         long end = System.nanoTime();
 
-        return new Sample(new Date(), op.getId(), op.getOpType(), op.getSampleType(),
-				op.getName(), true, (end - start) / 1000000, 0L, 0L);
+        return getSample(session, op, start, end, 0L, 0L);
     }
 
 }
@@ -21,7 +21,6 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.Random;
 
 import org.apache.commons.io.IOUtils;
@@ -85,8 +84,7 @@ class FileWriter extends AbstractOperator {
         Sample sample;
         if (!folder.canRead()) {
             doLogErr(session.getLogger(), "fail to perform file filewrite operation, can not read " + folder.getAbsolutePath());
-			sample = new Sample(new Date(), getId(), getOpType(),
-					getSampleType(), getName(), false);
+			sample = getSample(session, this, false);
         }
         Random random = session.getRandom();
         String containerName = contPicker.pickContName(random, idx, all);
@@ -111,23 +109,19 @@ class FileWriter extends AbstractOperator {
             sample = doWrite(fis, length, containerName, filename, config, session);
         } catch (FileNotFoundException e) {
             doLogErr(session.getLogger(), "failed to perform file Write operation, file not found", e);
-			sample = new Sample(new Date(), getId(), getOpType(),
-					getSampleType(), getName(), false);
+			sample = getSample(session, this, false);
         } catch (ArrayIndexOutOfBoundsException e) {
             doLogErr(session.getLogger(), "failed to perform file Write operation, tried to put more files than exist", e);
-            sample = new Sample(new Date(),  getId(), getOpType(),
-					getSampleType(), getName(), false);
+            sample = getSample(session, this, false);
         } catch (NoSuchAlgorithmException e) {
             doLogErr(session.getLogger(),
                     "failed to perform file Write operation, hash Algorithm MD5 not supported, deaktivate hashCheck, maybe?", e);
-            sample = new Sample(new Date(), getId(), getOpType(),
-					getSampleType(), getName(), false);
+            sample = getSample(session, this, false);
         }
 
         session.getListener().onSampleCreated(sample);
-        Date now = sample.getTimestamp();
-		Result result = new Result(now, getId(), getOpType(), getSampleType(),
-				getName(), sample.isSucc());
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
         session.getListener().onOperationCompleted(result);
     }
 
@@ -147,15 +141,14 @@ class FileWriter extends AbstractOperator {
         } catch (Exception e) {
         	isUnauthorizedException(e, session);
             doLogErr(session.getLogger(), "fail to perform filewrite operation", e);
-            return new Sample(new Date(), getId(), getOpType(), getSampleType(),
-    				getName(), false);
+            return getSample(session, this, false);
         } finally {
             IOUtils.closeQuietly(cin);
         }
 
         long end = System.nanoTime();
 
-        return new Sample(new Date(),  getId(), getOpType(), getSampleType(),
-				getName(), true, (end - start) / 1000000, cin.getXferTime(), cin.getByteCount());
+        return getSample(session, this, start, end, cin.getXferTime(),
+                cin.getByteCount());
     }
 }
@@ -17,13 +17,9 @@ limitations under the License.
 
 package com.intel.cosbench.driver.operator;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.Date;
+
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.CountingOutputStream;
-import org.apache.commons.io.output.NullOutputStream;
 
 import com.intel.cosbench.api.storage.StorageInterruptedException;
 import com.intel.cosbench.bench.Result;
@@ -38,8 +34,6 @@ public class Lister extends AbstractOperator {
 
     private ObjectPicker objPicker = new ObjectPicker();
 
-    private byte buffer[] = new byte[1024*1024];
-
     public Lister() {
         /* empty */
     }
@@ -58,30 +52,28 @@ public class Lister extends AbstractOperator {
     @Override
     protected void operate(int idx, int all, Session session) {
         String[] path = objPicker.pickTargetPath(session.getRandom(), idx, all);
-        NullOutputStream out = new NullOutputStream();
-        Sample sample = doList(out, path[0], path[1], config, session);
+        Sample sample = doList(path[0], path[1], config, session);
         session.getListener().onSampleCreated(sample);
-        Date now = sample.getTimestamp();
-		Result result = new Result(now, getId(), getOpType(), getSampleType(),
-				getName(), sample.isSucc());
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
         session.getListener().onOperationCompleted(result);
     }
 
-    private Sample doList(OutputStream out, String conName, String objName,
-            Config config, Session session) {
+    private Sample doList(String conName, String objName, Config config,
+            Session session) {
         if (Thread.interrupted())
             throw new AbortedException();
 
         InputStream in = null;
-        CountingOutputStream cout = new CountingOutputStream(out);
         doLogWarn(session.getLogger(), "listerrr: "+ conName + "/" + objName);//###
         long start = System.nanoTime();
         long xferTime = 0L;
+        long bytes = 0L;
         try {
             doLogDebug(session.getLogger(), "worker "+ session.getIndex() + " List target " + conName + "/" + objName);
 	        in = session.getApi().getList(conName, objName, config);
 	        long xferStart = System.nanoTime();
-	        copyLarge(in, cout);
+	        bytes = drain(in, session.getBuffer());
 	        xferTime = (System.nanoTime() - xferStart) / 1000000;
         } catch (StorageInterruptedException sie) {
             doLogErr(session.getLogger(), sie.getMessage(), sie);
@@ -90,23 +82,13 @@ public class Lister extends AbstractOperator {
         	isUnauthorizedException(e, session);
         	errorStatisticsHandle(e, session, conName + "/" + objName);
 
-            return new Sample(new Date(), getId(), getOpType(), getSampleType(), getName(), false);
+            return getSample(session, this, false);
         } finally {
             IOUtils.closeQuietly(in);
-            IOUtils.closeQuietly(cout);
         }
         long end = System.nanoTime();
 
-		return new Sample(new Date(), getId(), getOpType(), getSampleType(),
-				getName(), true, (end - start) / 1000000, xferTime, cout.getByteCount());
-    }
-
-    public OutputStream copyLarge(InputStream input, OutputStream output)
-            throws IOException
-    {
-            IOUtils.copyLarge(input, output);
-
-            return output;
+        return getSample(session, this, start, end, xferTime, bytes);
     }
 
 }
@@ -0,0 +1,171 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.driver.operator;
+
+import java.util.*;
+
+import org.apache.commons.io.IOUtils;
+
+import com.intel.cosbench.api.storage.*;
+import com.intel.cosbench.bench.Result;
+import com.intel.cosbench.bench.Sample;
+import com.intel.cosbench.config.Config;
+import com.intel.cosbench.driver.generator.XferCountingInputStream;
+import com.intel.cosbench.driver.util.*;
+import com.intel.cosbench.service.AbortedException;
+
+/**
+ * This class represents multipart WRITE operation, which uploads an object in
+ * parts of "partsize" bytes, up to "parallel" parts at a time. Storage without
+ * multipart upload gets the object in one piece instead.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class MultipartWriter extends AbstractPartedOperator {
+
+    public static final String OP_TYPE = "mpwrite";
+
+    private boolean hashCheck = false;
+    private boolean warned = false;
+    private ObjectPicker objPicker = new ObjectPicker();
+    private SizePicker sizePicker = new SizePicker();
+    private ContentPicker contentPicker = new ContentPicker();
+
+    public MultipartWriter() {
+        /* empty */
+    }
+
+    @Override
+    protected void init(String id, int ratio, String division, Config config) {
+        super.init(id, ratio, division, config);
+        objPicker.init(division, config);
+        sizePicker.init(config);
+        contentPicker.init(config);
+        hashCheck = config.getBoolean("hashCheck", false);
+    }
+
+    @Override
+    public String getOpType() {
+        return OP_TYPE;
+    }
+
+    @Override
+    protected void operate(int idx, int all, Session session) {
+        Random random = session.getRandom();
+        long size = sizePicker.pickObjSize(random);
+        String[] path = objPicker.pickObjPath(random, idx, all);
+        Sample sample;
+        StorageAPI api = session.getApi();
+        if (api instanceof MultipartStorageAPI
+                && ((MultipartStorageAPI) api).isMultipartSupported()) {
+            sample = doMultipartWrite(size, path[0], path[1], random, session);
+        } else {
+            if (!warned) {
+                doLogWarn(session.getLogger(),
+                        "multipart upload is not supported by the storage, objects are written in one piece");
+                warned = true;
+            }
+            sample = Writer.doWrite(
+                    contentPicker.pickContent(size, random, hashCheck), size,
+                    path[0], path[1], config, session, this);
+        }
+        session.getListener().onSampleCreated(sample);
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
+        session.getListener().onOperationCompleted(result);
+    }
+
+    private Sample doMultipartWrite(long size, final String conName,
+            final String objName, Random random, Session session) {
+        if (Thread.interrupted())
+            throw new AbortedException();
+
+        final MultipartStorageAPI api = (MultipartStorageAPI) session.getApi();
+        int count = (int) Math.max(1, (size + partSize - 1) / partSize);
+        /* parts may be read on other threads, each gets its own random source */
+        final List<XferCountingInputStream> contents = new ArrayList<XferCountingInputStream>(
+                count);
+        final long[] lengths = new long[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = Math.min(partSize, size - i * partSize);
+            contents.add(new XferCountingInputStream(contentPicker
+                    .pickContent(lengths[i], new Random(random.nextLong()),
+                            hashCheck)));
+        }
+        final String[] handles = new String[count];
+
+        long start = System.nanoTime();
+        String uploadId = null;
+        try {
+            uploadId = api.initMultipartUpload(conName, objName, config);
+            final String upload = uploadId;
+            PartsResult parts = runParts(session, count, new Part() {
+                @Override
+                public long run(PartResult part) throws Exception {
+                    XferCountingInputStream cin = contents.get(part.index);
+                    try {
+                        handles[part.index] = api.uploadPart(conName, objName,
+                                upload, part.index + 1, cin,
+                                lengths[part.index], config);
+                    } finally {
+                        IOUtils.closeQuietly(cin);
+                    }
+                    part.xferTime = cin.getXferTime();
+                    return cin.getByteCount();
+                }
+            });
+            if (parts.error != null)
+                throw parts.error;
+            api.completeMultipartUpload(conName, objName, uploadId,
+                    Arrays.asList(handles), config);
+            long end = System.nanoTime();
+            return getSample(session, this, start, end, parts.getXferTime(),
+                    parts.bytes);
+        } catch (StorageInterruptedException sie) {
+            doLogErr(session.getLogger(), sie.getMessage(), sie);
+            abort(api, conName, objName, uploadId, session);
+            throw new AbortedException();
+        } catch (AbortedException ae) {
+            abort(api, conName, objName, uploadId, session);
+            throw ae;
+        } catch (Exception e) {
+            isUnauthorizedException(e, session);
+            errorStatisticsHandle(e, session, conName + "/" + objName);
+            abort(api, conName, objName, uploadId, session);
+            return getSample(session, this, false);
+        } finally {
+            for (XferCountingInputStream cin : contents)
+                IOUtils.closeQuietly(cin);
+        }
+    }
+
+    private void abort(MultipartStorageAPI api, String conName,
+            String objName, String uploadId, Session session) {
+        if (uploadId == null)
+            return;
+        try {
+            api.abortMultipartUpload(conName, objName, uploadId, config);
+        } catch (Exception e) {
+            doLogWarn(session.getLogger(), "fail to abort multipart upload "
+                    + uploadId + " of " + conName + "/" + objName);
+        }
+    }
+
+}
@@ -48,6 +48,10 @@ public class Operators {
             return new Disposer();
         if (StringUtils.equals(type, Deleter.OP_TYPE))
             return new Deleter();
+        if (StringUtils.equals(type, MultipartWriter.OP_TYPE))
+            return new MultipartWriter();
+        if (StringUtils.equals(type, RangeReader.OP_TYPE))
+            return new RangeReader();
         String msg = "unrecognized operation: " + type;
         throw new ConfigException(msg);
     }
@@ -0,0 +1,34 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.driver.operator;
+
+/**
+ * An operation which moves one object in several parts, and reports a sample
+ * for each part besides the one for the whole object.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public interface PartedOperator extends Operator {
+
+    /**
+     * @return the sample type of the per-part samples.
+     */
+    public String getPartSampleType();
+
+}
@@ -0,0 +1,170 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+package com.intel.cosbench.driver.operator;
+
+import java.util.Queue;
+
+import com.intel.cosbench.api.storage.StorageCallback;
+import com.intel.cosbench.driver.generator.XferCountingInputStream;
+
+/**
+ * This class tracks one operation in flight in pipelined mode.
+ * <p>
+ * The operation is timed from the moment the storage actually sends it until
+ * the storage calls back (or from its intended start in open-loop mode), and
+ * the record then queues itself for the worker, which reports it from its own
+ * thread. The record is queued the same way when the storage pauses the
+ * operation, for the worker to resume it. Records are owned by the worker and
+ * reused for each operation.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class PendingOperation implements StorageCallback {
+
+    private final Queue<PendingOperation> completions;
+
+    /* set by the worker */
+    private AsyncOperator operator;
+    private int slot;
+    private long issued; /* in milliseconds */
+    private long intended; /* intended start in nanoseconds, 0 in closed loop */
+
+    /* set by the operator */
+    private String container;
+    private String object;
+    private XferCountingInputStream data;
+
+    /* set while paused, until the worker resumes it */
+    private volatile Runnable resume;
+
+    /* set on completion */
+    private long start;
+    private long end;
+    private long bytes;
+    private Exception error;
+
+    public PendingOperation(Queue<PendingOperation> completions) {
+        this.completions = completions;
+    }
+
+    public void reset(AsyncOperator operator, int slot, long issued,
+            long intended) {
+        this.operator = operator;
+        this.slot = slot;
+        this.issued = issued;
+        this.intended = intended;
+        this.container = null;
+        this.object = null;
+        this.data = null;
+        this.bytes = 0L;
+        this.error = null;
+        this.resume = null;
+    }
+
+    /* called by the operator right before the storage call */
+    void begin(String container, String object, XferCountingInputStream data) {
+        this.container = container;
+        this.object = object;
+        this.data = data;
+        this.start = System.nanoTime(); // in case it fails before it starts
+    }
+
+    @Override
+    public void started() {
+        this.start = System.nanoTime();
+    }
+
+    @Override
+    public void paused(Runnable resume) {
+        this.resume = resume;
+        completions.offer(this);
+    }
+
+    /**
+     * Runs the step the storage paused the operation for, if any.
+     * 
+     * @return true if the operation was paused, and is in flight again
+     */
+    public boolean resume() {
+        Runnable resume = this.resume;
+        if (resume == null)
+            return false;
+        this.resume = null;
+        resume.run();
+        return true;
+    }
+
+    @Override
+    public void completed(long bytes) {
+        this.end = System.nanoTime();
+        this.bytes = bytes;
+        completions.offer(this);
+    }
+
+    @Override
+    public void failed(Exception e) {
+        this.end = System.nanoTime();
+        this.error = e;
+        completions.offer(this);
+    }
+
+    public AsyncOperator getOperator() {
+        return operator;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public long getIssued() {
+        return issued;
+    }
+
+    public long getIntended() {
+        return intended;
+    }
+
+    String getTarget() {
+        return container + "/" + object;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    long getBytes() {
+        return data != null ? data.getByteCount() : bytes;
+    }
+
+    long getXferTime() {
+        return data != null ? data.getXferTime() : 0L;
+    }
+
+    Exception getError() {
+        return error;
+    }
+
+    void clearError() {
+        error = null;
+    }
+
+}
@@ -45,11 +45,11 @@ class Preparer extends AbstractOperator {
     public static final String OP_TYPE = "prepare";
 
     private boolean chunked;
-    private boolean isRandom;
     private boolean createContainer;
     private boolean hashCheck = false;
     private ObjectScanner objScanner = new ObjectScanner();
     private SizePicker sizePicker = new SizePicker();
+    private ContentPicker contentPicker = new ContentPicker();
 
     public Preparer() {
         /* empty */
@@ -61,7 +61,7 @@ class Preparer extends AbstractOperator {
         objScanner.init(division, config);
         sizePicker.init(config);
         chunked = config.getBoolean("chunked", false);
-        isRandom = !config.get("content", "random").equals("zero");
+        contentPicker.init(config);
         createContainer = config.getBoolean("createContainer", true);
         hashCheck = config.getBoolean("hashCheck", false);
     }
@@ -92,16 +92,14 @@ class Preparer extends AbstractOperator {
             Random random = session.getRandom();
             long size = sizePicker.pickObjSize(random);
             long len = chunked ? -1 : size;
-            RandomInputStream in = new RandomInputStream(size, random,
-                    isRandom, hashCheck);
+            RandomInputStream in = contentPicker.pickContent(size, random,
+                    hashCheck);
             Sample sample = doWrite(in, len, path[0], path[1], config, session, this);
             sample.setOpType(opTye);
             session.getListener().onSampleCreated(sample);
         }
 
-        Date now = new Date();
-		Result result = new Result(now, getId(), getOpType(), getSampleType(),
-				getName(), true);
+        Result result = getResult(session, this, System.nanoTime(), true);
         session.getListener().onOperationCompleted(result);
     }
 
@@ -0,0 +1,107 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.driver.operator;
+
+import java.io.InputStream;
+import java.util.Random;
+
+import com.intel.cosbench.api.storage.*;
+import com.intel.cosbench.bench.Result;
+import com.intel.cosbench.bench.Sample;
+import com.intel.cosbench.config.Config;
+import com.intel.cosbench.driver.util.*;
+import com.intel.cosbench.service.AbortedException;
+
+/**
+ * This class represents parallel ranged READ operation, which downloads an
+ * object of the size given by "sizes" in ranges of "partsize" bytes, up to
+ * "parallel" ranges at a time.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class RangeReader extends AbstractPartedOperator {
+
+    public static final String OP_TYPE = "rangeread";
+
+    private ObjectPicker objPicker = new ObjectPicker();
+    private SizePicker sizePicker = new SizePicker();
+
+    public RangeReader() {
+        /* empty */
+    }
+
+    @Override
+    protected void init(String id, int ratio, String division, Config config) {
+        super.init(id, ratio, division, config);
+        objPicker.init(division, config);
+        sizePicker.init(config);
+    }
+
+    @Override
+    public String getOpType() {
+        return OP_TYPE;
+    }
+
+    @Override
+    protected void operate(int idx, int all, Session session) {
+        Random random = session.getRandom();
+        String[] path = objPicker.pickObjPath(random, idx, all);
+        long size = sizePicker.pickObjSize(random);
+        Sample sample = doRangeRead(size, path[0], path[1], session);
+        session.getListener().onSampleCreated(sample);
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
+        session.getListener().onOperationCompleted(result);
+    }
+
+    private Sample doRangeRead(final long size, final String conName,
+            final String objName, Session session) {
+        if (Thread.interrupted())
+            throw new AbortedException();
+
+        final StorageAPI api = session.getApi();
+        int count = (int) Math.max(1, (size + partSize - 1) / partSize);
+
+        long start = System.nanoTime();
+        PartsResult parts = runParts(session, count, new Part() {
+            @Override
+            public long run(PartResult part) throws Exception {
+                long offset = part.index * partSize;
+                long length = Math.min(partSize, size - offset);
+                InputStream in = api.getObjectRange(conName, objName,
+                        offset, length, config);
+                long xferStart = System.nanoTime();
+                long bytes = AsyncStorageSupport.drain(in);
+                part.xferTime = (System.nanoTime() - xferStart) / 1000000;
+                return bytes;
+            }
+        });
+        if (parts.error != null) {
+            isUnauthorizedException(parts.error, session);
+            errorStatisticsHandle(parts.error, session, conName + "/"
+                    + objName);
+            return getSample(session, this, false);
+        }
+        long end = System.nanoTime();
+        return getSample(session, this, start, end, parts.getXferTime(),
+                parts.bytes);
+    }
+
+}
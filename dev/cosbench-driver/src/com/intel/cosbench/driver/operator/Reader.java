@@ -19,32 +19,34 @@ package com.intel.cosbench.driver.operator;
 
 import java.io.*;
 import java.security.NoSuchAlgorithmException;
-import java.util.Date;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.*;
 
+import com.intel.cosbench.api.storage.AsyncStorageAPI;
 import com.intel.cosbench.api.storage.StorageInterruptedException;
 import com.intel.cosbench.bench.*;
 import com.intel.cosbench.config.Config;
+import com.intel.cosbench.config.ConfigException;
 import com.intel.cosbench.driver.util.*;
 import com.intel.cosbench.service.AbortedException;
 
 /**
- * This class represents primitive READ operation.
+ * This class represents primitive READ operation, which reads either whole
+ * objects or, when "range" is given, byte ranges picked by {@link RangePicker}.
  *
  * @author ywang19, qzheng7
  *
  */
-class Reader extends AbstractOperator {
+class Reader extends AbstractOperator implements AsyncOperator {
 
     public static final String OP_TYPE = "read";
 
     private boolean hashCheck = false;
+    private boolean ranged = false;
 
     private ObjectPicker objPicker = new ObjectPicker();
-
-    private byte buffer[] = new byte[1024*1024];
+    private RangePicker rangePicker = new RangePicker();
 
     public Reader() {
         /* empty */
@@ -55,6 +57,9 @@ class Reader extends AbstractOperator {
         super.init(id, ratio, division, config);
         objPicker.init(division, config);
         hashCheck = config.getBoolean("hashCheck", false);
+        ranged = rangePicker.init(config);
+        if (ranged && hashCheck)
+            throw new ConfigException("hashCheck cannot be used with range reads");
     }
 
     @Override
@@ -65,33 +70,60 @@ class Reader extends AbstractOperator {
     @Override
     protected void operate(int idx, int all, Session session) {
         String[] path = objPicker.pickObjPath(session.getRandom(), idx, all);
-        NullOutputStream out = new NullOutputStream();
-        Sample sample = doRead(out, path[0], path[1], config, session);
+        long[] range = ranged ? rangePicker.pickRange(session.getRandom()) : null;
+        Sample sample = doRead(path[0], path[1], range, config, session);
         session.getListener().onSampleCreated(sample);
-        Date now = sample.getTimestamp();
-		Result result = new Result(now, getId(), getOpType(), getSampleType(),
-				getName(), sample.isSucc());
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
         session.getListener().onOperationCompleted(result);
     }
 
-    private Sample doRead(OutputStream out, String conName, String objName,
+    @Override
+    public boolean isAsync() {
+        // checksums are validated on the worker's thread
+        return !hashCheck && !ranged;
+    }
+
+    @Override
+    public void issue(Session session, PendingOperation pending) {
+        if (Thread.interrupted())
+            throw new AbortedException();
+        String[] path = objPicker.pickObjPath(session.getRandom(),
+                session.getIndex(), session.getTotalWorkers());
+        pending.begin(path[0], path[1], null);
+        try {
+            ((AsyncStorageAPI) session.getApi()).getObjectAsync(path[0],
+                    path[1], config, pending);
+        } catch (Exception e) {
+            pending.failed(e);
+        }
+    }
+
+    private Sample doRead(String conName, String objName, long[] range,
             Config config, Session session) {
         if (Thread.interrupted())
             throw new AbortedException();
 
         InputStream in = null;
-        CountingOutputStream cout = new CountingOutputStream(out);
+        CountingOutputStream cout = null;
 
         long start = System.nanoTime();
         long xferTime = 0L;
+        long bytes = 0L;
         try {
-            in = session.getApi().getObject(conName, objName, config);
+            if (range == null)
+                in = session.getApi().getObject(conName, objName, config);
+            else
+                in = session.getApi().getObjectRange(conName, objName,
+                        range[0], range[1], config);
             long xferStart = System.nanoTime();
             if (!hashCheck) {
-                copyLarge(in, cout);
-            } else if (!validateChecksum(conName, objName, session, in, cout)) {
-				return new Sample(new Date(), getId(), getOpType(),
-						getSampleType(), getName(), false);
+                bytes = drain(in, session.getBuffer());
+            } else {
+                cout = new CountingOutputStream(new NullOutputStream());
+                if (!validateChecksum(conName, objName, session, in, cout))
+                    return getSample(session, this, false);
+                bytes = cout.getByteCount();
             }
             long xferEnd = System.nanoTime();
             xferTime = (xferEnd - xferStart) / 1000000;
@@ -102,24 +134,14 @@ class Reader extends AbstractOperator {
         	isUnauthorizedException(e, session);
         	errorStatisticsHandle(e, session, conName + "/" + objName);
 
-            return new Sample(new Date(), getId(), getOpType(), getSampleType(), getName(), false);
+            return getSample(session, this, false);
         } finally {
             IOUtils.closeQuietly(in);
             IOUtils.closeQuietly(cout);
         }
         long end = System.nanoTime();
 
-		return new Sample(new Date(), getId(), getOpType(), getSampleType(),
-				getName(), true, (end - start)/1000000,
-				xferTime, cout.getByteCount());
-    }
-
-    public OutputStream copyLarge(InputStream input, OutputStream output)
-            throws IOException
-    {
-            IOUtils.copyLarge(input, output);
-
-            return output;
+        return getSample(session, this, start, end, xferTime, bytes);
     }
 
     private static boolean validateChecksum(String conName, String objName,
@@ -21,6 +21,8 @@ import java.util.Random;
 
 import com.intel.cosbench.api.storage.StorageAPI;
 import com.intel.cosbench.bench.ErrorStatistics;
+import com.intel.cosbench.bench.Result;
+import com.intel.cosbench.bench.Sample;
 import com.intel.cosbench.log.Logger;
 
 public interface Session {
@@ -38,6 +40,14 @@ public interface Session {
     public OperationListener getListener();
     
     public ErrorStatistics getErrorStatistics();
-	
+
+    /* the sample record owned by this worker, reused for each operation */
+    public Sample getSample();
+
+    /* the result record owned by this worker, reused for each operation */
+    public Result getResult();
+
+    /* a scratch buffer owned by this worker for draining response bodies */
+    public byte[] getBuffer();
 
 }
@@ -18,17 +18,18 @@ limitations under the License.
 package com.intel.cosbench.driver.operator;
 
 import java.io.InputStream;
-import java.util.Date;
 import java.util.Random;
 
 import org.apache.commons.io.IOUtils;
 
+import com.intel.cosbench.api.storage.AsyncStorageAPI;
 import com.intel.cosbench.api.storage.StorageInterruptedException;
 import com.intel.cosbench.bench.Result;
 import com.intel.cosbench.bench.Sample;
 import com.intel.cosbench.config.Config;
 import com.intel.cosbench.driver.generator.RandomInputStream;
 import com.intel.cosbench.driver.generator.XferCountingInputStream;
+import com.intel.cosbench.driver.util.ContentPicker;
 import com.intel.cosbench.driver.util.ObjectPicker;
 import com.intel.cosbench.driver.util.SizePicker;
 import com.intel.cosbench.service.AbortedException;
@@ -39,15 +40,15 @@ import com.intel.cosbench.service.AbortedException;
  * @author ywang19, qzheng7
  * 
  */
-class Writer extends AbstractOperator {
+class Writer extends AbstractOperator implements AsyncOperator {
 
     public static final String OP_TYPE = "write";
 
     private boolean chunked;
-    private boolean isRandom;
     private boolean hashCheck = false;
     private ObjectPicker objPicker = new ObjectPicker();
     private SizePicker sizePicker = new SizePicker();
+    private ContentPicker contentPicker = new ContentPicker();
 
     public Writer() {
         /* empty */
@@ -59,7 +60,7 @@ class Writer extends AbstractOperator {
         objPicker.init(division, config);
         sizePicker.init(config);
         chunked = config.getBoolean("chunked", false);
-        isRandom = !config.get("content", "random").equals("zero");
+        contentPicker.init(config);
         hashCheck = config.getBoolean("hashCheck", false);
     }
 
@@ -74,17 +75,42 @@ class Writer extends AbstractOperator {
         long size = sizePicker.pickObjSize(random);
         long len = chunked ? -1 : size;
         String[] path = objPicker.pickObjPath(random, idx, all);
-        RandomInputStream in = new RandomInputStream(size, random, isRandom,
+        RandomInputStream in = contentPicker.pickContent(size, random,
                 hashCheck);
 		Sample sample = doWrite(in, len, path[0], path[1], config, session,
 				this);
         session.getListener().onSampleCreated(sample);
-        Date now = sample.getTimestamp();
-		Result result = new Result(now, getId(), getOpType(), getSampleType(),
-				getName(), sample.isSucc());
+        Result result = getResult(session, this, sample.getTimestamp(),
+                sample.isSucc());
         session.getListener().onOperationCompleted(result);
     }
     
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    @Override
+    public void issue(Session session, PendingOperation pending) {
+        if (Thread.interrupted())
+            throw new AbortedException();
+        Random random = session.getRandom();
+        long size = sizePicker.pickObjSize(random);
+        long len = chunked ? -1 : size;
+        String[] path = objPicker.pickObjPath(random, session.getIndex(),
+                session.getTotalWorkers());
+        XferCountingInputStream cin = new XferCountingInputStream(
+                contentPicker.pickContent(size, random, hashCheck));
+        pending.begin(path[0], path[1], cin);
+        try {
+            ((AsyncStorageAPI) session.getApi()).createObjectAsync(path[0],
+                    path[1], cin, len, config, pending);
+        } catch (Exception e) {
+            IOUtils.closeQuietly(cin);
+            pending.failed(e);
+        }
+    }
+
     public static  Sample doWrite(InputStream in, long length, String conName,
             String objName, Config config, Session session, Operator op) {
         if (Thread.interrupted())
@@ -103,17 +129,15 @@ class Writer extends AbstractOperator {
         	isUnauthorizedException(e, session);
         	errorStatisticsHandle(e, session, conName + "/" + objName);
         	
-			return new Sample(new Date(), op.getId(), op.getOpType(),
-					op.getSampleType(), op.getName(), false);
+			return getSample(session, op, false);
 			
         } finally {
             IOUtils.closeQuietly(cin);
         }
 
         long end = System.nanoTime();
-		return new Sample(new Date(), op.getId(), op.getOpType(), op.getSampleType(),
-				op.getName(), true, (end - start) / 1000000,
-				cin.getXferTime(), cin.getByteCount());
+		return getSample(session, op, start, end, cin.getXferTime(),
+				cin.getByteCount());
     }
     /*
      * public static Sample doWrite(byte[] data, String conName, String objName,
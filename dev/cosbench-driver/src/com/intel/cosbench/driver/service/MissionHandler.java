@@ -30,11 +30,14 @@ import com.intel.cosbench.api.context.AuthContext;
 import com.intel.cosbench.api.storage.*;
 import com.intel.cosbench.config.*;
 import com.intel.cosbench.config.castor.CastorConfigTools;
+import com.intel.cosbench.config.common.ConfigUtils;
 import com.intel.cosbench.config.common.KVConfigParser;
 import com.intel.cosbench.driver.agent.*;
 import com.intel.cosbench.driver.model.*;
 import com.intel.cosbench.driver.operator.Operators;
+import com.intel.cosbench.driver.util.ArrivalScheduler;
 import com.intel.cosbench.driver.util.OperationPicker;
+import com.intel.cosbench.driver.util.TokenBucket;
 import com.intel.cosbench.log.*;
 import com.intel.cosbench.service.*;
 import com.intel.cosbench.service.IllegalStateException;
@@ -96,6 +99,7 @@ class MissionHandler {
         openLogger();
         createOperators();
         initOpPicker();
+        initArrivalScheduler();
         parseConfigs();
         createWorkers();
         createExecutor();
@@ -127,14 +131,22 @@ class MissionHandler {
         Mission mission = missionContext.getMission();
         initOpDefaultName(mission);
         for (Operation op : mission)
-            registry.addOperator(createOperatorContext(op));
+            registry.addOperator(createOperatorContext(op, mission));
         missionContext.setOperatorRegistry(registry);
     }
 
-    private static OperatorContext createOperatorContext(Operation op) {
+    private static OperatorContext createOperatorContext(Operation op,
+            Mission mission) {
         OperatorContext context = new OperatorContext();
         Config config = KVConfigParser.parse(op.getConfig());
         context.setOperator(Operators.getOperator(op, config));
+        if (mission.getCap() != null) {
+            /* this driver takes its share of the cap, split by op ratio */
+            double cap = ConfigUtils.parseRate(mission.getCap())
+                    * mission.getWorkers() / mission.getTotalWorkers()
+                    * op.getRatio() / 100;
+            context.setLimiter(new TokenBucket(cap));
+        }
         return context;
     }
     
@@ -168,6 +180,17 @@ class MissionHandler {
         missionContext.setOperationPicker(picker);
     }
 
+    private void initArrivalScheduler() {
+        Mission mission = missionContext.getMission();
+        if (mission.getRate() == null)
+            return; // closed loop
+        /* this driver takes its share of the work-wide rate */
+        double rate = ConfigUtils.parseRate(mission.getRate())
+                * mission.getWorkers() / mission.getTotalWorkers();
+        missionContext.setArrivalScheduler(new ArrivalScheduler(rate,
+                mission.getArrival()));
+    }
+
     private void parseConfigs() {
         Mission m = missionContext.getMission();
         authConfig = KVConfigParser.parse(m.getAuth().getConfig());
@@ -213,7 +236,7 @@ class MissionHandler {
     private void createExecutor() {
         Mission mission = missionContext.getMission();
         int workers = mission.getWorkers();
-        executor = Executors.newFixedThreadPool(workers);
+        executor = AgentExecutors.newExecutor(mission.getExecutor(), workers);
     }
 
     public void login() {
@@ -0,0 +1,71 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.driver.util;
+
+import java.util.Random;
+
+/**
+ * This class schedules operation arrivals for open-loop load generation.
+ * <p>
+ * All workers of a mission on one driver share one scheduler, and each of them
+ * claims the next intended send time before performing an operation. Arrivals
+ * are evenly spaced for "uniform", or have exponentially distributed gaps for
+ * "poisson", both at the given mean rate. Send times are fixed in advance and
+ * never pushed back, so when the target falls behind, the delay shows up in
+ * the response time of the late operations instead of lowering the offered
+ * load.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class ArrivalScheduler {
+
+    private final double gap; /* mean gap between arrivals in nanoseconds */
+    private final boolean poisson;
+    private final Random random = new Random();
+
+    private boolean started = false;
+    private long base; /* time of the first arrival */
+    private double offset; /* offset of the next arrival from the first */
+
+    /**
+     * @param rate	arrivals per second
+     * @param arrival	"uniform" or "poisson"
+     */
+    public ArrivalScheduler(double rate, String arrival) {
+        this.gap = 1000000000D / rate;
+        this.poisson = "poisson".equals(arrival);
+    }
+
+    /**
+     * Claims the next arrival, the clock starts with the first claim.
+     * 
+     * @return the intended send time in nanoseconds, from System.nanoTime()
+     */
+    public synchronized long next() {
+        if (!started) {
+            base = System.nanoTime();
+            started = true;
+        }
+        long intended = base + (long) offset;
+        offset += poisson ? -Math.log(1D - random.nextDouble()) * gap : gap;
+        return intended;
+    }
+
+}
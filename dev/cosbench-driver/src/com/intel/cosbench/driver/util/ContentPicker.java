@@ -0,0 +1,61 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.driver.util;
+
+import java.util.Random;
+
+import com.intel.cosbench.config.Config;
+import com.intel.cosbench.driver.generator.*;
+
+/**
+ * This class encapsulates logic to pick up object content, which is either
+ * random letters, zeros or unique blocks as given by "content", or blocks with
+ * the compression and dedup ratio given by "compressratio" and "dedupratio".
+ *
+ * @author ywang19, qzheng7
+ *
+ */
+public class ContentPicker {
+
+    private PayloadPool pool;
+    private boolean unique;
+    private ContentGenerator generator;
+
+    public ContentPicker() {
+        /* empty */
+    }
+
+    public void init(Config config) {
+        String content = config.get("content", "random");
+        pool = PayloadPool.getPool(!content.equals("zero"));
+        unique = content.equals("unique");
+        if (config.get("compressratio", null) != null
+                || config.get("dedupratio", null) != null)
+            generator = ContentGenerator.getGenerator(
+                    config.getDouble("compressratio", 1.0),
+                    config.getDouble("dedupratio", 1.0));
+    }
+
+    public RandomInputStream pickContent(long size, Random random,
+            boolean hashCheck) {
+        if (generator != null)
+            return new RandomInputStream(size, random, generator, hashCheck);
+        return new RandomInputStream(size, random, pool, unique, hashCheck);
+    }
+
+}
@@ -28,6 +28,11 @@ import com.intel.cosbench.driver.generator.*;
 
 /**
  * This class encapsulates logic to pick up objects.
+ * <p>
+ * One picker is shared by all workers of an operator. It holds no mutable state
+ * of its own, and the name generators are safe for concurrent use: random picks
+ * draw from the per-worker random source, and shared cursors are atomic, so no
+ * lock is taken on the operation path.
  * 
  * @author ywang19, qzheng7
  * 
@@ -76,7 +81,6 @@ public class ObjectPicker {
     }
 
     public String[] pickObjPath(Random random, int idx, int all) {
-    	synchronized(this) {
         if (division.equals(OBJECT))
             return new String[] { conNmGen.next(random),
                     objNmGen.next(random, idx, all) };
@@ -84,21 +88,18 @@ public class ObjectPicker {
             return new String[] { conNmGen.next(random, idx, all),
                     objNmGen.next(random) };
         return new String[] { conNmGen.next(random), objNmGen.next(random) };
-    	}
     }
     
     /* a path picker for Lister */
     public String[] pickTargetPath(Random random, int idx, int all) {
-		synchronized (this) {
-			if (conNmGen == null && objNmGen != null) {
-				throw new ConfigException("no such key defined: " + "containers"); 
-			} else if (conNmGen == null && objNmGen == null) {
-				return new String[] { "", "" };
-			} else if (objNmGen == null) {
-				return new String[] { conNmGen.next(random, idx, all), "" };
-			} else {
-				return new String[] { conNmGen.next(random), objNmGen.next(random) };
-			}
+		if (conNmGen == null && objNmGen != null) {
+			throw new ConfigException("no such key defined: " + "containers"); 
+		} else if (conNmGen == null && objNmGen == null) {
+			return new String[] { "", "" };
+		} else if (objNmGen == null) {
+			return new String[] { conNmGen.next(random, idx, all), "" };
+		} else {
+			return new String[] { conNmGen.next(random), objNmGen.next(random) };
 		}
 	}
 
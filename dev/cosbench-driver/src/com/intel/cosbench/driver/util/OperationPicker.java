@@ -17,40 +17,44 @@ limitations under the License.
 
 package com.intel.cosbench.driver.util;
 
-import java.util.*;
-
-import org.apache.commons.lang.math.RandomUtils;
+import java.util.Random;
 
 /**
  * This class encapsulates logic to pick up operations.
+ * <p>
+ * Since operation ratios are whole percentages summing to 100, the picker keeps
+ * a table with one slot per percent, so picking an operation is one random
+ * draw and one array access.
  * 
  * @author ywang19, qzheng7
  * 
  */
 public class OperationPicker {
 
+    private static final int SLOTS = 100;
+
     private int last;
-    private Map<Integer, String> ops;
+    private String[] table;
 
     public OperationPicker() {
-        Map<Integer, String> ops = new LinkedHashMap<Integer, String>();
-        this.ops = ops;
+        this.table = new String[SLOTS];
         this.last = 0;
     }
 
     public void addOperation(String op, int ratio) {
         if (ratio <= 0)
             return;
-        last += ratio;
-        ops.put(last, op);
+        int next = Math.min(last + ratio, SLOTS);
+        for (int i = last; i < next; i++)
+            table[i] = op;
+        last = next;
     }
 
     public String pickOperation(Random random) {
-        int r = RandomUtils.nextInt(random, 100) + 1;
-        for (Map.Entry<Integer, String> entry : ops.entrySet())
-            if (r <= entry.getKey())
-                return entry.getValue();
-        throw new IllegalStateException();
+        String op = table[random.nextInt(SLOTS)];
+        if (op == null)
+            throw new IllegalStateException();
+        return op;
     }
 
 }
@@ -0,0 +1,113 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.driver.util;
+
+import java.util.Random;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.intel.cosbench.config.Config;
+import com.intel.cosbench.config.ConfigException;
+import com.intel.cosbench.driver.generator.*;
+
+/**
+ * This class encapsulates logic to pick up byte ranges within objects.
+ * <p>
+ * The range offset follows "range", which takes the same distributions as
+ * "sizes", with "B" as the default unit and "objsize" standing for the object
+ * size given by "objsize", e.g. "range=u(0,objsize);objsize=1GB". Uniform
+ * offsets may start at zero and go beyond 2GB. The range length follows
+ * "rangesize", e.g. "rangesize=u(64,1024)KB". Ranges are moved back to fit
+ * within the object when its size is known.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class RangePicker {
+
+    private static final String OBJ_SIZE_TOKEN = "objsize";
+
+    private long objSize = -1L; /* in bytes, -1 if unknown */
+    private long base; /* unit of offsets, in bytes */
+    private long lower; /* bounds of uniform offsets */
+    private long upper;
+    private SizeGenerator offsets; /* for other distributions */
+    private SizeGenerator lengths;
+
+    public RangePicker() {
+        /* empty */
+    }
+
+    /**
+     * @return false if no range is given, and whole objects are to be read.
+     */
+    public boolean init(Config config) {
+        String pattern = config.get("range", null);
+        if (pattern == null)
+            return false;
+        String size = config.get("objsize", null);
+        if (size != null)
+            objSize = Generators.parseSize(size);
+        if (!pattern.endsWith("B"))
+            pattern += "B";
+        base = Generators.parseSize("1" + pattern.replaceAll("^.*[^a-zA-Z]", ""));
+        if (pattern.contains(OBJ_SIZE_TOKEN)) {
+            if (objSize < 0)
+                throw new ConfigException("must specify 'objsize' for range " + pattern);
+            pattern = pattern.replace(OBJ_SIZE_TOKEN,
+                    String.valueOf(objSize / base));
+        }
+        if (StringUtils.startsWith(pattern, "u("))
+            parseUniform(pattern);
+        else
+            offsets = Generators.getSizeGenerator(pattern);
+        lengths = Generators.getSizeGenerator(config.get("rangesize"));
+        return true;
+    }
+
+    private void parseUniform(String pattern) {
+        String[] args = StringUtils.split(
+                StringUtils.substringBetween(pattern, "(", ")"), ',');
+        try {
+            lower = Long.parseLong(args[0].trim());
+            upper = Long.parseLong(args[1].trim());
+        } catch (Exception e) {
+            throw new ConfigException("illegal range pattern: " + pattern);
+        }
+        if (lower < 0 || lower > upper)
+            throw new ConfigException("illegal range pattern: " + pattern);
+    }
+
+    /**
+     * @return the offset and length of the next range, in bytes.
+     */
+    public long[] pickRange(Random random) {
+        long length = lengths.next(random);
+        long offset;
+        if (offsets != null)
+            offset = offsets.next(random);
+        else
+            offset = (lower + (long) (random.nextDouble() * (upper - lower + 1)))
+                    * base;
+        if (objSize >= 0 && offset + length > objSize)
+            offset = Math.max(0L, objSize - length);
+        return new long[] { offset, length };
+    }
+
+}
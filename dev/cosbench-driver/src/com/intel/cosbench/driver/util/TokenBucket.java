@@ -0,0 +1,66 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.driver.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class caps the rate of one operation across all workers of a mission
+ * on one driver.
+ * <p>
+ * Tokens are refilled continuously at the given rate, and up to a tenth of a
+ * second worth of them can be saved up for a burst. A worker taking a token
+ * when none is left reserves the next one, and sleeps until it is due, so
+ * waiting workers are served in order without spinning.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class TokenBucket {
+
+    private final double rate; /* tokens per nanosecond */
+    private final double burst; /* tokens saved up at most */
+
+    private double tokens = 0D;
+    private long last = System.nanoTime();
+
+    /**
+     * @param rate	tokens per second
+     */
+    public TokenBucket(double rate) {
+        this.rate = rate / 1000000000D;
+        this.burst = Math.max(rate / 10, 1D);
+    }
+
+    /**
+     * Takes one token, waiting for it if none is left.
+     */
+    public void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(tokens + (now - last) * rate, burst) - 1D;
+            last = now;
+            wait = tokens < 0 ? (long) (-tokens / rate) : 0L;
+        }
+        if (wait > 0)
+            TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+}
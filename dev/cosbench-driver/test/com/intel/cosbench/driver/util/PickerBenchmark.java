@@ -0,0 +1,93 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.driver.util;
+
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.intel.cosbench.config.Config;
+import com.intel.cosbench.config.common.KVConfigParser;
+
+/**
+ * A simple benchmark which measures object picking throughput with 1, 2, 4 ...
+ * threads sharing one picker, as all workers of an operator do. It is kept out
+ * of the bundle, and the thread counts only mean something on as many cores.
+ * <p>
+ * Usage: PickerBenchmark [config] [max-threads] [seconds-per-step]
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class PickerBenchmark {
+
+    private static final String DEFAULT_CONFIG = "containers=u(1,100);objects=u(1,1000000)";
+
+    public static void main(String[] args) throws Exception {
+        String conf = args.length > 0 ? args[0] : DEFAULT_CONFIG;
+        int max = args.length > 1 ? Integer.parseInt(args[1]) : Runtime
+                .getRuntime().availableProcessors();
+        int secs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Config config = KVConfigParser.parse(conf);
+        for (String division : new String[] { "none", "object" }) {
+            ObjectPicker picker = new ObjectPicker();
+            picker.init(division, config);
+            System.out.println("division=" + division + ", " + conf);
+            run(picker, 1, 1); // warm up
+            for (int threads = 1; threads <= max; threads *= 2) {
+                long picks = run(picker, threads, secs);
+                System.out.println(String.format("%4d threads: %,14d picks/s",
+                        threads, picks / secs));
+            }
+        }
+    }
+
+    private static long run(final ObjectPicker picker, final int threads,
+            int secs) throws Exception {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Future<?>[] futures = new Future<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            final int idx = i + 1;
+            futures[i] = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    Random random = new Random(idx);
+                    long count = 0;
+                    start.await();
+                    while (!stop.get()) {
+                        picker.pickObjPath(random, idx, threads);
+                        count++;
+                    }
+                    return count;
+                }
+            });
+        }
+        start.countDown();
+        Thread.sleep(secs * 1000L);
+        stop.set(true);
+        long total = 0;
+        for (Future<?> future : futures)
+            total += (Long) future.get();
+        executor.shutdown();
+        return total;
+    }
+
+}
@@ -0,0 +1,156 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.driver.util;
+
+import java.util.*;
+
+import org.apache.commons.lang.math.RandomUtils;
+
+import com.intel.cosbench.driver.generator.HistogramIntGenerator;
+
+/**
+ * A micro benchmark which compares operation and histogram bucket selection
+ * against the former linear scans, for mixes of 12 operations and 20 buckets.
+ * It is kept out of the bundle.
+ * <p>
+ * Usage: SelectionBenchmark [iterations]
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class SelectionBenchmark {
+
+    private static final int OPS = 12;
+    private static final int BUCKETS = 20;
+
+    private static volatile Object sink; /* defeats dead code elimination */
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000000;
+
+        OperationPicker picker = new OperationPicker();
+        Map<Integer, String> scan = new LinkedHashMap<Integer, String>();
+        int last = 0;
+        for (int i = 0; i < OPS; i++) {
+            int ratio = i < OPS - 1 ? 100 / OPS : 100 - last;
+            picker.addOperation("op" + (i + 1), ratio);
+            scan.put(last += ratio, "op" + (i + 1));
+        }
+
+        StringBuilder pattern = new StringBuilder("h(");
+        Bucket[] buckets = new Bucket[BUCKETS];
+        for (int i = 0, sum = 0; i < BUCKETS; i++) {
+            if (i > 0)
+                pattern.append(',');
+            pattern.append(i * 64 + 1).append('|').append((i + 1) * 64)
+                    .append('|').append(i + 1);
+            buckets[i] = new Bucket(i * 64 + 1, (i + 1) * 64, sum += i + 1);
+        }
+        HistogramIntGenerator histogram = HistogramIntGenerator.parse(pattern
+                .append(")").toString());
+
+        for (int round = 0; round < 3; round++) {
+            report("operation picker, linear scan", scanOps(scan, iterations),
+                    iterations);
+            report("operation picker, slot table", pickOps(picker, iterations),
+                    iterations);
+            report("histogram, linear scan", scanBuckets(buckets, iterations),
+                    iterations);
+            report("histogram, slot table",
+                    pickBuckets(histogram, iterations), iterations);
+        }
+    }
+
+    private static void report(String name, long nanos, int iterations) {
+        System.out.println(String.format("%-32s %8.2f ns/op", name,
+                (double) nanos / iterations));
+    }
+
+    private static long scanOps(Map<Integer, String> ops, int iterations) {
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            int r = random.nextInt(100) + 1;
+            for (Map.Entry<Integer, String> entry : ops.entrySet())
+                if (r <= entry.getKey()) {
+                    sink = entry.getValue();
+                    break;
+                }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long pickOps(OperationPicker picker, int iterations) {
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            sink = picker.pickOperation(random);
+        return System.nanoTime() - start;
+    }
+
+    /* the former bucket layout: a uniform generator per bucket */
+    private static class Bucket {
+
+        private final int lower;
+        private final int upper;
+        private final int cumulativeWeight;
+
+        Bucket(int lower, int upper, int cumulativeWeight) {
+            this.lower = lower;
+            this.upper = upper;
+            this.cumulativeWeight = cumulativeWeight;
+        }
+
+        int next(Random random) {
+            int range = upper - lower + 1;
+            return lower + RandomUtils.nextInt(random, range);
+        }
+
+    }
+
+    private static long scanBuckets(Bucket[] buckets, int iterations) {
+        Random random = new Random(1);
+        int total = buckets[buckets.length - 1].cumulativeWeight;
+        int sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            int next = RandomUtils.nextInt(random, total);
+            for (Bucket bucket : buckets)
+                if (next < bucket.cumulativeWeight) {
+                    sum += bucket.next(random);
+                    break;
+                }
+        }
+        long nanos = System.nanoTime() - start;
+        sink = sum;
+        return nanos;
+    }
+
+    private static long pickBuckets(HistogramIntGenerator histogram,
+            int iterations) {
+        Random random = new Random(1);
+        int sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            sum += histogram.next(random);
+        long nanos = System.nanoTime() - start;
+        sink = sum;
+        return nanos;
+    }
+
+}
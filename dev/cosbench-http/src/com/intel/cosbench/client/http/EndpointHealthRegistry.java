@@ -0,0 +1,263 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.client.http;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.*;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+
+import com.intel.cosbench.log.LogFactory;
+import com.intel.cosbench.log.Logger;
+
+/**
+ * This class keeps a driver-wide view of which storage endpoints are healthy,
+ * for adaptors that balance requests over several endpoints.
+ * <p>
+ * An endpoint is registered once however many clients use it. Clients
+ * blacklist an endpoint when a request to it fails, and a single background
+ * thread probes blacklisted endpoints every "period" milliseconds, bringing
+ * them back once they answer. Clients pick endpoints through a {@link Group},
+ * which only looks at the healthy ones, so picking costs no threads and no
+ * scans unless some endpoint has just changed state.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class EndpointHealthRegistry {
+
+    public static final int CHECK_PERIOD_DEFAULT = 10000; // milliseconds
+    public static final int PROBE_TIMEOUT_DEFAULT = 2000; // milliseconds
+
+    private static final Logger LOGGER = LogFactory.getSystemLogger();
+
+    private static final Map<String, Endpoint> ENDPOINTS = new HashMap<String, Endpoint>();
+    private static final AtomicInteger VERSION = new AtomicInteger(); /* bumped on any state change */
+
+    private static ScheduledExecutorService prober;
+    private static HttpClient client;
+
+    private EndpointHealthRegistry() {
+        /* empty */
+    }
+
+    /**
+     * Registers the given endpoints, starting the prober on first use.
+     * 
+     * @param probes
+     *            the URLs to probe, one per endpoint; an endpoint is up again
+     *            once its URL answers "200 OK"
+     * @return a group to balance requests over these endpoints, which must be
+     *         released with {@link #release(Group)}
+     */
+    public static synchronized Group register(String[] probes) {
+        Endpoint[] members = new Endpoint[probes.length];
+        for (int i = 0; i < probes.length; i++) {
+            Endpoint endpoint = ENDPOINTS.get(probes[i]);
+            if (endpoint == null) {
+                endpoint = new Endpoint(probes[i]);
+                ENDPOINTS.put(probes[i], endpoint);
+            }
+            endpoint.refs++;
+            members[i] = endpoint;
+        }
+        if (prober == null)
+            startProber();
+        return new Group(members);
+    }
+
+    /**
+     * Releases a group, and stops the prober when no endpoint is left.
+     */
+    public static synchronized void release(Group group) {
+        for (Endpoint endpoint : group.members)
+            if (--endpoint.refs == 0)
+                ENDPOINTS.remove(endpoint.probe);
+        if (ENDPOINTS.isEmpty() && prober != null)
+            stopProber();
+    }
+
+    /* called with the class lock held */
+    private static void startProber() {
+        client = HttpClientUtil.createHttpClient(PROBE_TIMEOUT_DEFAULT);
+        prober = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "endpoint-prober");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        prober.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                probeAll();
+            }
+        }, CHECK_PERIOD_DEFAULT, CHECK_PERIOD_DEFAULT, TimeUnit.MILLISECONDS);
+        LOGGER.debug("endpoint prober has been started");
+    }
+
+    /* called with the class lock held */
+    private static void stopProber() {
+        prober.shutdownNow();
+        prober = null;
+        HttpClientUtil.disposeHttpClient(client);
+        client = null;
+        LOGGER.debug("endpoint prober has been stopped");
+    }
+
+    private static void probeAll() {
+        List<Endpoint> down = new ArrayList<Endpoint>();
+        HttpClient prober;
+        synchronized (EndpointHealthRegistry.class) {
+            for (Endpoint endpoint : ENDPOINTS.values())
+                if (!endpoint.up)
+                    down.add(endpoint);
+            prober = client;
+        }
+        for (Endpoint endpoint : down) {
+            if (Thread.currentThread().isInterrupted())
+                return;
+            endpoint.probe(prober);
+        }
+    }
+
+    /**
+     * One endpoint, shared by all clients using it.
+     */
+    public static class Endpoint {
+
+        private final String probe;
+        private volatile boolean up = true;
+        private int refs = 0; /* guarded by the class lock */
+
+        private Endpoint(String probe) {
+            this.probe = probe;
+        }
+
+        public boolean isUp() {
+            return up;
+        }
+
+        /**
+         * Blacklists this endpoint until a probe finds it healthy again.
+         */
+        public void exclude(String message) {
+            if (setUp(false))
+                LOGGER.warn("blacklisting {}, {}", probe, message);
+        }
+
+        private void include() {
+            if (!setUp(true))
+                LOGGER.warn("{} is up", probe);
+        }
+
+        /* returns the previous state */
+        private synchronized boolean setUp(boolean up) {
+            boolean before = this.up;
+            this.up = up;
+            if (before != up)
+                VERSION.incrementAndGet();
+            return before;
+        }
+
+        private void probe(HttpClient client) {
+            HttpResponse response = null;
+            try {
+                response = client.execute(HttpClientUtil.makeHttpGet(probe));
+                int code = response.getStatusLine().getStatusCode();
+                if (code == HttpStatus.SC_OK)
+                    include();
+                else
+                    LOGGER.debug("{} still down: {}", probe, code);
+            } catch (Exception e) {
+                LOGGER.debug("{} still down: {}", probe, e.getMessage());
+            } finally {
+                if (response != null)
+                    try {
+                        EntityUtils.consume(response.getEntity());
+                    } catch (Exception ignore) {
+                        /* ignore */
+                    }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return probe;
+        }
+
+    }
+
+    /**
+     * The endpoints of one client, picked round robin among the healthy ones.
+     */
+    public static class Group {
+
+        private final Endpoint[] members;
+        private final AtomicInteger next = new AtomicInteger();
+        private volatile int[] healthy; /* indexes of healthy members */
+        private volatile int seen = -1;
+
+        private Group(Endpoint[] members) {
+            this.members = members;
+        }
+
+        /**
+         * @return the index of the next healthy endpoint in the order given at
+         *         registration, or -1 if all of them are blacklisted
+         */
+        public int next() {
+            int[] up = getHealthy();
+            if (up.length == 0)
+                return -1;
+            return up[(next.getAndIncrement() & Integer.MAX_VALUE) % up.length];
+        }
+
+        public Endpoint get(int index) {
+            return members[index];
+        }
+
+        private int[] getHealthy() {
+            int current = VERSION.get();
+            int[] up = healthy;
+            if (up != null && seen == current)
+                return up;
+            int count = 0;
+            up = new int[members.length];
+            for (int i = 0; i < members.length; i++)
+                if (members[i].isUp())
+                    up[count++] = i;
+            up = Arrays.copyOf(up, count);
+            healthy = up;
+            seen = current;
+            return up;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(members);
+        }
+
+    }
+
+}
@@ -48,11 +48,17 @@ import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
 import org.apache.http.protocol.HttpContext;
-import org.omg.CORBA.PUBLIC_MEMBER;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import com.intel.cosbench.config.Config;
 
 /**
  * This class encapsulates basic HTTP client related functions which are
  * necessary for REST based storage system.
+ * <p>
+ * Clients record how long connecting, TLS handshakes, waiting for the first
+ * byte and transferring content take in the
+ * {@link com.intel.cosbench.api.storage.PhaseTimer} of the calling thread.
  * 
  * @author ywang19, qzheng7
  * 
@@ -73,7 +79,41 @@ public class HttpClientUtil {
 	      HttpParams params = createDefaultHttpParams(timeout);
 	      ClientConnectionManager cm = createClientConnManager();
 	
-	      return new DefaultHttpClient(cm, params);    	    	
+	      return newDefaultHttpClient(cm, params);
+    }
+
+    /*
+     * Creates a client which records the phases of its requests, see
+     * PhaseTimingRequestExecutor.
+     */
+    static DefaultHttpClient newDefaultHttpClient(ClientConnectionManager cm,
+            HttpParams params) {
+        return new DefaultHttpClient(cm, params) {
+            @Override
+            protected HttpRequestExecutor createRequestExecutor() {
+                return new PhaseTimingRequestExecutor();
+            }
+        };
+    }
+
+    /**
+     * Creates an HTTP client as configured by the given storage or auth
+     * configuration.<br />
+     * With "connpool=shared", the client is backed by a driver-wide
+     * {@link SharedConnectionPool} and is thread-safe; otherwise it is the
+     * same as {@link #createHttpClient(int)}.
+     * 
+     * @param timeout
+     *            the timeout in seconds that will be honored by this client
+     * @param config
+     *            the configuration holding the connection pool settings
+     * @return a new HTTP client
+     */
+    public static HttpClient createHttpClient(int timeout, Config config) {
+        if (!SharedConnectionPool.isShared(config))
+            return createHttpClient(timeout);
+        HttpParams params = createDefaultHttpParams(timeout);
+        return SharedConnectionPool.createHttpClient(params, config);
     }
 
     private static  HttpParams createDefaultHttpParams(int timeout) {
@@ -90,7 +130,7 @@ public class HttpClientUtil {
     }
     
     @SuppressWarnings({ "deprecation"})
-	private static SSLSocketFactory createSSLSocketFactory()
+	static SSLSocketFactory createSSLSocketFactory()
     {
     	try
     	{
@@ -125,8 +165,10 @@ public class HttpClientUtil {
     {
         SchemeRegistry sr = new SchemeRegistry();            
         
-        sr.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
-        sr.register(new Scheme("https", 443, createSSLSocketFactory()));
+        sr.register(new Scheme("http", 80, PhaseTimingSocketFactory
+                .wrap(PlainSocketFactory.getSocketFactory())));
+        sr.register(new Scheme("https", 443, PhaseTimingSocketFactory
+                .wrap(createSSLSocketFactory())));
 
         return new SingleClientConnManager(sr);
     }
@@ -134,12 +176,15 @@ public class HttpClientUtil {
     /**
      * Releases the resources held by the given HTTP client.<br />
      * Note that no further connections can be made upon a disposed HTTP client.
+     * A client backed by a shared pool only gives up its share of the pool.
      * 
      * @param client
      *            the HTTP client to be disposed.
      */
     public static void disposeHttpClient(HttpClient client) {
     	if(client != null) {
+    		if (SharedConnectionPool.release(client))
+    			return;
 	        ClientConnectionManager manager = client.getConnectionManager();
 	        manager.shutdown();
 	        client = null;
@@ -0,0 +1,56 @@
+/** 
+ 
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+*/ 
+
+package com.intel.cosbench.client.http;
+
+import java.io.*;
+
+import org.apache.http.entity.InputStreamEntity;
+
+import com.intel.cosbench.api.storage.PayloadSource;
+
+/**
+ * A streamed request entity which lets a {@link PayloadSource} write its
+ * content directly into the connection, and falls back to copying through a
+ * buffer for any other input stream.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class PayloadEntity extends InputStreamEntity {
+
+    private final InputStream content;
+
+    public PayloadEntity(InputStream content, long length) {
+        super(content, length);
+        this.content = content;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (!(content instanceof PayloadSource)) {
+            super.writeTo(out);
+            return;
+        }
+        try {
+            ((PayloadSource) content).writeTo(out);
+        } finally {
+            content.close();
+        }
+    }
+
+}
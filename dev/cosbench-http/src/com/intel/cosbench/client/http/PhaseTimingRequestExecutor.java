@@ -0,0 +1,118 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.client.http;
+
+import java.io.*;
+
+import org.apache.http.*;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import com.intel.cosbench.api.storage.PhaseTimer;
+
+/**
+ * Times the phases of a request on an open connection: sending the request
+ * with its content counts as transfer, waiting for the response head as time
+ * to first byte, and reading the response content until its end or until it
+ * is closed as transfer again.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class PhaseTimingRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request,
+            HttpClientConnection conn, HttpContext context) throws IOException,
+            HttpException {
+        long start = System.nanoTime();
+        try {
+            return super.doSendRequest(request, conn, context);
+        } finally {
+            PhaseTimer.get().addTransfer(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request,
+            HttpClientConnection conn, HttpContext context)
+            throws HttpException, IOException {
+        long start = System.nanoTime();
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        PhaseTimer.get().addFirstByte(System.nanoTime() - start);
+        HttpEntity entity = response.getEntity();
+        if (entity != null)
+            response.setEntity(new TimedEntity(entity));
+        return response;
+    }
+
+    private static class TimedEntity extends HttpEntityWrapper {
+
+        TimedEntity(HttpEntity entity) {
+            super(entity);
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new TimedInputStream(super.getContent());
+        }
+
+    }
+
+    /**
+     * Adds the time from its creation to its end, or to its closing, to the
+     * timer of the thread which reads it.
+     */
+    private static class TimedInputStream extends FilterInputStream {
+
+        private final long start = System.nanoTime();
+        private boolean done;
+
+        TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        private int record(int n) {
+            if (n < 0 && !done) {
+                done = true;
+                PhaseTimer.get().addTransfer(System.nanoTime() - start);
+            }
+            return n;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return record(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return record(in.read(b, off, len));
+        }
+
+        @Override
+        public void close() throws IOException {
+            record(-1);
+            super.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.intel.cosbench.client.http;
+
+import java.io.IOException;
+import java.net.*;
+
+import org.apache.http.conn.scheme.*;
+import org.apache.http.params.HttpParams;
+
+import com.intel.cosbench.api.storage.PhaseTimer;
+
+/**
+ * Times how long connections take to set up. For TLS, the TCP connection is
+ * made first and the handshake is timed apart while layering TLS over it.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class PhaseTimingSocketFactory implements SchemeSocketFactory {
+
+    private final SchemeSocketFactory factory;
+    private final LayeredSchemeSocketFactory layered; /* null if not TLS */
+
+    private PhaseTimingSocketFactory(SchemeSocketFactory factory) {
+        this.factory = factory;
+        this.layered = factory instanceof LayeredSchemeSocketFactory ? (LayeredSchemeSocketFactory) factory
+                : null;
+    }
+
+    /**
+     * Wraps the given factory, keeping it layered if it is, since schemes
+     * tell secure routes by their factories being layered.
+     */
+    static SchemeSocketFactory wrap(SchemeSocketFactory factory) {
+        if (factory instanceof LayeredSchemeSocketFactory)
+            return new Layered(factory);
+        return new PhaseTimingSocketFactory(factory);
+    }
+
+    SchemeSocketFactory getFactory() {
+        return factory;
+    }
+
+    @Override
+    public Socket createSocket(HttpParams params) throws IOException {
+        if (layered != null)
+            return PlainSocketFactory.getSocketFactory().createSocket(params);
+        return factory.createSocket(params);
+    }
+
+    @Override
+    public Socket connectSocket(Socket sock, InetSocketAddress remote,
+            InetSocketAddress local, HttpParams params) throws IOException {
+        long start = System.nanoTime();
+        if (layered == null) {
+            Socket socket = factory.connectSocket(sock, remote, local, params);
+            PhaseTimer.get().addConnect(System.nanoTime() - start);
+            return socket;
+        }
+        Socket plain = PlainSocketFactory.getSocketFactory().connectSocket(
+                sock, remote, local, params);
+        long connected = System.nanoTime();
+        PhaseTimer.get().addConnect(connected - start);
+        Socket socket = layered.createLayeredSocket(plain,
+                remote.getHostName(), remote.getPort(), true);
+        PhaseTimer.get().addHandshake(System.nanoTime() - connected);
+        return socket;
+    }
+
+    @Override
+    public boolean isSecure(Socket sock) {
+        return factory.isSecure(sock);
+    }
+
+    private static class Layered extends PhaseTimingSocketFactory implements
+            LayeredSchemeSocketFactory {
+
+        Layered(SchemeSocketFactory factory) {
+            super(factory);
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target,
+                int port, boolean autoClose) throws IOException {
+            long start = System.nanoTime();
+            Socket layeredSocket = ((LayeredSchemeSocketFactory) getFactory())
+                    .createLayeredSocket(socket, target, port, autoClose);
+            PhaseTimer.get().addHandshake(System.nanoTime() - start);
+            return layeredSocket;
+        }
+
+    }
+
+}
@@ -0,0 +1,344 @@
+/**
+
+Copyright 2013 Intel Corporation, All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.intel.cosbench.client.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.*;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.scheme.*;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+
+import com.intel.cosbench.config.Config;
+import com.intel.cosbench.log.LogFactory;
+import com.intel.cosbench.log.Logger;
+
+/**
+ * This class maintains driver-wide HTTP connection pools, which are shared by
+ * all clients created with "connpool=shared" and the same pool settings.
+ * <p>
+ * Each pool keeps up to "maxconn" connections, "maxperroute" per target, and
+ * lets a connection live for "keepalive" seconds unless the server says
+ * otherwise. Connections idle for "idletimeout" seconds are evicted in the
+ * background, and stale checks can be turned off with "stalecheck=false". At
+ * most "maxconnecting" connections are set up at the same time, and all
+ * clients share one TLS context, so a burst of starting workers neither floods
+ * the server with handshakes nor repeats full ones. The pool counts how often
+ * connections are reused and reports it when the last client is disposed.
+ *
+ * @author ywang19, qzheng7
+ *
+ */
+public class SharedConnectionPool {
+
+    public static final String CONN_POOL_KEY = "connpool";
+    public static final String CONN_POOL_DEFAULT = "none";
+    public static final String CONN_POOL_SHARED = "shared";
+
+    public static final String MAX_CONN_KEY = "maxconn";
+    public static final int MAX_CONN_DEFAULT = 512;
+
+    public static final String MAX_PER_ROUTE_KEY = "maxperroute";
+
+    public static final String KEEP_ALIVE_KEY = "keepalive";
+    public static final int KEEP_ALIVE_DEFAULT = 60; // seconds
+
+    public static final String IDLE_TIMEOUT_KEY = "idletimeout";
+    public static final int IDLE_TIMEOUT_DEFAULT = 30; // seconds
+
+    public static final String STALE_CHECK_KEY = "stalecheck";
+    public static final boolean STALE_CHECK_DEFAULT = true;
+
+    public static final String MAX_CONNECTING_KEY = "maxconnecting";
+    public static final int MAX_CONNECTING_DEFAULT = 32;
+
+    private static final Logger LOGGER = LogFactory.getSystemLogger();
+
+    private static final Map<String, SharedConnectionPool> POOLS = new HashMap<String, SharedConnectionPool>();
+    private static ScheduledExecutorService evictor;
+
+    private final String key;
+    private final ThreadSafeClientConnManager manager;
+    private final Semaphore connecting;
+    private final long keepAlive;
+    private final long idleTimeout;
+    private final boolean staleCheck;
+    private ScheduledFuture<?> eviction;
+    private int clients = 0;
+
+    /* reuse metrics */
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong maxReuse = new AtomicLong();
+
+    private SharedConnectionPool(String key, int maxConn, int maxPerRoute,
+            int maxConnecting, long keepAlive, long idleTimeout,
+            boolean staleCheck) {
+        this.key = key;
+        this.connecting = new Semaphore(maxConnecting);
+        this.keepAlive = keepAlive;
+        this.idleTimeout = idleTimeout;
+        this.staleCheck = staleCheck;
+
+        SchemeRegistry sr = new SchemeRegistry();
+        sr.register(new Scheme("http", 80, new ThrottledSocketFactory(
+                PhaseTimingSocketFactory.wrap(PlainSocketFactory
+                        .getSocketFactory()))));
+        sr.register(new Scheme("https", 443, new LayeredThrottledSocketFactory(
+                PhaseTimingSocketFactory.wrap(HttpClientUtil
+                        .createSSLSocketFactory()))));
+        this.manager = new ThreadSafeClientConnManager(sr);
+        manager.setMaxTotal(maxConn);
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+    }
+
+    /**
+     * Tells whether the given configuration asks for a shared pool.
+     */
+    public static boolean isShared(Config config) {
+        return CONN_POOL_SHARED.equals(config.get(CONN_POOL_KEY,
+                CONN_POOL_DEFAULT));
+    }
+
+    /**
+     * Creates an HTTP client backed by the shared pool matching the given
+     * configuration, creating the pool on first use.<br />
+     * Unlike a default client, this one is thread-safe, and must be released
+     * with {@link HttpClientUtil#disposeHttpClient(HttpClient)}.
+     */
+    static HttpClient createHttpClient(HttpParams params, Config config) {
+        SharedConnectionPool pool = acquire(config);
+        return pool.newClient(params);
+    }
+
+    /**
+     * Releases a client created from a shared pool, and shuts the pool down
+     * when its last client is gone.
+     *
+     * @return false if the client is not backed by a shared pool
+     */
+    static synchronized boolean release(HttpClient client) {
+        ClientConnectionManager manager = client.getConnectionManager();
+        for (SharedConnectionPool pool : POOLS.values()) {
+            if (pool.manager != manager)
+                continue;
+            if (--pool.clients == 0)
+                pool.shutdown();
+            return true;
+        }
+        return false;
+    }
+
+    private static synchronized SharedConnectionPool acquire(Config config) {
+        int maxConn = config.getInt(MAX_CONN_KEY, MAX_CONN_DEFAULT);
+        int maxPerRoute = config.getInt(MAX_PER_ROUTE_KEY, maxConn);
+        int maxConnecting = config.getInt(MAX_CONNECTING_KEY,
+                MAX_CONNECTING_DEFAULT);
+        int keepAlive = config.getInt(KEEP_ALIVE_KEY, KEEP_ALIVE_DEFAULT);
+        int idleTimeout = config.getInt(IDLE_TIMEOUT_KEY, IDLE_TIMEOUT_DEFAULT);
+        boolean staleCheck = config.getBoolean(STALE_CHECK_KEY,
+                STALE_CHECK_DEFAULT);
+
+        String key = maxConn + ":" + maxPerRoute + ":" + maxConnecting + ":"
+                + keepAlive + ":" + idleTimeout + ":" + staleCheck;
+        SharedConnectionPool pool = POOLS.get(key);
+        if (pool == null) {
+            pool = new SharedConnectionPool(key, maxConn, maxPerRoute,
+                    maxConnecting, keepAlive * 1000L, idleTimeout * 1000L,
+                    staleCheck);
+            pool.startEviction();
+            POOLS.put(key, pool);
+            LOGGER.info("shared connection pool {} has been created", key);
+        }
+        pool.clients++;
+        return pool;
+    }
+
+    private DefaultHttpClient newClient(HttpParams params) {
+        HttpConnectionParams.setStaleCheckingEnabled(params, staleCheck);
+        DefaultHttpClient client = HttpClientUtil.newDefaultHttpClient(manager,
+                params);
+        client.setKeepAliveStrategy(new KeepAliveStrategy());
+        client.addRequestInterceptor(new ReuseCounter());
+        return client;
+    }
+
+    /* called with the class lock held */
+    private void startEviction() {
+        if (evictor == null)
+            evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "connection-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        long period = Math.max(idleTimeout / 2, 1000L);
+        eviction = evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                manager.closeExpiredConnections();
+                if (idleTimeout > 0)
+                    manager.closeIdleConnections(idleTimeout,
+                            TimeUnit.MILLISECONDS);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /* called with the class lock held */
+    private void shutdown() {
+        eviction.cancel(false);
+        manager.shutdown();
+        POOLS.remove(key);
+        if (POOLS.isEmpty()) {
+            evictor.shutdown();
+            evictor = null;
+        }
+        LOGGER.info("shared connection pool {} has been shut down: {}", key,
+                getStats());
+    }
+
+    /**
+     * @return a summary of how well connections were reused.
+     */
+    public String getStats() {
+        long conns = opened.get();
+        long reqs = requests.get();
+        return new StringBuilder().append("connections=").append(conns)
+                .append(", requests=").append(reqs).append(", reused=")
+                .append(reused.get()).append(", avgRequestsPerConn=")
+                .append(conns == 0 ? 0 : reqs / conns)
+                .append(", maxRequestsPerConn=").append(maxReuse.get())
+                .toString();
+    }
+
+    /**
+     * Honors the keep-alive the server asks for, and falls back to the
+     * configured one otherwise.
+     */
+    private class KeepAliveStrategy extends DefaultConnectionKeepAliveStrategy {
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response,
+                HttpContext context) {
+            long duration = super.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : keepAlive;
+        }
+
+    }
+
+    /**
+     * Counts requests on fresh and reused connections.
+     */
+    private class ReuseCounter implements HttpRequestInterceptor {
+
+        @Override
+        public void process(HttpRequest request, HttpContext context) {
+            requests.incrementAndGet();
+            HttpConnection conn = (HttpConnection) context
+                    .getAttribute(ExecutionContext.HTTP_CONNECTION);
+            if (conn == null)
+                return;
+            long sent = conn.getMetrics().getRequestCount() + 1;
+            if (sent > 1)
+                reused.incrementAndGet();
+            long max;
+            while (sent > (max = maxReuse.get()))
+                if (maxReuse.compareAndSet(max, sent))
+                    break;
+        }
+
+    }
+
+    /**
+     * Bounds how many connections are being set up at the same time.
+     */
+    private class ThrottledSocketFactory implements SchemeSocketFactory {
+
+        protected final SchemeSocketFactory factory;
+
+        ThrottledSocketFactory(SchemeSocketFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public Socket createSocket(HttpParams params) throws IOException {
+            return factory.createSocket(params);
+        }
+
+        @Override
+        public Socket connectSocket(Socket sock, InetSocketAddress remote,
+                InetSocketAddress local, HttpParams params) throws IOException {
+            try {
+                connecting.acquire();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting to connect");
+            }
+            try {
+                Socket socket = factory.connectSocket(sock, remote, local,
+                        params);
+                opened.incrementAndGet();
+                return socket;
+            } finally {
+                connecting.release();
+            }
+        }
+
+        @Override
+        public boolean isSecure(Socket sock) {
+            return factory.isSecure(sock);
+        }
+
+    }
+
+    /**
+     * Keeps TLS schemes layered, so that their routes are planned as secure.
+     */
+    private class LayeredThrottledSocketFactory extends ThrottledSocketFactory
+            implements LayeredSchemeSocketFactory {
+
+        LayeredThrottledSocketFactory(SchemeSocketFactory factory) {
+            super(factory);
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target,
+                int port, boolean autoClose) throws IOException {
+            return ((LayeredSchemeSocketFactory) factory).createLayeredSocket(
+                    socket, target, port, autoClose);
+        }
+
+    }
+
+}
@@ -99,7 +99,7 @@ class HttpAuth extends NoneAuth {
 
         logger.debug("using auth config: {}", parms);
 
-        client = (DefaultHttpClient)HttpClientUtil.createHttpClient(timeout);
+        client = (DefaultHttpClient)HttpClientUtil.createHttpClient(timeout, config);
         
         logger.debug("httpauth client has been initialized");
     }
@@ -0,0 +1,245 @@
+/** 
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+ */
+
+package com.intel.cosbench.api.librados;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.intel.cosbench.api.storage.StorageCallback;
+import com.intel.cosbench.api.storage.StorageException;
+import com.intel.cosbench.client.librados.RadosAio;
+import com.sun.jna.Memory;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * This class runs one object operation with librados asynchronous I/O.
+ * <p>
+ * Objects are moved one chunk at a time, so an operation holds a single chunk
+ * buffer and no thread while in flight. Each chunk to read is issued from the
+ * completion of the previous one, while a write pauses after each chunk for
+ * the caller's thread to fill the next one from the content, so the librados
+ * thread only issues and completes native calls. The first chunk of a write
+ * replaces the whole object, and reading stops at the first short chunk. The
+ * outcome is reported to the storage callback on a librados thread.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+class AioOperation {
+
+    private static final RadosAio AIO = RadosAio.INSTANCE;
+
+    private static final int READ = 0;
+    private static final int WRITE = 1;
+    private static final int REMOVE = 2;
+
+    /* operations in flight by id, as librados hands back a plain pointer */
+    private static final ConcurrentMap<Long, AioOperation> PENDING = new ConcurrentHashMap<Long, AioOperation>();
+    private static final AtomicLong IDS = new AtomicLong();
+
+    /* referenced for good, so it is never collected while in use by librados */
+    private static final RadosAio.CompletionCallback ON_COMPLETE = new RadosAio.CompletionCallback() {
+        @Override
+        public void callback(Pointer completion, Pointer arg) {
+            int r = AIO.rados_aio_get_return_value(completion);
+            AIO.rados_aio_release(completion);
+            AioOperation op = PENDING.remove(Pointer.nativeValue(arg));
+            if (op != null)
+                op.step(r);
+        }
+    };
+
+    /**
+     * A chunk buffer in native memory, with a heap copy for filling it.
+     */
+    static class Buffer {
+
+        final Memory memory;
+        final byte[] bytes;
+
+        Buffer(int size) {
+            memory = new Memory(size);
+            bytes = new byte[size];
+        }
+
+    }
+
+    private final int kind;
+    private final Pointer ioctx;
+    private final String object;
+    private final Queue<Buffer> buffers; /* returned to on completion */
+    private final StorageCallback callback;
+    private final int chunkSize;
+    private InputStream data;
+    private long length; /* to write, -1 if unknown */
+    private Buffer buffer;
+
+    private long offset; /* bytes done */
+    private int issued; /* size of the chunk in flight */
+
+    /* fills and issues the next chunk to write, on the caller's thread */
+    private final Runnable next = new Runnable() {
+        @Override
+        public void run() {
+            issue();
+        }
+    };
+
+    private AioOperation(int kind, Pointer ioctx, String object,
+            Queue<Buffer> buffers, int chunkSize, StorageCallback callback) {
+        this.kind = kind;
+        this.ioctx = ioctx;
+        this.object = object;
+        this.buffers = buffers;
+        this.chunkSize = chunkSize;
+        this.callback = callback;
+    }
+
+    static void read(Pointer ioctx, String object, Queue<Buffer> buffers,
+            int chunkSize, StorageCallback callback) {
+        new AioOperation(READ, ioctx, object, buffers, chunkSize, callback)
+                .start();
+    }
+
+    static void write(Pointer ioctx, String object, InputStream data,
+            long length, Queue<Buffer> buffers, int chunkSize,
+            StorageCallback callback) {
+        AioOperation op = new AioOperation(WRITE, ioctx, object, buffers,
+                chunkSize, callback);
+        op.data = data;
+        op.length = length;
+        op.start();
+    }
+
+    static void remove(Pointer ioctx, String object, StorageCallback callback) {
+        new AioOperation(REMOVE, ioctx, object, null, 0, callback).start();
+    }
+
+    private void start() {
+        if (kind != REMOVE) {
+            buffer = buffers.poll();
+            if (buffer == null)
+                buffer = new Buffer(chunkSize);
+        }
+        callback.started(); // issued right away, no thread to wait for
+        issue();
+    }
+
+    private void issue() {
+        int len = 0;
+        if (kind == READ) {
+            len = chunkSize;
+        } else if (kind == WRITE) {
+            try {
+                len = fill();
+            } catch (IOException e) {
+                finish(e);
+                return;
+            }
+            if (len == 0 && offset > 0) {
+                finish(null); // nothing left after a full chunk
+                return;
+            }
+            buffer.memory.write(0, buffer.bytes, 0, len);
+        }
+        issued = len;
+
+        Long id = IDS.incrementAndGet();
+        PointerByReference ref = new PointerByReference();
+        int r = AIO.rados_aio_create_completion(new Pointer(id), ON_COMPLETE,
+                null, ref);
+        if (r < 0) {
+            finish(new StorageException("fail to create aio completion: " + r));
+            return;
+        }
+        Pointer completion = ref.getValue();
+        PENDING.put(id, this);
+        if (kind == READ)
+            r = AIO.rados_aio_read(ioctx, object, completion, buffer.memory,
+                    new NativeLong(len), offset);
+        else if (kind == WRITE && offset == 0)
+            r = AIO.rados_aio_write_full(ioctx, object, completion,
+                    buffer.memory, new NativeLong(len));
+        else if (kind == WRITE)
+            r = AIO.rados_aio_write(ioctx, object, completion, buffer.memory,
+                    new NativeLong(len), offset);
+        else
+            r = AIO.rados_aio_remove(ioctx, object, completion);
+        if (r < 0) {
+            PENDING.remove(id);
+            AIO.rados_aio_release(completion);
+            finish(new StorageException("fail to issue aio on " + object
+                    + ": " + r));
+        }
+    }
+
+    /* reads up to one chunk of the content, returns the bytes read */
+    private int fill() throws IOException {
+        int max = length < 0 ? chunkSize : (int) Math.min(chunkSize, length
+                - offset);
+        int count = 0;
+        int n;
+        while (count < max
+                && (n = data.read(buffer.bytes, count, max - count)) != -1)
+            count += n;
+        return count;
+    }
+
+    private void step(int r) {
+        if (r < 0) {
+            finish(new StorageException("aio on " + object + " failed: " + r));
+            return;
+        }
+        if (kind == READ) {
+            offset += r;
+            if (r < issued)
+                finish(null);
+            else
+                issue();
+        } else if (kind == WRITE) {
+            offset += issued;
+            if (issued < chunkSize || offset == length)
+                finish(null);
+            else
+                callback.paused(next);
+        } else {
+            finish(null);
+        }
+    }
+
+    private void finish(Exception error) {
+        if (data != null)
+            try {
+                data.close();
+            } catch (IOException ignore) {
+                // nothing left to do with it
+            }
+        if (buffer != null) {
+            buffers.offer(buffer);
+            buffer = null;
+        }
+        if (error != null)
+            callback.failed(error);
+        else
+            callback.completed(offset);
+    }
+
+}
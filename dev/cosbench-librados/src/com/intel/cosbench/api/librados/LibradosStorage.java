@@ -15,23 +15,34 @@ limitations under the License.
 
 package com.intel.cosbench.api.librados;
 
+import static com.intel.cosbench.client.librados.LibradosConstants.AIO_DEFAULT;
+import static com.intel.cosbench.client.librados.LibradosConstants.AIO_KEY;
 import static com.intel.cosbench.client.librados.LibradosConstants.AUTH_PASSWORD_DEFAULT;
 import static com.intel.cosbench.client.librados.LibradosConstants.AUTH_PASSWORD_KEY;
 import static com.intel.cosbench.client.librados.LibradosConstants.AUTH_USERNAME_DEFAULT;
 import static com.intel.cosbench.client.librados.LibradosConstants.AUTH_USERNAME_KEY;
+import static com.intel.cosbench.client.librados.LibradosConstants.CHUNK_SIZE_DEFAULT;
+import static com.intel.cosbench.client.librados.LibradosConstants.CHUNK_SIZE_KEY;
 import static com.intel.cosbench.client.librados.LibradosConstants.ENDPOINT_DEFAULT;
 import static com.intel.cosbench.client.librados.LibradosConstants.ENDPOINT_KEY;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import com.ceph.rados.IoCTX;
 import com.ceph.rados.Rados;
 import com.ceph.rados.RadosException;
 import com.intel.cosbench.api.context.AuthContext;
 import com.intel.cosbench.api.storage.NoneStorage;
+import com.intel.cosbench.api.storage.StorageCallback;
 import com.intel.cosbench.api.storage.StorageException;
+import com.intel.cosbench.client.librados.RadosAio;
+import com.intel.cosbench.client.librados.RadosInputStream;
 import com.intel.cosbench.config.Config;
 import com.intel.cosbench.log.Logger;
 
@@ -39,7 +50,17 @@ import com.intel.cosbench.log.Logger;
  * LibradosStorage provides methods to access a Storage using librados.
  * It is based on rados-java
  * {@link https://github.com/wido/rados-java}
- * 
+ * <p>
+ * Objects are read and written in chunks of "chunksize" bytes, so objects of
+ * any size can be moved without holding them in memory. Each read stream and
+ * each write takes a chunk buffer of its own from a pool of this storage
+ * instance, i.e. of one worker, as the parts of an operation may run
+ * concurrently. I/O contexts are opened once
+ * per pool and shared by all workers, since librados allows concurrent use.
+ * <p>
+ * With "aio=true", the asynchronous operations used by pipelined works are
+ * backed by librados asynchronous I/O, so each worker keeps its work's depth
+ * of operations in flight without a thread per operation.
  * 
  * @author Niklas Goerke - niklas974@github
  *
@@ -49,8 +70,15 @@ public class LibradosStorage extends NoneStorage {
     private String accessKey;
     private String secretKey;
     private String endpoint;
+    private int chunkSize;
+    /* chunk buffers of reads and writes in progress, reused when they end */
+    private Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+    private boolean aio;
+    /* native chunk buffers of operations in flight, reused when they complete */
+    private Queue<AioOperation.Buffer> aioBuffers = new ConcurrentLinkedQueue<AioOperation.Buffer>();
 
     private static Rados client;
+    private static final ConcurrentMap<String, IoCTX> ioctxs = new ConcurrentHashMap<String, IoCTX>();
 
     public void init(Config config, Logger logger) {
         super.init(config, logger);
@@ -58,21 +86,37 @@ public class LibradosStorage extends NoneStorage {
         this.endpoint = config.get(ENDPOINT_KEY, ENDPOINT_DEFAULT);
         this.accessKey = config.get(AUTH_USERNAME_KEY, AUTH_USERNAME_DEFAULT);
         this.secretKey = config.get(AUTH_PASSWORD_KEY, AUTH_PASSWORD_DEFAULT);
+        this.chunkSize = config.getInt(CHUNK_SIZE_KEY, CHUNK_SIZE_DEFAULT);
+        if (chunkSize <= 0)
+            throw new StorageException("illegal chunk size: " + chunkSize);
+        this.aio = config.getBoolean(AIO_KEY, AIO_DEFAULT);
 
         parms.put(ENDPOINT_KEY, endpoint);
         parms.put(AUTH_USERNAME_KEY, accessKey);
         parms.put(AUTH_PASSWORD_KEY, secretKey);
+        parms.put(CHUNK_SIZE_KEY, chunkSize);
+        parms.put(AIO_KEY, aio);
         logger.debug("using storage config: {}", parms);
 
-        if (client == null) {
-            client = new Rados(this.accessKey);
+        synchronized (LibradosStorage.class) {
+            if (client == null) {
+                Rados rados = new Rados(this.accessKey);
+                try {
+                    rados.confSet("key", this.secretKey);
+                    rados.confSet("mon_host", this.endpoint);
+                    rados.connect();
+                    logger.debug("Librados client has been initialized");
+                } catch (RadosException e) {
+                    throw new StorageException(e);
+                }
+                client = rados;
+            }
+        }
+        if (aio) {
             try {
-                client.confSet("key", this.secretKey);
-                client.confSet("mon_host", this.endpoint);
-                client.connect();
-                logger.debug("Librados client has been initialized");
-            } catch (RadosException e) {
-                throw new StorageException(e);
+                RadosAio.INSTANCE.getClass(); // load the native binding
+            } catch (UnsatisfiedLinkError e) {
+                throw new StorageException("librados aio is not available", e);
             }
         }
     }
@@ -83,29 +127,124 @@ public class LibradosStorage extends NoneStorage {
 
     public void dispose() {
         super.dispose();
+        buffers.clear();
+        aioBuffers.clear();
 //        client = null;
     }
 
+    /* the I/O context of the given pool, opened on first use */
+    private static IoCTX getIoCTX(String pool) {
+        IoCTX ioctx = ioctxs.get(pool);
+        if (ioctx != null)
+            return ioctx;
+        synchronized (ioctxs) {
+            ioctx = ioctxs.get(pool);
+            if (ioctx == null) {
+                try {
+                    ioctx = client.ioCtxCreate(pool);
+                } catch (RadosException e) {
+                    throw new StorageException(e);
+                }
+                ioctxs.put(pool, ioctx);
+            }
+        }
+        return ioctx;
+    }
+
+    private static void closeIoCTX(String pool) {
+        synchronized (ioctxs) {
+            IoCTX ioctx = ioctxs.remove(pool);
+            if (ioctx != null)
+                client.ioCtxDestroy(ioctx);
+        }
+    }
+
+    private byte[] takeBuffer() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[chunkSize];
+    }
+
     public InputStream getObject(String container, String object, Config config) {
         super.getObject(container, object, config);
-        InputStream stream;
-        IoCTX ioctx;
-        try {
-            ioctx = client.ioCtxCreate(container);
-            long length = ioctx.stat(object).getSize();
-            if (length > (Math.pow(2, 31) - 1)) {
-                throw new StorageException("Object larger than 2GB, handling not implemented");
-                // TODO: implement - read in parts and concatinate
+        return newInputStream(container, object, 0L, -1L);
+    }
+
+    public InputStream getObjectRange(String container, String object,
+            long offset, long length, Config config) {
+        super.getObject(container, object, config);
+        return newInputStream(container, object, offset, length);
+    }
+
+    /* a stream with a buffer of its own, given back once it is closed */
+    private InputStream newInputStream(String container, String object,
+            long offset, long length) {
+        final byte[] buffer = takeBuffer();
+        return new RadosInputStream(getIoCTX(container), object, buffer,
+                offset, length) {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                if (!closed)
+                    buffers.offer(buffer);
+                closed = true;
             }
-            
-            byte[] buf = new byte[(int) length];
-            ioctx.read(object, (int) length, 0, buf);
-            stream = new ByteArrayInputStream(buf);
-        } catch (RadosException e) {
-            throw new StorageException(e);
+        };
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return aio;
+    }
+
+    @Override
+    public void getObjectAsync(String container, String object,
+            Config config, StorageCallback callback) {
+        if (!aio) {
+            super.getObjectAsync(container, object, config, callback);
+            return;
+        }
+        super.getObject(container, object, config);
+        try {
+            AioOperation.read(getIoCTX(container).getPointer(), object,
+                    aioBuffers, chunkSize, callback);
+        } catch (StorageException e) {
+            callback.failed(e);
+        }
+    }
+
+    @Override
+    public void createObjectAsync(String container, String object,
+            InputStream data, long length, Config config,
+            StorageCallback callback) {
+        if (!aio) {
+            super.createObjectAsync(container, object, data, length, config,
+                    callback);
+            return;
+        }
+        super.createObject(container, object, data, length, config);
+        try {
+            AioOperation.write(getIoCTX(container).getPointer(), object, data,
+                    length, aioBuffers, chunkSize, callback);
+        } catch (StorageException e) {
+            callback.failed(e);
+        }
+    }
+
+    @Override
+    public void deleteObjectAsync(String container, String object,
+            Config config, StorageCallback callback) {
+        if (!aio) {
+            super.deleteObjectAsync(container, object, config, callback);
+            return;
+        }
+        super.deleteObject(container, object, config);
+        try {
+            AioOperation.remove(getIoCTX(container).getPointer(), object,
+                    callback);
+        } catch (StorageException e) {
+            callback.failed(e);
         }
-        client.ioCtxDestroy(ioctx);
-        return stream;
     }
 
     public void createContainer(String container, Config config) {
@@ -127,6 +266,7 @@ public class LibradosStorage extends NoneStorage {
 
     public void deleteContainer(String container, Config config) {
         super.deleteContainer(container, config);
+        closeIoCTX(container);
         try {
             client.poolDelete(container);
         } catch (RadosException e) {
@@ -136,24 +276,45 @@ public class LibradosStorage extends NoneStorage {
 
     public void createObject(String container, String object, InputStream data, long length, Config config) {
         super.createObject(container, object, data, length, config);
-        byte[] buf = new byte[(int) length];
+        IoCTX ioctx = getIoCTX(container);
+        byte[] buffer = takeBuffer();
+        long offset = 0;
         try {
-            data.read(buf, 0, (int) length);
-            IoCTX ioctx = client.ioCtxCreate(container);
-            ioctx.write(object, buf);
+            int n;
+            while ((n = fill(data, buffer)) > 0 || offset == 0) {
+                /* rados-java writes whole arrays, only a short tail is copied */
+                byte[] chunk = n == buffer.length ? buffer : Arrays.copyOf(buffer, n);
+                if (offset == 0)
+                    ioctx.write(object, chunk); // replaces the whole object
+                else
+                    ioctx.write(object, chunk, offset);
+                offset += n;
+                if (n < buffer.length)
+                    break;
+            }
         } catch (RadosException e) {
             throw new StorageException(e);
         } catch (IOException e) {
             throw new StorageException(e);
+        } finally {
+            buffers.offer(buffer);
         }
     }
 
+    /* reads up to one chunk into the buffer, returns the bytes read */
+    private static int fill(InputStream data, byte[] buffer) throws IOException {
+        int count = 0;
+        int n;
+        while (count < buffer.length
+                && (n = data.read(buffer, count, buffer.length - count)) != -1)
+            count += n;
+        return count;
+    }
+
     public void deleteObject(String container, String object, Config config) {
         super.deleteObject(container, object, config);
-        IoCTX ioctx;
         try {
-            ioctx = client.ioCtxCreate(container);
-            ioctx.remove(object);
+            getIoCTX(container).remove(object);
         } catch (RadosException e) {
             throw new StorageException(e);
         }
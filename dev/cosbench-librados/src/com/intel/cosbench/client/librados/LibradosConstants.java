@@ -41,4 +41,14 @@ public interface LibradosConstants {
 
     String AUTH_PASSWORD_KEY = "secretkey";
     String AUTH_PASSWORD_DEFAULT = "";
+
+    // --------------------------------------------------------------------------
+    // DATA TRANSFER
+    // --------------------------------------------------------------------------
+
+    String CHUNK_SIZE_KEY = "chunksize";
+    int CHUNK_SIZE_DEFAULT = 4 * 1024 * 1024; // bytes
+
+    String AIO_KEY = "aio";
+    boolean AIO_DEFAULT = false;
 }
@@ -0,0 +1,60 @@
+/** 
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+ */
+package com.intel.cosbench.client.librados;
+
+import com.sun.jna.Callback;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * The asynchronous I/O calls of librados, which rados-java does not expose.
+ * Buffers handed to these calls must stay valid until the operation completes,
+ * so they are native memory rather than Java arrays.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public interface RadosAio extends Library {
+
+    RadosAio INSTANCE = (RadosAio) Native.loadLibrary("rados", RadosAio.class);
+
+    /**
+     * rados_callback_t, called on a librados thread.
+     */
+    interface CompletionCallback extends Callback {
+        void callback(Pointer completion, Pointer arg);
+    }
+
+    int rados_aio_create_completion(Pointer arg, CompletionCallback complete,
+            CompletionCallback safe, PointerByReference completion);
+
+    int rados_aio_get_return_value(Pointer completion);
+
+    void rados_aio_release(Pointer completion);
+
+    int rados_aio_read(Pointer ioctx, String oid, Pointer completion,
+            Pointer buf, NativeLong len, long off);
+
+    int rados_aio_write(Pointer ioctx, String oid, Pointer completion,
+            Pointer buf, NativeLong len, long off);
+
+    int rados_aio_write_full(Pointer ioctx, String oid, Pointer completion,
+            Pointer buf, NativeLong len);
+
+    int rados_aio_remove(Pointer ioctx, String oid, Pointer completion);
+
+}
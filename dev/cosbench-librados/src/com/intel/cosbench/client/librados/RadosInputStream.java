@@ -0,0 +1,97 @@
+/** 
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License. 
+ */
+package com.intel.cosbench.client.librados;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.ceph.rados.IoCTX;
+
+/**
+ * This class reads an object, or a byte range of it, in chunks of the size of
+ * the given buffer, so only one chunk is held in memory at a time. Reading
+ * stops at the first short chunk, which needs no stat call up front.
+ * 
+ * @author ywang19, qzheng7
+ * 
+ */
+public class RadosInputStream extends InputStream {
+
+    private final IoCTX ioctx;
+    private final String object;
+    private final byte[] buffer;
+
+    private long offset; /* of the next chunk */
+    private long end; /* end of the range, exclusive */
+    private int pos; /* next byte in the buffer */
+    private int limit; /* bytes in the buffer */
+    private boolean eof;
+
+    public RadosInputStream(IoCTX ioctx, String object, byte[] buffer,
+            long offset, long length) {
+        this.ioctx = ioctx;
+        this.object = object;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.end = length < 0 ? Long.MAX_VALUE : offset + length;
+    }
+
+    /**
+     * Creates a stream over the whole object.
+     */
+    public RadosInputStream(IoCTX ioctx, String object, byte[] buffer) {
+        this(ioctx, object, buffer, 0L, -1L);
+    }
+
+    private boolean fill() throws IOException {
+        if (eof || offset >= end)
+            return false;
+        int len = (int) Math.min(buffer.length, end - offset);
+        int n = ioctx.read(object, len, offset, buffer);
+        if (n < 0)
+            throw new IOException("fail to read " + object + " at " + offset
+                    + ": " + n);
+        if (n < len)
+            eof = true; // end of the object
+        offset += n;
+        pos = 0;
+        limit = n;
+        return n > 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos == limit && !fill())
+            return -1;
+        return buffer[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (pos == limit && !fill())
+            return -1;
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(buffer, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - pos;
+    }
+
+}
@@ -56,7 +56,7 @@ public class DummyConfig implements Config {
 
     @Override
     public int getInt(String key, int value) {
-        return 0;
+        return value;
     }
 
     @Override
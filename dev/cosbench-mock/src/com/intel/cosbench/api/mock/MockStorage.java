@@ -107,6 +107,19 @@ class MockStorage extends NoneStorage {
         MockUtils.sleep(delay);
         return new NullInputStream(size);
     }
+
+    @Override
+    public InputStream getObjectRange(String container, String object,
+            long offset, long length, Config config) {
+        super.getObject(container, object, config);
+        if (profiling && logger.isDebugEnabled())
+            stats.addEvent("GET", container + "/" + object);
+        if (random.nextDouble() < errors)
+            throw new StorageException("error injection");
+        thread = Thread.currentThread();
+        MockUtils.sleep(delay);
+        return new NullInputStream(Math.max(0L, Math.min(length, size - offset)));
+    }
     
     @Override
     public InputStream getList(String container, String object, Config config) {
@@ -3,6 +3,7 @@ package com.intel.cosbench.api.S3Stor;
 import static com.intel.cosbench.client.S3Stor.S3Constants.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.apache.http.HttpStatus;
 
@@ -41,6 +42,7 @@ public class S3Storage extends NoneStorage {
         
 		String proxyHost = config.get(PROXY_HOST_KEY, "");
 		String proxyPort = config.get(PROXY_PORT_KEY, "");
+		int maxConn = config.getInt(MAX_CONN_KEY, MAX_CONN_DEFAULT);
         
         parms.put(ENDPOINT_KEY, endpoint);
     	parms.put(AUTH_USERNAME_KEY, accessKey);
@@ -48,12 +50,14 @@ public class S3Storage extends NoneStorage {
     	parms.put(PATH_STYLE_ACCESS_KEY, pathStyleAccess);
     	parms.put(PROXY_HOST_KEY, proxyHost);
     	parms.put(PROXY_PORT_KEY, proxyPort);
+    	parms.put(MAX_CONN_KEY, maxConn);
 
         logger.debug("using storage config: {}", parms);
         
         ClientConfiguration clientConf = new ClientConfiguration();
         clientConf.setConnectionTimeout(timeout);
         clientConf.setSocketTimeout(timeout);
+        clientConf.setMaxConnections(maxConn);
         clientConf.withUseExpectContinue(false);
         clientConf.withSignerOverride("S3SignerType");
 //        clientConf.setProtocol(Protocol.HTTP);
@@ -81,6 +85,11 @@ public class S3Storage extends NoneStorage {
 //        }
     }
 
+    @Override
+    public boolean isAsyncSupported() {
+        return true; // the AWS client is thread-safe
+    }
+
     @Override
     public void dispose() {
         super.dispose();
@@ -102,6 +111,21 @@ public class S3Storage extends NoneStorage {
         return stream;
     }
 
+    @Override
+    public InputStream getObjectRange(String container, String object,
+            long offset, long length, Config config) {
+        super.getObject(container, object, config);
+        InputStream stream;
+        try {
+            GetObjectRequest request = new GetObjectRequest(container, object)
+                    .withRange(offset, offset + length - 1);
+            stream = client.getObject(request).getObjectContent();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+        return stream;
+    }
+
     @Override
     public void createContainer(String container, Config config) {
         super.createContainer(container, config);
@@ -130,6 +154,70 @@ public class S3Storage extends NoneStorage {
         }
     }
 
+    @Override
+    public boolean isMultipartSupported() {
+        return true;
+    }
+
+    @Override
+    public String initMultipartUpload(String container, String object,
+            Config config) {
+        super.initMultipartUpload(container, object, config);
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType("application/octet-stream");
+            return client.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(container, object,
+                            metadata)).getUploadId();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public String uploadPart(String container, String object, String uploadId,
+            int partNumber, InputStream data, long length, Config config) {
+        super.uploadPart(container, object, uploadId, partNumber, data, length,
+                config);
+        try {
+            UploadPartRequest request = new UploadPartRequest()
+                    .withBucketName(container).withKey(object)
+                    .withUploadId(uploadId).withPartNumber(partNumber)
+                    .withInputStream(data).withPartSize(length);
+            return client.uploadPart(request).getETag();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String container, String object,
+            String uploadId, List<String> parts, Config config) {
+        super.completeMultipartUpload(container, object, uploadId, parts,
+                config);
+        try {
+            List<PartETag> etags = new ArrayList<PartETag>(parts.size());
+            for (int i = 0; i < parts.size(); i++)
+                etags.add(new PartETag(i + 1, parts.get(i)));
+            client.completeMultipartUpload(new CompleteMultipartUploadRequest(
+                    container, object, uploadId, etags));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String container, String object,
+            String uploadId, Config config) {
+        super.abortMultipartUpload(container, object, uploadId, config);
+        try {
+            client.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    container, object, uploadId));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
     @Override
     public void deleteContainer(String container, Config config) {
         super.deleteContainer(container, config);
@@ -29,6 +29,9 @@ public interface S3Constants {
     String PROXY_HOST_KEY = "proxyhost";
     String PROXY_PORT_KEY = "proxyport";    
     
+    String MAX_CONN_KEY = "maxconn";
+    int MAX_CONN_DEFAULT = 50;
+    
     // --------------------------------------------------------------------------
     // PATH STYLE ACCESS
     // --------------------------------------------------------------------------
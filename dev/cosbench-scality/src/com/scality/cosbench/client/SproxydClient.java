@@ -19,9 +19,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
@@ -35,29 +35,32 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.util.EntityUtils;
 
+import com.intel.cosbench.client.http.EndpointHealthRegistry;
+import com.intel.cosbench.client.http.EndpointHealthRegistry.Endpoint;
+import com.intel.cosbench.client.http.EndpointHealthRegistry.Group;
 import com.intel.cosbench.client.http.HttpClientUtil;
+import com.intel.cosbench.client.http.PayloadEntity;
 import com.intel.cosbench.log.Logger;
 
 public class SproxydClient {
 
 	public static final int DEFAULT_SO_TIMEOUT = 2000;
-	private static final int DEFAULT_CHECK_PERIOD = 10000;
 	private static Logger LOG = null;
 	private HttpClient client;
 	private SproxydUrlList urls;
-	private final Map<Endpoint, SproxydEndpoint> endpoints = new HashMap<Endpoint, SproxydEndpoint>();
 	/* current operation */
 	private volatile HttpUriRequest request;
 
 	public SproxydClient(HttpClient client, String hosts, int port, String basePath, Logger logger) {
 		this.client = client;
 		urls = new SproxydUrlList(hosts, port, basePath);
-		urls.registerEndpoints(endpoints);
+		urls.registerEndpoints();
 		LOG = logger;
 	}
 
 	public void dispose() {
 		request = null;
+		urls.releaseEndpoints();
 	}
 
 	public void abort() {
@@ -124,7 +127,7 @@ public class SproxydClient {
 				final String url = String.format("%s%s/%s", base, container, object);
 				final HttpPut put = HttpClientUtil.makeHttpPut(url);
 				request = put;
-				final InputStreamEntity entity = new InputStreamEntity(data, length);
+				final InputStreamEntity entity = new PayloadEntity(data, length);
 				entity.setContentType("application/octet-stream");
 				if (length < 0) {
 					entity.setChunked(true);
@@ -189,145 +192,9 @@ public class SproxydClient {
 		}
 	}
 
-	/**
-	 * Key of an sproxyd server (host + port) for blacklisting purposes.
-	 *
-	 */
-	private static class Endpoint {
-		private final String host;
-		private final int port;
-
-		Endpoint(URI uri) {
-			this.host= uri.getHost();
-			this.port = uri.getPort();
-		}
-
-		public String getHost() {
-			return host;
-		}
-
-		public int getPort() {
-			return port;
-		}
-
-		@Override
-		public int hashCode() {
-			return getHost().hashCode() + getPort();
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (obj instanceof Endpoint) {
-				final Endpoint other = (Endpoint)obj;
-				return (getPort() == other.getPort()) && getHost().equals(other.getHost());
-			}
-			return false;
-		}
-
-		@Override
-		public String toString() {
-			return getHost()+":"+getPort();
-		}
-	}
-
-	/**
-	 * Background task that monitors an endpoint for blacklisting.
-	 *
-	 */
-	private static class SproxydEndpoint  extends Thread {
-		private static int id = 0;
-		private static int checkPeriod = DEFAULT_CHECK_PERIOD;
-		private final URI uri;
-		private HttpClient client;
-		private boolean isUp;
-		private volatile boolean shutdownRequested = false;
-
-		SproxydEndpoint(URI uri) {
-			this.uri = uri;
-			this.client = HttpClientUtil.createHttpClient(300);
-			this.setName(String.format("ScalConnChecker-%d", id++));
-			this.setDaemon(true);
-			isUp = true;
-		}
-
-		public synchronized boolean isUp() {
-			return isUp;
-		}
-
-		public synchronized boolean setUp(boolean isUp) {
-			final boolean before = this.isUp;
-			this.isUp = isUp;
-			return before;
-		}
-
-		private void update(boolean isUp, String message) {
-			boolean wasUp = setUp(isUp);
-			if (wasUp && !isUp) {
-				warn("Blacklisting {}, {}", uri, message);
-
-			} else if (!wasUp) {
-				if (isUp) {
-					warn("{} is up", uri);
-				} else {
-					warn("{} still down", uri);
-				}
-			}
-		}
-
-		public void exclude(String message) {
-			update(false, message);
-		}
-
-		public void include() {
-			update(true, "");
-		}
-
-		public void retryConnection() {
-			if (isUp()) {
-				//LOG.debug("Checking connection to {}", uri.toString());
-				return;
-			} else {
-				info("Checking connection to {}", uri.toString());
-			}
-			HttpResponse response = null;
-			final HttpGet get = HttpClientUtil.makeHttpGet(uri.toString() + ".conf");
-			try {
-				response = client.execute(get);
-				final StatusLine statusLine = response.getStatusLine();
-				final int statusCode = statusLine.getStatusCode();
-				if (statusCode == HttpStatus.SC_OK) {
-					include();
-				} else if (statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
-					exclude(statusLine.getReasonPhrase());
-				}
-			} catch (Exception e) {
-				exclude(e.getMessage());
-			}
-		}
-
-		@SuppressWarnings("unused")
-		public void shutdown() {
-			shutdownRequested = true;
-			this.interrupt();
-		}
-
-		@Override
-		public void run() {
-			info("{} thread starting", getName());
-			while (!shutdownRequested) {
-				retryConnection();
-				try {
-					Thread.sleep(checkPeriod);
-				} catch (InterruptedException e) {
-				}
-			}
-			info("{} thread exiting", getName());
-		}
-	}
-
 	static class SproxydUrl {
 		private final URI uri;
-		private SproxydEndpoint endpoint;
+		private Endpoint endpoint;
 
 		SproxydUrl(String url) throws URISyntaxException {
 			if (!url.endsWith("/")) {
@@ -336,22 +203,16 @@ public class SproxydClient {
 			uri = new URI(url);
 		}
 
-		public boolean isUp() {
-			return endpoint.isUp();
+		String getProbe() {
+			return uri.toString() + ".conf";
 		}
 
-		public void exclude(String message) {
-			endpoint.exclude(message);
+		void setEndpoint(Endpoint endpoint) {
+			this.endpoint = endpoint;
 		}
 
-		public void registerEndpoint(final Map<Endpoint, SproxydEndpoint> endpoints) {
-			final Endpoint key = new Endpoint(uri);
-			if (endpoints.containsKey(key)) {
-				endpoint = endpoints.get(key);
-			} else {
-				endpoint = new SproxydEndpoint(uri);
-				endpoints.put(key, endpoint);
-			}
+		public void exclude(String message) {
+			endpoint.exclude(message);
 		}
 
 		@Override
@@ -360,36 +221,51 @@ public class SproxydClient {
 		}
 	}
 
+	/**
+	 * Sproxyd servers of a client, balanced over the ones the driver-wide
+	 * registry deems healthy.
+	 *
+	 */
 	private static class SproxydUrlList {
 		private SproxydUrl urls[];
-		private int current = 0;
+		private Group group;
 
 		SproxydUrlList(String hosts, int port, String basePath) {
 			final String[] hostList = hosts.split(",");
-			urls = new SproxydUrl[hostList.length];
+			final List<SproxydUrl> list = new ArrayList<SproxydUrl>(hostList.length);
 			for (int i=0; i< hostList.length; i++) {
 				try {
-					urls[i] = new SproxydUrl(String.format("http://%s:%d%s", hostList[i], port, basePath));
+					list.add(new SproxydUrl(String.format("http://%s:%d%s", hostList[i], port, basePath)));
 				} catch (URISyntaxException e) {
 				}
 			}
+			urls = list.toArray(new SproxydUrl[list.size()]);
 		}
 
-		void registerEndpoints(final Map<Endpoint, SproxydEndpoint> endpoints) {
-			for (SproxydUrl url : urls) {
-				url.registerEndpoint(endpoints);
+		void registerEndpoints() {
+			final String[] probes = new String[urls.length];
+			for (int i=0; i< urls.length; i++) {
+				probes[i] = urls[i].getProbe();
+			}
+			group = EndpointHealthRegistry.register(probes);
+			for (int i=0; i< urls.length; i++) {
+				urls[i].setEndpoint(group.get(i));
 			}
 		}
 
-		synchronized SproxydUrl getNext() throws SproxydClientException {
-			int trials = urls.length;
-			while (trials > 0) {
-				current = (current + 1) % urls.length;
-				final SproxydUrl url = urls[current];
-				if (url.isUp()) return url;
-				trials -= 1;
+		void releaseEndpoints() {
+			if (group != null) {
+				EndpointHealthRegistry.release(group);
+				group = null;
 			}
-			throw new SproxydClientException(0, "All servers are blacklisted");
+		}
+
+		SproxydUrl getNext() throws SproxydClientException {
+			final int index = group.next();
+			if (index < 0) {
+				throw new SproxydClientException(0, "All servers are blacklisted");
+			}
+			return urls[index];
 		}
 
 		@Override
@@ -399,16 +275,4 @@ public class SproxydClient {
 
 	}
 
-	private static void info(String format, Object arg) {
-		if (LOG != null) LOG.info(format, arg);
-	}
-
-	private static void warn(String format, Object arg) {
-		if (LOG != null) LOG.warn(format, arg);
-	}
-
-	private static void warn(String format, Object arg1, Object arg2) {
-		if (LOG != null) LOG.warn(format, arg1, arg2);
-	}
-
 }
@@ -21,7 +21,7 @@ import static com.intel.cosbench.client.swift.SwiftConstants.*;
 
 import java.io.*;
 import java.net.SocketTimeoutException;
-import java.util.Map;
+import java.util.*;
 
 import org.apache.http.client.HttpClient;
 import org.apache.http.conn.ConnectTimeoutException;
@@ -30,6 +30,7 @@ import com.intel.cosbench.api.context.AuthContext;
 import com.intel.cosbench.api.context.DefaultAuthContext;
 import com.intel.cosbench.api.storage.*;
 import com.intel.cosbench.client.http.HttpClientUtil;
+import com.intel.cosbench.client.http.SharedConnectionPool;
 import com.intel.cosbench.client.swift.*;
 import com.intel.cosbench.config.Config;
 import com.intel.cosbench.log.Logger;
@@ -49,6 +50,8 @@ class SwiftStorage extends NoneStorage {
     private String token;
     private String storage_url;
     private String policy;
+    private boolean sharedPool; // thread-safe client
+    private String manifest; // large object type, "slo" or "dlo"
 
     public SwiftStorage() {
         /* empty */
@@ -62,15 +65,18 @@ class SwiftStorage extends NoneStorage {
         token = config.get(AUTH_TOKEN_KEY, AUTH_TOKEN_DEFAULT);
         storage_url = config.get(STORAGE_URL_KEY, STORAGE_URL_DEFAULT);
         policy = config.get(POLICY_KEY, POLICY_DEFAULT);
+        manifest = config.get(MANIFEST_KEY, MANIFEST_DEFAULT);
         		
         parms.put(CONN_TIMEOUT_KEY, timeout);
         parms.put(AUTH_TOKEN_KEY, token);
         parms.put(STORAGE_URL_KEY, storage_url);
         parms.put(POLICY_KEY, policy);
+        parms.put(MANIFEST_KEY, manifest);
 
         logger.debug("using storage config: {}", parms);
 
-        HttpClient httpClient = HttpClientUtil.createHttpClient(timeout);
+        HttpClient httpClient = HttpClientUtil.createHttpClient(timeout, config);
+        sharedPool = SharedConnectionPool.isShared(config);
         
         client = new SwiftClient(httpClient);
         logger.debug("swift client has been initialized");
@@ -112,6 +118,11 @@ class SwiftStorage extends NoneStorage {
 		return info;
     }
 
+    @Override
+    public boolean isAsyncSupported() {
+        return sharedPool;
+    }
+
     @Override
     public void dispose() {
         super.dispose();
@@ -145,6 +156,29 @@ class SwiftStorage extends NoneStorage {
         return stream;
     }
     
+    @Override
+    public InputStream getObjectRange(String container, String object,
+            long offset, long length, Config config) {
+        super.getObject(container, object, config);
+        InputStream stream;
+        try {
+            stream = client.getObjectRangeAsStream(container, object, offset,
+                    length);
+        } catch (SocketTimeoutException ste) {
+            throw new StorageTimeoutException(ste);
+        } catch (ConnectTimeoutException cte) {
+            throw new StorageTimeoutException(cte);
+        } catch (InterruptedIOException ie) {
+            throw new StorageInterruptedException(ie);
+        } catch (SwiftException se) {
+            String msg = se.getHttpStatusLine().toString();
+            throw new StorageException(msg, se);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+        return stream;
+    }
+
     @Override
     public InputStream getList(String container, String object, Config config) {
         super.getList(container, object, config);
@@ -226,6 +260,113 @@ class SwiftStorage extends NoneStorage {
         }
     }
 
+    /*
+     * Large objects are uploaded as segments named "<object>/<upload id>/<part>"
+     * in the same container, then tied together by a static (SLO) or dynamic
+     * (DLO) manifest. The handle of a part is its SLO manifest entry.
+     */
+    @Override
+    public boolean isMultipartSupported() {
+        return true;
+    }
+
+    @Override
+    public String initMultipartUpload(String container, String object,
+            Config config) {
+        super.initMultipartUpload(container, object, config);
+        return UUID.randomUUID().toString(); // no request needed
+    }
+
+    @Override
+    public String uploadPart(String container, String object, String uploadId,
+            int partNumber, InputStream data, long length, Config config) {
+        super.uploadPart(container, object, uploadId, partNumber, data, length,
+                config);
+        String segment = getSegmentPrefix(object, uploadId)
+                + String.format("%08d", partNumber);
+        try {
+            String etag = client.storeStreamedObject(container, segment, data,
+                    length);
+            return new StringBuilder().append("{\"path\":\"")
+                    .append(escape("/" + container + "/" + segment))
+                    .append("\",\"etag\":")
+                    .append(etag != null ? "\"" + escape(etag) + "\"" : "null")
+                    .append(",\"size_bytes\":").append(length).append('}')
+                    .toString();
+        } catch (SocketTimeoutException ste) {
+            throw new StorageTimeoutException(ste);
+        } catch (ConnectTimeoutException cte) {
+            throw new StorageTimeoutException(cte);
+        } catch (InterruptedIOException ie) {
+            throw new StorageInterruptedException(ie);
+        } catch (SwiftException se) {
+            String msg = se.getHttpStatusLine().toString();
+            throw new StorageException(msg, se);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String container, String object,
+            String uploadId, List<String> parts, Config config) {
+        super.completeMultipartUpload(container, object, uploadId, parts,
+                config);
+        try {
+            if (manifest.equals("dlo")) {
+                client.storeDynamicManifest(container, object,
+                        getSegmentPrefix(object, uploadId));
+                return;
+            }
+            StringBuilder segments = new StringBuilder().append('[');
+            for (String part : parts)
+                segments.append(segments.length() > 1 ? "," : "").append(part);
+            client.storeStaticManifest(container, object,
+                    segments.append(']').toString());
+        } catch (SocketTimeoutException ste) {
+            throw new StorageTimeoutException(ste);
+        } catch (ConnectTimeoutException cte) {
+            throw new StorageTimeoutException(cte);
+        } catch (InterruptedIOException ie) {
+            throw new StorageInterruptedException(ie);
+        } catch (SwiftException se) {
+            String msg = se.getHttpStatusLine().toString();
+            throw new StorageException(msg, se);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String container, String object,
+            String uploadId, Config config) {
+        super.abortMultipartUpload(container, object, uploadId, config);
+        try {
+            for (String segment : client.listObjects(container,
+                    getSegmentPrefix(object, uploadId)))
+                client.deleteObject(container, segment);
+        } catch (SocketTimeoutException ste) {
+            throw new StorageTimeoutException(ste);
+        } catch (ConnectTimeoutException cte) {
+            throw new StorageTimeoutException(cte);
+        } catch (InterruptedIOException ie) {
+            throw new StorageInterruptedException(ie);
+        } catch (SwiftException se) {
+            String msg = se.getHttpStatusLine().toString();
+            throw new StorageException(msg, se);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private static String getSegmentPrefix(String object, String uploadId) {
+        return object + "/" + uploadId + "/";
+    }
+
+    private static String escape(String str) {
+        return str.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
     @Override
     public void deleteContainer(String container, Config config) {
         super.deleteContainer(container, config);
@@ -22,12 +22,14 @@ import static org.apache.http.HttpStatus.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.http.*;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.*;
 import org.apache.http.entity.*;
 import com.intel.cosbench.client.http.HttpClientUtil;
+import com.intel.cosbench.client.http.PayloadEntity;
 import com.intel.cosbench.log.*;
 
 public class SwiftClient {
@@ -42,8 +44,9 @@ public class SwiftClient {
     /* HTTP client */
     private HttpClient client;
 
-    /* current operation */
-    private volatile HttpUriRequest method;
+    /* operations in flight, several with a shared connection pool */
+    private final Set<HttpUriRequest> methods = Collections
+            .newSetFromMap(new ConcurrentHashMap<HttpUriRequest, Boolean>());
 
     public SwiftClient(HttpClient client) {
         this.client = client;
@@ -58,14 +61,40 @@ public class SwiftClient {
     }
 
     public void dispose() {
-        method = null;
+        methods.clear();
         HttpClientUtil.disposeHttpClient(client);
     }
 
     public void abort() {
-        if (method != null)
+        for (HttpUriRequest method : methods)
             method.abort();
-        method = null;
+        methods.clear();
+    }
+
+    private HttpResponse execute(HttpUriRequest method) throws IOException {
+        methods.add(method);
+        try {
+            return client.execute(method);
+        } finally {
+            methods.remove(method);
+        }
+    }
+
+    /*
+     * Keeps a download abortable until its stream is closed.
+     */
+    private InputStream track(final HttpUriRequest method, InputStream stream) {
+        methods.add(method);
+        return new FilterInputStream(stream) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    methods.remove(method);
+                }
+            }
+        };
     }
 
     public void init(String authToken, String storageURL, String policy) {
@@ -77,9 +106,9 @@ public class SwiftClient {
     public SwiftAccount getAccountInfo() throws IOException, SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpHead(storageURL);
+            HttpUriRequest method = HttpClientUtil.makeHttpHead(storageURL);
             method.setHeader(X_AUTH_TOKEN, authToken);
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_NO_CONTENT) {
                 long bytesUsed = response.getAccountBytesUsed();
                 int containerCount = response.getAccountContainerCount();
@@ -97,9 +126,9 @@ public class SwiftClient {
             throws IOException, SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpHead(getContainerPath(container));
+            HttpUriRequest method = HttpClientUtil.makeHttpHead(getContainerPath(container));
             method.setHeader(X_AUTH_TOKEN, authToken);
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_NO_CONTENT) {
                 long bytesUsed = response.getContainerBytesUsed();
                 int objectCount = response.getContainerObjectCount();
@@ -124,11 +153,11 @@ public class SwiftClient {
 		Logger logger = LogFactory.getSystemLogger();
 		logger.debug("Creating container with auth_token " + authToken);
 
-            method = HttpClientUtil.makeHttpPut(getContainerPath(container));
+            HttpUriRequest method = HttpClientUtil.makeHttpPut(getContainerPath(container));
             method.setHeader(X_AUTH_TOKEN, authToken);
             if(policy != null)
             	method.setHeader(X_STORAGE_POLICY, policy);
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_CREATED) {
             	logger.debug("Creating container "+container+" SUCCESS");
                 return;
@@ -149,9 +178,9 @@ public class SwiftClient {
             SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpDelete(getContainerPath(container));
+            HttpUriRequest method = HttpClientUtil.makeHttpDelete(getContainerPath(container));
             method.setHeader(X_AUTH_TOKEN, authToken);
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_NO_CONTENT)
                 return;
             if (response.getStatusCode() == SC_NOT_FOUND)
@@ -172,11 +201,11 @@ public class SwiftClient {
 
     public InputStream getObjectAsStream(String container, String object)
             throws IOException, SwiftException {
-        method = HttpClientUtil.makeHttpGet(getObjectPath(container, object));
+        HttpUriRequest method = HttpClientUtil.makeHttpGet(getObjectPath(container, object));
         method.setHeader(X_AUTH_TOKEN, authToken);
-        SwiftResponse response = new SwiftResponse(client.execute(method));
+        SwiftResponse response = new SwiftResponse(execute(method));
         if (response.getStatusCode() == SC_OK)
-            return response.getResponseBodyAsStream();
+            return track(method, response.getResponseBodyAsStream());
         response.consumeResposeBody();
         if (response.getStatusCode() == SC_NOT_FOUND)
             throw new SwiftFileNotFoundException("object not found " + container + " / " + object, response.getResponseHeaders(),
@@ -185,18 +214,37 @@ public class SwiftClient {
                 response.getResponseHeaders(), response.getStatusLine());
     }
     
+    public InputStream getObjectRangeAsStream(String container, String object,
+            long offset, long length) throws IOException, SwiftException {
+        HttpUriRequest method = HttpClientUtil.makeHttpGet(getObjectPath(container, object));
+        method.setHeader(X_AUTH_TOKEN, authToken);
+        method.setHeader("Range", "bytes=" + offset + "-" + (offset + length - 1));
+        SwiftResponse response = new SwiftResponse(execute(method));
+        if (response.getStatusCode() == SC_PARTIAL_CONTENT
+                || response.getStatusCode() == SC_OK)
+            return track(method, response.getResponseBodyAsStream());
+        response.consumeResposeBody();
+        if (response.getStatusCode() == SC_NOT_FOUND)
+            throw new SwiftFileNotFoundException("object not found " + container + " / " + object, response.getResponseHeaders(),
+                    response.getStatusLine());
+        throw new SwiftException("unexpected result from server",
+                response.getResponseHeaders(), response.getStatusLine());
+    }
+
     public InputStream getTargetList(String container, String object) throws IOException, SwiftException {
+    	HttpUriRequest method;
     	if (object.isEmpty())
     		method = HttpClientUtil.makeHttpGet(getObjectPath(container, object));
 		else
 			method = HttpClientUtil.makeHttpHead(getObjectPath(container, object));
         method.setHeader(X_AUTH_TOKEN, authToken);
-        SwiftResponse response = new SwiftResponse(client.execute(method));
+        SwiftResponse response = new SwiftResponse(execute(method));
         
         if (response.getStatusCode() == SC_OK) {
         	if (!object.isEmpty() && response != null)
 				response.consumeResposeBody();
-            return object.isEmpty() ? response.getResponseBodyAsStream()
+            return object.isEmpty() ? track(method,
+                    response.getResponseBodyAsStream())
             		: new ByteArrayInputStream(new byte[] {});
         }
         response.consumeResposeBody();
@@ -211,13 +259,13 @@ public class SwiftClient {
             throws IOException, SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpPut(getObjectPath(container, object));
+            HttpUriRequest method = HttpClientUtil.makeHttpPut(getObjectPath(container, object));
             method.setHeader(X_AUTH_TOKEN, authToken);
             ByteArrayEntity entity = new ByteArrayEntity(data);
             entity.setChunked(false);
             entity.setContentType("application/octet-stream");
             ((HttpPut)method).setEntity(entity);
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_CREATED)
                 return;
             if (response.getStatusCode() == SC_ACCEPTED)
@@ -233,24 +281,28 @@ public class SwiftClient {
         }
     }
 
-    public void storeStreamedObject(String container, String object,
+    /**
+     * @return the ETag of the stored object, if the server returns one
+     */
+    public String storeStreamedObject(String container, String object,
             InputStream data, long length) throws IOException, SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpPut(getObjectPath(container, object));
+            HttpUriRequest method = HttpClientUtil.makeHttpPut(getObjectPath(container, object));
             method.setHeader(X_AUTH_TOKEN, authToken);
-            InputStreamEntity entity = new InputStreamEntity(data, length);
+            InputStreamEntity entity = new PayloadEntity(data, length);
             if (length < 0)
                 entity.setChunked(true);
             else
                 entity.setChunked(false);
             entity.setContentType("application/octet-stream");
             ((HttpPut)method).setEntity(entity);
-            response = new SwiftResponse(client.execute(method));
-            if (response.getStatusCode() == SC_CREATED)
-                return;
-            if (response.getStatusCode() == SC_ACCEPTED)
-                return;
+            response = new SwiftResponse(execute(method));
+            if (response.getStatusCode() == SC_CREATED
+                    || response.getStatusCode() == SC_ACCEPTED) {
+                Header etag = response.getResponseHeader("ETag");
+                return etag != null ? etag.getValue() : null;
+            }
             if (response.getStatusCode() == SC_NOT_FOUND)
                 throw new SwiftFileNotFoundException("container not found " + container  + "/" + object
                         , response.getResponseHeaders(),
@@ -263,13 +315,96 @@ public class SwiftClient {
         }
     }
 
+    /**
+     * Stores the manifest of a static large object, given as the JSON list of
+     * its segments.
+     */
+    public void storeStaticManifest(String container, String object,
+            String segments) throws IOException, SwiftException {
+        SwiftResponse response = null;
+        try {
+            HttpUriRequest method = HttpClientUtil.makeHttpPut(getObjectPath(container, object)
+                    + "?multipart-manifest=put");
+            method.setHeader(X_AUTH_TOKEN, authToken);
+            StringEntity entity = new StringEntity(segments, "UTF-8");
+            entity.setContentType("application/json");
+            ((HttpPut)method).setEntity(entity);
+            response = new SwiftResponse(execute(method));
+            if (response.getStatusCode() == SC_CREATED
+                    || response.getStatusCode() == SC_ACCEPTED)
+                return;
+            throw new SwiftException("unexpected return from server",
+                    response.getResponseHeaders(), response.getStatusLine());
+        } finally {
+            if (response != null)
+                response.consumeResposeBody();
+        }
+    }
+
+    /**
+     * Stores the manifest of a dynamic large object, made of all objects in
+     * the container whose names start with the given prefix.
+     */
+    public void storeDynamicManifest(String container, String object,
+            String prefix) throws IOException, SwiftException {
+        SwiftResponse response = null;
+        try {
+            HttpUriRequest method = HttpClientUtil.makeHttpPut(getObjectPath(container, object));
+            method.setHeader(X_AUTH_TOKEN, authToken);
+            method.setHeader(X_OBJECT_MANIFEST, HttpClientUtil.encodeURL(container)
+                    + "/" + HttpClientUtil.encodeURL(prefix));
+            ByteArrayEntity entity = new ByteArrayEntity(new byte[] {});
+            entity.setContentType("application/octet-stream");
+            ((HttpPut)method).setEntity(entity);
+            response = new SwiftResponse(execute(method));
+            if (response.getStatusCode() == SC_CREATED
+                    || response.getStatusCode() == SC_ACCEPTED)
+                return;
+            throw new SwiftException("unexpected return from server",
+                    response.getResponseHeaders(), response.getStatusLine());
+        } finally {
+            if (response != null)
+                response.consumeResposeBody();
+        }
+    }
+
+    /**
+     * Lists the names of the objects in a container starting with a prefix.
+     */
+    public List<String> listObjects(String container, String prefix)
+            throws IOException, SwiftException {
+        SwiftResponse response = null;
+        try {
+            HttpUriRequest method = HttpClientUtil.makeHttpGet(getContainerPath(container)
+                    + "?prefix=" + HttpClientUtil.encodeURL(prefix));
+            method.setHeader(X_AUTH_TOKEN, authToken);
+            response = new SwiftResponse(execute(method));
+            List<String> names = new ArrayList<String>();
+            if (response.getStatusCode() == SC_NO_CONTENT)
+                return names;
+            if (response.getStatusCode() != SC_OK)
+                throw new SwiftException("unexpected result from server",
+                        response.getResponseHeaders(), response.getStatusLine());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    response.getResponseBodyAsStream(), "UTF-8"));
+            String name;
+            while ((name = reader.readLine()) != null)
+                if (name.length() > 0)
+                    names.add(name);
+            return names;
+        } finally {
+            if (response != null)
+                response.consumeResposeBody();
+        }
+    }
+
     public void deleteObject(String container, String object)
             throws IOException, SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpDelete(getObjectPath(container, object));
+            HttpUriRequest method = HttpClientUtil.makeHttpDelete(getObjectPath(container, object));
             method.setHeader(X_AUTH_TOKEN, authToken);
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_NO_CONTENT)
                 return;
             if (!REPORT_DELETE_ERROR)
@@ -289,11 +424,11 @@ public class SwiftClient {
             Map<String, String> map) throws IOException, SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpPost(getObjectPath(container, object));
+            HttpUriRequest method = HttpClientUtil.makeHttpPost(getObjectPath(container, object));
             method.setHeader(X_AUTH_TOKEN, authToken);
             for (String ele : map.keySet())
                 method.addHeader(ele, map.get(ele));
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_ACCEPTED)
                 return;
             if (response.getStatusCode() == SC_NOT_FOUND)
@@ -312,9 +447,9 @@ public class SwiftClient {
             throws IOException, SwiftException {
         SwiftResponse response = null;
         try {
-            method = HttpClientUtil.makeHttpHead(getObjectPath(container, object));
+            HttpUriRequest method = HttpClientUtil.makeHttpHead(getObjectPath(container, object));
             method.setHeader(X_AUTH_TOKEN, authToken);
-            response = new SwiftResponse(client.execute(method));
+            response = new SwiftResponse(execute(method));
             if (response.getStatusCode() == SC_OK) {
                 Header[] headers = response.getResponseHeaders();
                 Map<String, String> map = new HashMap<String, String>();
@@ -39,6 +39,13 @@ public interface SwiftConstants {
     
     String POLICY_KEY = "policy";
     String POLICY_DEFAULT = null;
+
+    // --------------------------------------------------------------------------
+    // LARGE OBJECTS
+    // --------------------------------------------------------------------------
+
+    String MANIFEST_KEY = "manifest"; // "slo" or "dlo"
+    String MANIFEST_DEFAULT = "slo";
     
     // --------------------------------------------------------------------------
     // Swift RESTful API
@@ -58,4 +65,6 @@ public interface SwiftConstants {
 
     String X_ACCOUNT_BYTES_USED = "X-Account-Bytes-Used";
 
+    String X_OBJECT_MANIFEST = "X-Object-Manifest";
+
 }